@@ -0,0 +1,115 @@
+package org.springframework.ai.zhipuai;
+
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Canned payloads shared by the benchmarks, no network access is involved.
+ */
+final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Streamed content chunk as returned by /v4/chat/completions.
+     */
+    static final String CHAT_COMPLETION_CHUNK_JSON = """
+            {"id":"8313807536837492492","created":1706092316,"model":"glm-4","choices":[{"index":0,"delta":{"role":"assistant","content":"你好"}}]}""";
+
+    static List<FunctionCallback> functionCallbacks(int count) {
+        List<FunctionCallback> functionCallbacks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            functionCallbacks.add(new CannedFunctionCallback("function_" + i));
+        }
+        return functionCallbacks;
+    }
+
+    /**
+     * @param dimensions the embedding dimensions, 1024 for embedding-2.
+     * @return an embedding response as returned by /v4/embeddings.
+     */
+    static String embeddingListJson(int dimensions) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(dimensions * 24);
+        json.append("{\"model\":\"embedding-2\",\"object\":\"list\",\"data\":[{\"index\":0,\"object\":\"embedding\",\"embedding\":[");
+        for (int i = 0; i < dimensions; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT, "%.17f", random.nextDouble() * 2 - 1));
+        }
+        json.append("]}],\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":0,\"total_tokens\":12}}");
+        return json.toString();
+    }
+
+    /**
+     * @param count the number of chunks.
+     * @return a tool call streamed as {@code count} argument fragments, the last one carrying the
+     * tool_calls finish reason.
+     */
+    static List<ZhipuAiApi.ChatCompletionChunk> toolCallChunks(int count) {
+        List<ZhipuAiApi.ChatCompletionChunk> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var function = new ZhipuAiApi.ChatCompletionMessage.ChatCompletionFunction(i == 0 ? "get_weather" : null,
+                    i == 0 ? "{\"location\":\"" : "北京");
+            var toolCall = new ZhipuAiApi.ChatCompletionMessage.ToolCall(i == 0 ? "call_1" : null, "function", function);
+            var delta = new ZhipuAiApi.ChatCompletionMessage(null, ZhipuAiApi.ChatCompletionMessage.Role.ASSISTANT, null,
+                    List.of(toolCall));
+            var finishReason = (i == count - 1) ? ZhipuAiApi.ChatCompletionFinishReason.TOOL_CALLS : null;
+            chunks.add(new ZhipuAiApi.ChatCompletionChunk("8313807536837492492", null, 1706092316L, "glm-4", null,
+                    List.of(new ZhipuAiApi.ChatCompletionChunk.ChunkChoice(0, delta, finishReason))));
+        }
+        return chunks;
+    }
+
+    /**
+     * @param count the number of tokens.
+     * @return a plain answer streamed as {@code count} content chunks.
+     */
+    static List<ZhipuAiApi.ChatCompletionChunk> contentChunks(int count) {
+        List<ZhipuAiApi.ChatCompletionChunk> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var delta = new ZhipuAiApi.ChatCompletionMessage("token" + i, ZhipuAiApi.ChatCompletionMessage.Role.ASSISTANT);
+            var finishReason = (i == count - 1) ? ZhipuAiApi.ChatCompletionFinishReason.STOP : null;
+            chunks.add(new ZhipuAiApi.ChatCompletionChunk("8313807536837492492", null, 1706092316L, "glm-4", null,
+                    List.of(new ZhipuAiApi.ChatCompletionChunk.ChunkChoice(0, delta, finishReason))));
+        }
+        return chunks;
+    }
+
+    private record CannedFunctionCallback(String name) implements FunctionCallback {
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Get the weather in location, " + this.name;
+        }
+
+        @Override
+        public String getInputTypeSchema() {
+            return """
+                    {"$schema":"https://json-schema.org/draft/2020-12/schema","type":"object","properties":{
+                    "location":{"type":"string","description":"The city and state e.g. San Francisco, CA"},
+                    "lat":{"type":"number","description":"The city latitude"},
+                    "lon":{"type":"number","description":"The city longitude"},
+                    "unit":{"type":"string","enum":["C","F"]}},"required":["location","lat","lon","unit"]}""";
+        }
+
+        @Override
+        public String call(String functionInput) {
+            return "{\"temperature\":30}";
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.springframework.ai.zhipuai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.util.ApiUtils;
+import org.springframework.ai.zhipuai.util.OptionsUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request construction cost of {@link ZhipuAiChatClient}: prompt to {@link ZhipuAiApi.ChatCompletionRequest},
+ * with and without tools, and the hand-written option merge against the reflective one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZhipuAiChatClientBenchmark {
+
+    @Param({"0", "20"})
+    public int tools;
+
+    private ZhipuAiChatClient chatClient;
+
+    private Prompt prompt;
+
+    private ZhipuAiApi.ChatCompletionRequest runtimeRequest;
+
+    private ZhipuAiApi.ChatCompletionRequest defaultRequest;
+
+    @Setup
+    public void setup() {
+        List<FunctionCallback> functionCallbacks = BenchmarkPayloads.functionCallbacks(this.tools);
+        ZhipuAiChatOptions defaultOptions = ZhipuAiChatOptions.builder()
+                .withModel(ZhipuAiApi.ChatModel.GLM_4.getValue())
+                .withMaxTokens(ApiUtils.DEFAULT_MAX_TOKENS)
+                .withTemperature(ApiUtils.DEFAULT_TEMPERATURE)
+                .withTopP(ApiUtils.DEFAULT_TOP_P)
+                .withFunctionCallbacks(functionCallbacks)
+                .build();
+        this.chatClient = new ZhipuAiChatClient(new ZhipuAiApi("benchmark"), defaultOptions);
+
+        ZhipuAiChatOptions.Builder runtimeOptions = ZhipuAiChatOptions.builder().withTemperature(0.5f);
+        functionCallbacks.forEach(functionCallback -> runtimeOptions.withFunction(functionCallback.getName()));
+        this.prompt = new Prompt("今天北京的天气怎么样？", runtimeOptions.build());
+
+        this.defaultRequest = OptionsUtils.toRequest(defaultOptions);
+        this.runtimeRequest = OptionsUtils.toRequest(ZhipuAiChatOptions.builder()
+                .withTemperature(0.5f)
+                .withUser("benchmark")
+                .build());
+    }
+
+    @Benchmark
+    public ZhipuAiApi.ChatCompletionRequest createRequest() {
+        return this.chatClient.createRequest(this.prompt, false);
+    }
+
+    @Benchmark
+    public ZhipuAiApi.ChatCompletionRequest createStreamRequest() {
+        return this.chatClient.createRequest(this.prompt, true);
+    }
+
+    @Benchmark
+    public ZhipuAiApi.ChatCompletionRequest mergeOptions() {
+        return OptionsUtils.merge(this.runtimeRequest, this.defaultRequest);
+    }
+
+    @Benchmark
+    public ZhipuAiApi.ChatCompletionRequest mergeOptionsReflective() {
+        return ModelOptionsUtils.merge(this.runtimeRequest, this.defaultRequest, ZhipuAiApi.ChatCompletionRequest.class);
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.springframework.ai.zhipuai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-token cost of {@link ZhipuAiChatClient#stream(Prompt)}: chunk to {@link ChatResponse} mapping
+ * and the function calling checks, against a canned stream instead of the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZhipuAiChatStreamBenchmark {
+
+    private static final int TOKENS = 256;
+
+    private ZhipuAiChatClient chatClient;
+
+    private Prompt prompt;
+
+    @Setup
+    public void setup() {
+        this.chatClient = new ZhipuAiChatClient(new CannedZhipuAiApi(BenchmarkPayloads.contentChunks(TOKENS)));
+        this.prompt = new Prompt("你好");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public ChatResponse streamPerToken() {
+        return this.chatClient.stream(this.prompt).blockLast();
+    }
+
+    private static class CannedZhipuAiApi extends ZhipuAiApi {
+
+        private final List<ChatCompletionChunk> chunks;
+
+        CannedZhipuAiApi(List<ChatCompletionChunk> chunks) {
+            super("benchmark");
+            this.chunks = chunks;
+        }
+
+        @Override
+        public Flux<ChatCompletionChunk> chatCompletionStream(ChatCompletionRequest chatRequest) {
+            return Flux.fromIterable(this.chunks);
+        }
+
+    }
+
+}
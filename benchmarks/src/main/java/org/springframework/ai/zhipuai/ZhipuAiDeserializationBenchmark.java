@@ -0,0 +1,59 @@
+package org.springframework.ai.zhipuai;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON decoding of the two payloads on the hot path: a streamed chat chunk, decoded once per token,
+ * and an embedding-2 response carrying a 1024 dimensions vector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZhipuAiDeserializationBenchmark {
+
+    private static final TypeReference<ZhipuAiApi.EmbeddingList<ZhipuAiApi.Embedding>> EMBEDDING_LIST_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * Same configuration as the one used by the RestClient message converters.
+     */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private byte[] embeddingListJson;
+
+    @Setup
+    public void setup() {
+        this.embeddingListJson = BenchmarkPayloads.embeddingListJson(1024).getBytes();
+    }
+
+    @Benchmark
+    public ZhipuAiApi.ChatCompletionChunk chatCompletionChunk() {
+        return ModelOptionsUtils.jsonToObject(BenchmarkPayloads.CHAT_COMPLETION_CHUNK_JSON, ZhipuAiApi.ChatCompletionChunk.class);
+    }
+
+    @Benchmark
+    public ZhipuAiApi.EmbeddingList<ZhipuAiApi.Embedding> embeddingList() throws IOException {
+        return this.objectMapper.readValue(this.embeddingListJson, EMBEDDING_LIST_TYPE);
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.springframework.ai.zhipuai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiStreamFunctionCallingHelper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of folding a streamed tool call back into a single chunk, which grows with the number of
+ * argument fragments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZhipuAiStreamFunctionCallingHelperBenchmark {
+
+    @Param({"100", "1000"})
+    public int chunks;
+
+    private final ZhipuAiStreamFunctionCallingHelper helper = new ZhipuAiStreamFunctionCallingHelper();
+
+    private List<ZhipuAiApi.ChatCompletionChunk> toolCallChunks;
+
+    @Setup
+    public void setup() {
+        this.toolCallChunks = BenchmarkPayloads.toolCallChunks(this.chunks);
+    }
+
+    @Benchmark
+    public ZhipuAiApi.ChatCompletionChunk mergeToolCall() {
+        ZhipuAiApi.ChatCompletionChunk merged = null;
+        for (ZhipuAiApi.ChatCompletionChunk chunk : this.toolCallChunks) {
+            merged = this.helper.merge(merged, chunk);
+        }
+        return merged;
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.springframework.ai.zhipuai.loadtest;
+
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.retry.RetryUtils;
+import org.springframework.ai.zhipuai.ZhipuAiChatClient;
+import org.springframework.ai.zhipuai.ZhipuAiEmbeddingClient;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiEmbeddingOptions;
+import org.springframework.ai.zhipuai.util.ApiUtils;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator driving the starter's clients against any base url, the mock server included.
+ * <p>
+ * Requests are issued at a fixed arrival rate whatever the response times are, and latencies are measured from
+ * the intended start time so that a slow server is not hidden by a slower request rate (coordinated omission).
+ * Arrivals finding {@code concurrency} requests in flight are counted as rejected.
+ * <pre>
+ * java -cp target/benchmarks.jar org.springframework.ai.zhipuai.loadtest.ZhipuAiLoadTest \
+ *     --base-url=http://localhost:8089 --mode=stream --rate=200 --duration=2m --threads=virtual
+ * </pre>
+ * Reports are written to {@code --output}, {@code target/loadtest/<mode>-<timestamp>} by default.
+ */
+public class ZhipuAiLoadTest {
+
+    private final ZhipuAiLoadTestOptions options;
+
+    private final ZhipuAiLoadTestReport report = new ZhipuAiLoadTestReport();
+
+    private final Semaphore permits;
+
+    private final Executor executor;
+
+    private final ZhipuAiChatClient chatClient;
+
+    private final ZhipuAiEmbeddingClient embeddingClient;
+
+    private final Prompt prompt;
+
+    ZhipuAiLoadTest(ZhipuAiLoadTestOptions options) {
+        this.options = options;
+        this.permits = new Semaphore(options.concurrency);
+
+        RestClient.Builder restClientBuilder = RestClient.builder();
+        if (options.threads == ZhipuAiLoadTestOptions.Threads.VIRTUAL) {
+            VirtualThreadTaskExecutor virtualThreadExecutor = new VirtualThreadTaskExecutor("zhipuai-loadtest-");
+            HttpClient httpClient = HttpClient.newBuilder().executor(virtualThreadExecutor).build();
+            restClientBuilder.requestFactory(new JdkClientHttpRequestFactory(httpClient, virtualThreadExecutor));
+            this.executor = virtualThreadExecutor;
+        }
+        else {
+            this.executor = Executors.newFixedThreadPool(options.concurrency,
+                    new CustomizableThreadFactory("zhipuai-loadtest-"));
+        }
+        ZhipuAiApi zhipuAiApi = new ZhipuAiApi(options.baseUrl, options.apiKey, restClientBuilder,
+                RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER);
+        RetryTemplate retryTemplate = options.retry ? RetryUtils.DEFAULT_RETRY_TEMPLATE
+                : RetryTemplate.builder().maxAttempts(1).build();
+
+        this.chatClient = new ZhipuAiChatClient(zhipuAiApi, ZhipuAiChatOptions.builder()
+                .withModel(options.model != null ? options.model : ZhipuAiApi.ChatModel.GLM_3_TURBO.getValue())
+                .withMaxTokens(ApiUtils.DEFAULT_MAX_TOKENS)
+                .withDoSample(Boolean.TRUE)
+                .withTemperature(ApiUtils.DEFAULT_TEMPERATURE)
+                .withTopP(ApiUtils.DEFAULT_TOP_P)
+                .build(), null, retryTemplate);
+        if (options.threads == ZhipuAiLoadTestOptions.Threads.VIRTUAL) {
+            this.chatClient.setToolScheduler(Schedulers.fromExecutor(this.executor));
+        }
+        this.embeddingClient = new ZhipuAiEmbeddingClient(zhipuAiApi, MetadataMode.EMBED, ZhipuAiEmbeddingOptions.builder()
+                .withModel(options.model != null ? options.model : ZhipuAiApi.EmbeddingModel.EMBED.getValue())
+                .build(), retryTemplate);
+        this.prompt = new Prompt(options.prompt);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ZhipuAiLoadTestOptions options = ZhipuAiLoadTestOptions.parse(args);
+        System.out.println("Load test: " + options);
+        new ZhipuAiLoadTest(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / this.options.rate);
+        long warmupNanos = this.options.warmup.toNanos();
+        long totalNanos = warmupNanos + this.options.duration.toNanos();
+
+        long start = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long offset = i * intervalNanos;
+            if (offset >= totalNanos) {
+                break;
+            }
+            long intendedStart = start + offset;
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean recording = offset >= warmupNanos;
+            if (!this.permits.tryAcquire()) {
+                if (recording) {
+                    this.report.recordRejected();
+                }
+                continue;
+            }
+            switch (this.options.mode) {
+                case CALL -> this.executor.execute(() -> call(intendedStart, recording));
+                case EMBEDDING -> this.executor.execute(() -> embed(intendedStart, recording));
+                case STREAM -> stream(intendedStart, recording);
+            }
+        }
+
+        // 等待在途请求完成
+        if (!this.permits.tryAcquire(this.options.concurrency, 5, TimeUnit.MINUTES)) {
+            System.err.println("Timed out waiting for " + (this.options.concurrency - this.permits.availablePermits())
+                    + " in-flight requests");
+        }
+        double elapsedSeconds = (System.nanoTime() - start - warmupNanos) / 1e9;
+        if (this.executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        this.report.write(this.options.output, this.options, elapsedSeconds);
+        System.out.println("Reports written to " + this.options.output.toAbsolutePath());
+    }
+
+    private void call(long intendedStart, boolean recording) {
+        try {
+            this.chatClient.call(this.prompt);
+            if (recording) {
+                this.report.recordLatency(System.nanoTime() - intendedStart);
+            }
+        }
+        catch (Throwable ex) {
+            if (recording) {
+                this.report.recordError(ex);
+            }
+        }
+        finally {
+            this.permits.release();
+        }
+    }
+
+    private void embed(long intendedStart, boolean recording) {
+        try {
+            this.embeddingClient.embed(this.options.prompt);
+            if (recording) {
+                this.report.recordLatency(System.nanoTime() - intendedStart);
+            }
+        }
+        catch (Throwable ex) {
+            if (recording) {
+                this.report.recordError(ex);
+            }
+        }
+        finally {
+            this.permits.release();
+        }
+    }
+
+    private void stream(long intendedStart, boolean recording) {
+        // signals of a single subscription are serialized, no synchronization needed
+        long[] previousToken = {0};
+        this.chatClient.stream(this.prompt)
+                .doFinally(signal -> this.permits.release())
+                .subscribe(response -> {
+                    long now = System.nanoTime();
+                    if (recording) {
+                        if (previousToken[0] == 0) {
+                            this.report.recordTimeToFirstToken(now - intendedStart);
+                        }
+                        else {
+                            this.report.recordInterTokenGap(now - previousToken[0]);
+                        }
+                        this.report.recordTokens(1);
+                    }
+                    previousToken[0] = now;
+                }, error -> {
+                    if (recording) {
+                        this.report.recordError(error);
+                    }
+                }, () -> {
+                    if (recording) {
+                        this.report.recordLatency(System.nanoTime() - intendedStart);
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,143 @@
+package org.springframework.ai.zhipuai.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line options of {@link ZhipuAiLoadTest}, given as {@code --name=value}.
+ */
+class ZhipuAiLoadTestOptions {
+
+    enum Mode {
+
+        CALL, STREAM, EMBEDDING
+
+    }
+
+    enum Threads {
+
+        PLATFORM, VIRTUAL
+
+    }
+
+    /**
+     * Base url of the API, the mock server by default.
+     */
+    String baseUrl = "http://localhost:8089";
+
+    String apiKey = System.getenv().getOrDefault("ZHIPUAI_API_KEY", "mock.key");
+
+    Mode mode = Mode.STREAM;
+
+    /**
+     * Open-loop arrival rate, in requests per second.
+     */
+    double rate = 10;
+
+    Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * Requests sent before the measurement starts, not recorded.
+     */
+    Duration warmup = Duration.ofSeconds(10);
+
+    /**
+     * Maximum in-flight requests, arrivals beyond it are counted as rejected instead of being delayed.
+     */
+    int concurrency = 256;
+
+    /**
+     * Threads running the blocking calls and the HTTP client.
+     */
+    Threads threads = Threads.PLATFORM;
+
+    String model;
+
+    String prompt = "用一百字介绍一下北京。";
+
+    /**
+     * Whether failed calls are retried with the default retry template.
+     */
+    boolean retry = false;
+
+    Path output;
+
+    static ZhipuAiLoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        ZhipuAiLoadTestOptions options = new ZhipuAiLoadTestOptions();
+        options.baseUrl = values.getOrDefault("base-url", options.baseUrl);
+        options.apiKey = values.getOrDefault("api-key", options.apiKey);
+        if (values.containsKey("mode")) {
+            options.mode = Mode.valueOf(values.get("mode").toUpperCase(Locale.ROOT));
+        }
+        if (values.containsKey("rate")) {
+            options.rate = Double.parseDouble(values.get("rate"));
+        }
+        if (values.containsKey("duration")) {
+            options.duration = parseDuration(values.get("duration"));
+        }
+        if (values.containsKey("warmup")) {
+            options.warmup = parseDuration(values.get("warmup"));
+        }
+        if (values.containsKey("concurrency")) {
+            options.concurrency = Integer.parseInt(values.get("concurrency"));
+        }
+        if (values.containsKey("threads")) {
+            options.threads = Threads.valueOf(values.get("threads").toUpperCase(Locale.ROOT));
+        }
+        options.model = values.get("model");
+        options.prompt = values.getOrDefault("prompt", options.prompt);
+        options.retry = Boolean.parseBoolean(values.getOrDefault("retry", "false"));
+        options.output = Path.of(values.getOrDefault("output", "target/loadtest/"
+                + options.mode.name().toLowerCase(Locale.ROOT) + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))));
+
+        if (options.rate <= 0) {
+            throw new IllegalArgumentException("rate must be greater than 0");
+        }
+        if (options.concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be greater than 0");
+        }
+        return options;
+    }
+
+    /**
+     * @param value a duration such as {@code 500ms}, {@code 30s}, {@code 5m} or an ISO-8601 {@code PT30S}.
+     */
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        if (!trimmed.startsWith("pt")) {
+            if (trimmed.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+            }
+            if (trimmed.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+            }
+        }
+        return Duration.parse(value.trim());
+    }
+
+    @Override
+    public String toString() {
+        return "baseUrl=" + this.baseUrl + ", mode=" + this.mode + ", rate=" + this.rate + "/s, duration="
+                + this.duration + ", warmup=" + this.warmup + ", concurrency=" + this.concurrency + ", threads="
+                + this.threads + ", model=" + (this.model != null ? this.model : "default") + ", retry=" + this.retry;
+    }
+
+}
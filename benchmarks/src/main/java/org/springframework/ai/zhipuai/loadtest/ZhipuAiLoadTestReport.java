@@ -0,0 +1,143 @@
+package org.springframework.ai.zhipuai.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measurements of a load test run. Latencies are recorded in microseconds and reported in milliseconds.
+ */
+class ZhipuAiLoadTestReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(30);
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    /**
+     * End to end latency, measured from the intended start so that queueing is not hidden.
+     */
+    private final Histogram latency = histogram();
+
+    private final Histogram timeToFirstToken = histogram();
+
+    private final Histogram interTokenGap = histogram();
+
+    private final LongAdder succeeded = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder tokens = new LongAdder();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private static Histogram histogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    }
+
+    void recordLatency(long nanos) {
+        this.latency.recordValue(toMicros(nanos));
+        this.succeeded.increment();
+    }
+
+    void recordTimeToFirstToken(long nanos) {
+        this.timeToFirstToken.recordValue(toMicros(nanos));
+    }
+
+    void recordInterTokenGap(long nanos) {
+        this.interTokenGap.recordValue(toMicros(nanos));
+    }
+
+    void recordTokens(long count) {
+        this.tokens.add(count);
+    }
+
+    void recordError(Throwable error) {
+        this.failed.increment();
+        this.errors.computeIfAbsent(error.getClass().getName(), name -> new LongAdder()).increment();
+    }
+
+    void recordRejected() {
+        this.rejected.increment();
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), HIGHEST_TRACKABLE_MICROS);
+    }
+
+    /**
+     * Write {@code summary.txt} and one {@code .hgrm} percentile distribution per histogram, the latter can be
+     * plotted with the HdrHistogram plotter.
+     */
+    void write(Path directory, ZhipuAiLoadTestOptions options, double elapsedSeconds) throws IOException {
+        Files.createDirectories(directory);
+        String summary = summary(options, elapsedSeconds);
+        Files.writeString(directory.resolve("summary.txt"), summary, StandardCharsets.UTF_8);
+        writeHistogram(directory.resolve("latency.hgrm"), this.latency);
+        if (options.mode == ZhipuAiLoadTestOptions.Mode.STREAM) {
+            writeHistogram(directory.resolve("time-to-first-token.hgrm"), this.timeToFirstToken);
+            writeHistogram(directory.resolve("inter-token-gap.hgrm"), this.interTokenGap);
+        }
+        System.out.print(summary);
+    }
+
+    private String summary(ZhipuAiLoadTestOptions options, double elapsedSeconds) {
+        long succeeded = this.succeeded.sum();
+        long failed = this.failed.sum();
+        long rejected = this.rejected.sum();
+        long total = succeeded + failed + rejected;
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(options).append('\n');
+        summary.append(String.format(Locale.ROOT, "elapsed: %.1fs, requests: %d, succeeded: %d, failed: %d, rejected: %d%n",
+                elapsedSeconds, total, succeeded, failed, rejected));
+        summary.append(String.format(Locale.ROOT, "throughput: %.2f req/s, error rate: %.4f%n",
+                succeeded / elapsedSeconds, (total > 0) ? (double) (failed + rejected) / total : 0d));
+        if (options.mode == ZhipuAiLoadTestOptions.Mode.STREAM) {
+            summary.append(String.format(Locale.ROOT, "tokens: %d, token throughput: %.2f tokens/s%n",
+                    this.tokens.sum(), this.tokens.sum() / elapsedSeconds));
+        }
+        appendPercentiles(summary, "latency", this.latency);
+        if (options.mode == ZhipuAiLoadTestOptions.Mode.STREAM) {
+            appendPercentiles(summary, "time to first token", this.timeToFirstToken);
+            appendPercentiles(summary, "inter-token gap", this.interTokenGap);
+        }
+        if (!this.errors.isEmpty()) {
+            summary.append("errors:\n");
+            new TreeMap<>(this.errors).forEach((type, count) -> summary.append("  ").append(type).append(": ")
+                    .append(count.sum()).append('\n'));
+        }
+        return summary.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder summary, String name, Histogram histogram) {
+        summary.append(String.format(Locale.ROOT,
+                "%s (ms): p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f mean=%.2f count=%d%n", name,
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI,
+                histogram.getMean() / MICROS_PER_MILLI,
+                histogram.getTotalCount()));
+    }
+
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+}
@@ -0,0 +1,595 @@
+package org.springframework.ai.zhipuai.mock;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import io.netty.handler.codec.http.multipart.HttpData;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Netty based stand-in for the ZhipuAI open platform, for load and latency testing without spending quota.
+ * <p>
+ * Serves {@code POST /v4/chat/completions} (blocking and SSE), {@code POST /v4/embeddings},
+ * {@code POST /v4/images/generations}, {@code GET /v4/files} and {@code POST /v4/files}. Point a
+ * {@code ZhipuAiApi} at it through {@link #getBaseUrl()}, e.g. {@code spring.ai.zhipuai.base-url}.
+ * <pre>{@code
+ * try (ZhipuAiMockServer server = new ZhipuAiMockServer(ZhipuAiMockServerOptions.builder()
+ *         .withLatency(Duration.ofMillis(300))
+ *         .withTokensPerSecond(40)
+ *         .withTooManyRequestsRate(0.01)
+ *         .build()).start()) {
+ *     ZhipuAiApi api = new ZhipuAiApi(server.getBaseUrl(), "mock.key");
+ *     ...
+ * }
+ * }</pre>
+ * The API key is not validated.
+ */
+public class ZhipuAiMockServer implements AutoCloseable {
+
+    private static final String SSE_DONE = "[DONE]";
+
+    private static final int TOOL_ARGUMENTS_FRAGMENT_LENGTH = 8;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentLinkedQueue<ObjectNode> files = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder tooManyRequests = new LongAdder();
+
+    private final LongAdder serverErrors = new LongAdder();
+
+    private final LongAdder connectionDrops = new LongAdder();
+
+    private final LongAdder cancelledStreams = new LongAdder();
+
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    private volatile ZhipuAiMockServerOptions options;
+
+    private volatile DisposableServer server;
+
+    public ZhipuAiMockServer() {
+        this(ZhipuAiMockServerOptions.builder().build());
+    }
+
+    public ZhipuAiMockServer(ZhipuAiMockServerOptions options) {
+        this.options = Objects.requireNonNull(options, "options must not be null");
+    }
+
+    /**
+     * Start on a random free port.
+     */
+    public ZhipuAiMockServer start() {
+        return start(0);
+    }
+
+    public synchronized ZhipuAiMockServer start(int port) {
+        if (this.server != null) {
+            throw new IllegalStateException("Mock server already started on port " + this.server.port());
+        }
+        this.server = HttpServer.create()
+                .host("localhost")
+                .port(port)
+                .route(routes -> routes
+                        .post("/v4/chat/completions", this::chatCompletions)
+                        .post("/v4/embeddings", this::embeddings)
+                        .post("/v4/images/generations", this::imageGenerations)
+                        .get("/v4/files", this::listFiles)
+                        .post("/v4/files", this::uploadFile))
+                .bindNow();
+        return this;
+    }
+
+    public int getPort() {
+        return requireStarted().port();
+    }
+
+    /**
+     * @return the base url to configure the clients with.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + getPort();
+    }
+
+    /**
+     * Change the behaviour of the running server, in-flight requests keep the previous options.
+     */
+    public void setOptions(ZhipuAiMockServerOptions options) {
+        this.options = Objects.requireNonNull(options, "options must not be null");
+    }
+
+    public ZhipuAiMockServerOptions getOptions() {
+        return this.options;
+    }
+
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    public long getTooManyRequests() {
+        return this.tooManyRequests.sum();
+    }
+
+    public long getServerErrors() {
+        return this.serverErrors.sum();
+    }
+
+    public long getConnectionDrops() {
+        return this.connectionDrops.sum();
+    }
+
+    /**
+     * @return the number of streams whose client closed the connection before their end.
+     */
+    public long getCancelledStreams() {
+        return this.cancelledStreams.sum();
+    }
+
+    /**
+     * @return the number of streams being sent.
+     */
+    public int getOpenStreams() {
+        return this.openStreams.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.server != null) {
+            this.server.disposeNow();
+            this.server = null;
+        }
+    }
+
+    private DisposableServer requireStarted() {
+        DisposableServer server = this.server;
+        if (server == null) {
+            throw new IllegalStateException("Mock server not started");
+        }
+        return server;
+    }
+
+    // --------------------------------------------------------------------------
+    // Chat Completions
+    // --------------------------------------------------------------------------
+
+    private Publisher<Void> chatCompletions(HttpServerRequest request, HttpServerResponse response) {
+        ZhipuAiMockServerOptions options = this.options;
+        return readJson(request).flatMap(body -> {
+            Fault fault = fault(options);
+            if (fault == Fault.TOO_MANY_REQUESTS || fault == Fault.SERVER_ERROR) {
+                return sendError(response, fault);
+            }
+            String model = body.path("model").asText("glm-4");
+            ZhipuAiMockServerOptions.ToolCallScript toolCall = scriptedToolCall(options, body);
+            if (body.path("stream").asBoolean(false)) {
+                return latency(options).then(streamChatCompletion(response, options, model, toolCall,
+                        fault == Fault.CONNECTION_DROP));
+            }
+            if (fault == Fault.CONNECTION_DROP) {
+                return latency(options).then(dropConnection(response));
+            }
+            return latency(options).then(sendJson(response, chatCompletion(options, model, toolCall)));
+        });
+    }
+
+    private ObjectNode chatCompletion(ZhipuAiMockServerOptions options, String model,
+                                      ZhipuAiMockServerOptions.ToolCallScript toolCall) {
+        ObjectNode completion = completionHeader(model);
+        ObjectNode choice = completion.putArray("choices").addObject();
+        choice.put("index", 0);
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        if (toolCall != null) {
+            ObjectNode call = message.putArray("tool_calls").addObject();
+            call.put("id", "call_" + UUID.randomUUID());
+            call.put("type", "function");
+            call.putObject("function").put("name", toolCall.function()).put("arguments", toolCall.arguments());
+            choice.put("finish_reason", "tool_calls");
+        }
+        else {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < options.getCompletionTokens(); i++) {
+                content.append(token(i));
+            }
+            message.put("content", content.toString());
+            choice.put("finish_reason", "stop");
+        }
+        usage(completion, 16, options.getCompletionTokens());
+        return completion;
+    }
+
+    private Mono<Void> streamChatCompletion(HttpServerResponse response, ZhipuAiMockServerOptions options,
+                                            String model, ZhipuAiMockServerOptions.ToolCallScript toolCall,
+                                            boolean drop) {
+        String id = UUID.randomUUID().toString();
+        List<String> events = (toolCall != null) ? toolCallChunks(id, model, toolCall)
+                : contentChunks(id, model, options.getCompletionTokens());
+        events.add(SSE_DONE);
+
+        Flux<String> stream = Flux.fromIterable(drop ? events.subList(0, events.size() / 2) : events);
+        if (options.getTokensPerSecond() > 0) {
+            Duration gap = Duration.ofNanos((long) (1_000_000_000L / options.getTokensPerSecond()));
+            stream = stream.take(1).concatWith(stream.skip(1).delayElements(gap));
+        }
+        Flux<ByteBuf> body = stream.map(event -> Unpooled.copiedBuffer("data: " + event + "\n\n", StandardCharsets.UTF_8))
+                .doOnSubscribe(subscription -> this.openStreams.incrementAndGet())
+                .doOnCancel(this.cancelledStreams::increment)
+                .doFinally(signal -> this.openStreams.decrementAndGet());
+
+        Mono<Void> sent = response.status(HttpResponseStatus.OK)
+                .header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream;charset=UTF-8")
+                .header(HttpHeaderNames.CACHE_CONTROL, "no-cache")
+                .send(body, buffer -> true)
+                .then();
+        return drop ? sent.then(dropConnection(response)) : sent;
+    }
+
+    private List<String> contentChunks(String id, String model, int tokens) {
+        List<String> chunks = new ArrayList<>(tokens + 1);
+        for (int i = 0; i < tokens; i++) {
+            ObjectNode chunk = chunkHeader(id, model);
+            ObjectNode choice = chunk.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.putObject("delta").put("role", "assistant").put("content", token(i));
+            if (i == tokens - 1) {
+                choice.put("finish_reason", "stop");
+                usage(chunk, 16, tokens);
+            }
+            chunks.add(writeJson(chunk));
+        }
+        return chunks;
+    }
+
+    private List<String> toolCallChunks(String id, String model, ZhipuAiMockServerOptions.ToolCallScript toolCall) {
+        String arguments = toolCall.arguments();
+        List<String> chunks = new ArrayList<>();
+        int offset = 0;
+        do {
+            int end = Math.min(offset + TOOL_ARGUMENTS_FRAGMENT_LENGTH, arguments.length());
+            ObjectNode chunk = chunkHeader(id, model);
+            ObjectNode choice = chunk.putArray("choices").addObject();
+            choice.put("index", 0);
+            ObjectNode delta = choice.putObject("delta").put("role", "assistant");
+            ObjectNode call = delta.putArray("tool_calls").addObject();
+            ObjectNode function = call.putObject("function");
+            if (offset == 0) {
+                call.put("id", "call_" + id);
+                call.put("type", "function");
+                function.put("name", toolCall.function());
+            }
+            function.put("arguments", arguments.substring(offset, end));
+            if (end == arguments.length()) {
+                choice.put("finish_reason", "tool_calls");
+                usage(chunk, 16, (arguments.length() + TOOL_ARGUMENTS_FRAGMENT_LENGTH - 1) / TOOL_ARGUMENTS_FRAGMENT_LENGTH);
+            }
+            chunks.add(writeJson(chunk));
+            offset = end;
+        }
+        while (offset < arguments.length());
+        return chunks;
+    }
+
+    /**
+     * @return the scripted tool call to answer with, when the request declares its function and is not
+     * already carrying a tool result.
+     */
+    private ZhipuAiMockServerOptions.ToolCallScript scriptedToolCall(ZhipuAiMockServerOptions options, JsonNode body) {
+        JsonNode messages = body.path("messages");
+        if (options.getToolCalls().isEmpty() || !messages.isArray() || messages.isEmpty()) {
+            return null;
+        }
+        if (!"user".equals(messages.get(messages.size() - 1).path("role").asText())) {
+            return null;
+        }
+        for (ZhipuAiMockServerOptions.ToolCallScript script : options.getToolCalls()) {
+            for (JsonNode tool : body.path("tools")) {
+                if (script.function().equals(tool.path("function").path("name").asText())) {
+                    return script;
+                }
+            }
+        }
+        return null;
+    }
+
+    private ObjectNode completionHeader(String model) {
+        ObjectNode completion = this.objectMapper.createObjectNode();
+        completion.put("id", UUID.randomUUID().toString());
+        completion.put("created", System.currentTimeMillis() / 1000);
+        completion.put("model", model);
+        completion.put("request_id", UUID.randomUUID().toString());
+        return completion;
+    }
+
+    private ObjectNode chunkHeader(String id, String model) {
+        ObjectNode chunk = this.objectMapper.createObjectNode();
+        chunk.put("id", id);
+        chunk.put("created", System.currentTimeMillis() / 1000);
+        chunk.put("model", model);
+        return chunk;
+    }
+
+    private static void usage(ObjectNode node, int promptTokens, int completionTokens) {
+        node.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private static String token(int index) {
+        return "token" + index + " ";
+    }
+
+    // --------------------------------------------------------------------------
+    // Embeddings
+    // --------------------------------------------------------------------------
+
+    private Publisher<Void> embeddings(HttpServerRequest request, HttpServerResponse response) {
+        ZhipuAiMockServerOptions options = this.options;
+        return readJson(request).flatMap(body -> {
+            Fault fault = fault(options);
+            if (fault == Fault.TOO_MANY_REQUESTS || fault == Fault.SERVER_ERROR) {
+                return sendError(response, fault);
+            }
+            if (fault == Fault.CONNECTION_DROP) {
+                return latency(options).then(dropConnection(response));
+            }
+            List<String> inputs = new ArrayList<>();
+            JsonNode input = body.path("input");
+            if (input.isArray()) {
+                input.forEach(text -> inputs.add(text.asText()));
+            }
+            else {
+                inputs.add(input.asText());
+            }
+
+            ObjectNode embeddings = this.objectMapper.createObjectNode();
+            embeddings.put("object", "list");
+            embeddings.put("model", body.path("model").asText("embedding-2"));
+            ArrayNode data = embeddings.putArray("data");
+            int promptTokens = 0;
+            for (int i = 0; i < inputs.size(); i++) {
+                ObjectNode embedding = data.addObject();
+                embedding.put("index", i);
+                embedding.put("object", "embedding");
+                ArrayNode vector = embedding.putArray("embedding");
+                for (double value : vector(inputs.get(i), options.getEmbeddingDimensions())) {
+                    vector.add(value);
+                }
+                promptTokens += inputs.get(i).length();
+            }
+            usage(embeddings, promptTokens, 0);
+            return latency(options).then(sendJson(response, embeddings));
+        });
+    }
+
+    /**
+     * @return a unit vector derived from the text, so that equal texts get equal embeddings.
+     */
+    private static double[] vector(String text, int dimensions) {
+        Random random = new Random(text.hashCode());
+        double[] vector = new double[dimensions];
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+
+    // --------------------------------------------------------------------------
+    // Images
+    // --------------------------------------------------------------------------
+
+    private Publisher<Void> imageGenerations(HttpServerRequest request, HttpServerResponse response) {
+        ZhipuAiMockServerOptions options = this.options;
+        return readJson(request).flatMap(body -> {
+            Fault fault = fault(options);
+            if (fault == Fault.TOO_MANY_REQUESTS || fault == Fault.SERVER_ERROR) {
+                return sendError(response, fault);
+            }
+            if (fault == Fault.CONNECTION_DROP) {
+                return latency(options).then(dropConnection(response));
+            }
+            ObjectNode image = this.objectMapper.createObjectNode();
+            image.put("created", System.currentTimeMillis() / 1000);
+            image.putArray("data").addObject().put("url", getBaseUrl() + "/mock/images/" + UUID.randomUUID() + ".png");
+            return latency(options).then(sendJson(response, image));
+        });
+    }
+
+    // --------------------------------------------------------------------------
+    // Files
+    // --------------------------------------------------------------------------
+
+    private Publisher<Void> listFiles(HttpServerRequest request, HttpServerResponse response) {
+        ZhipuAiMockServerOptions options = this.options;
+        this.requests.increment();
+        Fault fault = fault(options);
+        if (fault == Fault.TOO_MANY_REQUESTS || fault == Fault.SERVER_ERROR) {
+            return sendError(response, fault);
+        }
+        if (fault == Fault.CONNECTION_DROP) {
+            return latency(options).then(dropConnection(response));
+        }
+        ObjectNode list = this.objectMapper.createObjectNode();
+        list.put("object", "list");
+        ArrayNode data = list.putArray("data");
+        this.files.forEach(data::add);
+        return latency(options).then(sendJson(response, list));
+    }
+
+    private Publisher<Void> uploadFile(HttpServerRequest request, HttpServerResponse response) {
+        ZhipuAiMockServerOptions options = this.options;
+        this.requests.increment();
+        ObjectNode file = this.objectMapper.createObjectNode();
+        file.put("id", "file-" + UUID.randomUUID());
+        return request.receiveForm()
+                .doOnNext(data -> readFormData(data, file))
+                .then(Mono.defer(() -> {
+                    Fault fault = fault(options);
+                    if (fault == Fault.TOO_MANY_REQUESTS || fault == Fault.SERVER_ERROR) {
+                        return sendError(response, fault);
+                    }
+                    if (fault == Fault.CONNECTION_DROP) {
+                        return latency(options).then(dropConnection(response));
+                    }
+                    this.files.add(file);
+                    return latency(options).then(sendJson(response, file));
+                }));
+    }
+
+    private static void readFormData(HttpData data, ObjectNode file) {
+        if (data instanceof FileUpload upload) {
+            file.put("filename", upload.getFilename());
+        }
+        else if (data instanceof Attribute attribute && "purpose".equals(attribute.getName())) {
+            try {
+                file.put("purpose", attribute.getValue());
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------------
+    // Faults, latency and I/O
+    // --------------------------------------------------------------------------
+
+    private enum Fault {
+
+        TOO_MANY_REQUESTS, SERVER_ERROR, CONNECTION_DROP
+
+    }
+
+    private Fault fault(ZhipuAiMockServerOptions options) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        double threshold = options.getTooManyRequestsRate();
+        if (random < threshold) {
+            this.tooManyRequests.increment();
+            return Fault.TOO_MANY_REQUESTS;
+        }
+        threshold += options.getServerErrorRate();
+        if (random < threshold) {
+            this.serverErrors.increment();
+            return Fault.SERVER_ERROR;
+        }
+        threshold += options.getConnectionDropRate();
+        if (random < threshold) {
+            this.connectionDrops.increment();
+            return Fault.CONNECTION_DROP;
+        }
+        return null;
+    }
+
+    private static Mono<Long> latency(ZhipuAiMockServerOptions options) {
+        long delay = options.getLatency().toNanos();
+        long jitter = options.getLatencyJitter().toNanos();
+        if (jitter > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        return (delay > 0) ? Mono.delay(Duration.ofNanos(delay)) : Mono.just(0L);
+    }
+
+    private Mono<JsonNode> readJson(HttpServerRequest request) {
+        this.requests.increment();
+        return request.receive()
+                .aggregate()
+                .asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("{}")
+                .map(json -> {
+                    try {
+                        return this.objectMapper.readTree(json);
+                    }
+                    catch (JsonProcessingException ex) {
+                        throw new IllegalArgumentException("Invalid JSON request body", ex);
+                    }
+                });
+    }
+
+    private Mono<Void> sendJson(HttpServerResponse response, JsonNode body) {
+        return response.status(HttpResponseStatus.OK)
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json;charset=UTF-8")
+                .sendString(Mono.just(writeJson(body)), StandardCharsets.UTF_8)
+                .then();
+    }
+
+    private Mono<Void> sendError(HttpServerResponse response, Fault fault) {
+        ObjectNode body = this.objectMapper.createObjectNode();
+        ObjectNode error = body.putObject("error");
+        if (fault == Fault.TOO_MANY_REQUESTS) {
+            response.status(HttpResponseStatus.TOO_MANY_REQUESTS);
+            error.put("code", "1302");
+            error.put("message", "您当前使用该API的并发数过高，请降低并发，或联系客服增加限额。");
+        }
+        else {
+            response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            error.put("code", "500");
+            error.put("message", "Internal Error");
+        }
+        return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json;charset=UTF-8")
+                .sendString(Mono.just(writeJson(body)), StandardCharsets.UTF_8)
+                .then();
+    }
+
+    private static Mono<Void> dropConnection(HttpServerResponse response) {
+        return Mono.fromRunnable(() -> response.withConnection(Connection::dispose));
+    }
+
+    private String writeJson(JsonNode node) {
+        try {
+            return this.objectMapper.writeValueAsString(node);
+        }
+        catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Run standalone: {@code java -Dzhipuai.mock.latency=200ms -cp ... ZhipuAiMockServer 8089}.
+     * @param args optional port, defaults to 8089.
+     */
+    public static void main(String[] args) {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 8089;
+        ZhipuAiMockServer mockServer = new ZhipuAiMockServer(ZhipuAiMockServerOptions.fromSystemProperties()).start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(mockServer::close, "zhipuai-mock-shutdown"));
+        System.out.println("ZhipuAI mock server listening on " + mockServer.getBaseUrl());
+        mockServer.requireStarted().onDispose().block();
+    }
+
+}
@@ -0,0 +1,274 @@
+package org.springframework.ai.zhipuai.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Behaviour of the {@link ZhipuAiMockServer}, immutable so that it can be swapped while the server is running.
+ */
+public class ZhipuAiMockServerOptions {
+
+    /**
+     * Delay before the response headers are sent, or before the first token of a stream.
+     */
+    private final Duration latency;
+
+    /**
+     * Random extra delay between zero and this value, added to the latency.
+     */
+    private final Duration latencyJitter;
+
+    /**
+     * Rate of the streamed tokens, zero or less streams without pauses.
+     */
+    private final double tokensPerSecond;
+
+    /**
+     * Number of tokens of each completion.
+     */
+    private final int completionTokens;
+
+    /**
+     * Dimensions of the generated embedding vectors, 1024 for embedding-2.
+     */
+    private final int embeddingDimensions;
+
+    /**
+     * Probability of answering with 429 Too Many Requests.
+     */
+    private final double tooManyRequestsRate;
+
+    /**
+     * Probability of answering with 500 Internal Server Error.
+     */
+    private final double serverErrorRate;
+
+    /**
+     * Probability of closing the connection without a complete response, mid-stream for streaming requests.
+     */
+    private final double connectionDropRate;
+
+    /**
+     * Tool calls answered when the request declares a tool with the same function name.
+     */
+    private final List<ToolCallScript> toolCalls;
+
+    private ZhipuAiMockServerOptions(Builder builder) {
+        this.latency = builder.latency;
+        this.latencyJitter = builder.latencyJitter;
+        this.tokensPerSecond = builder.tokensPerSecond;
+        this.completionTokens = builder.completionTokens;
+        this.embeddingDimensions = builder.embeddingDimensions;
+        this.tooManyRequestsRate = builder.tooManyRequestsRate;
+        this.serverErrorRate = builder.serverErrorRate;
+        this.connectionDropRate = builder.connectionDropRate;
+        this.toolCalls = Collections.unmodifiableList(new ArrayList<>(builder.toolCalls));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Options read from the {@code zhipuai.mock.*} system properties, e.g.
+     * {@code -Dzhipuai.mock.latency=200ms -Dzhipuai.mock.tokens-per-second=50}.
+     */
+    public static ZhipuAiMockServerOptions fromSystemProperties() {
+        Builder builder = builder();
+        String latency = System.getProperty("zhipuai.mock.latency");
+        if (latency != null) {
+            builder.withLatency(parseDuration(latency));
+        }
+        String latencyJitter = System.getProperty("zhipuai.mock.latency-jitter");
+        if (latencyJitter != null) {
+            builder.withLatencyJitter(parseDuration(latencyJitter));
+        }
+        String tokensPerSecond = System.getProperty("zhipuai.mock.tokens-per-second");
+        if (tokensPerSecond != null) {
+            builder.withTokensPerSecond(Double.parseDouble(tokensPerSecond));
+        }
+        String completionTokens = System.getProperty("zhipuai.mock.completion-tokens");
+        if (completionTokens != null) {
+            builder.withCompletionTokens(Integer.parseInt(completionTokens));
+        }
+        String embeddingDimensions = System.getProperty("zhipuai.mock.embedding-dimensions");
+        if (embeddingDimensions != null) {
+            builder.withEmbeddingDimensions(Integer.parseInt(embeddingDimensions));
+        }
+        String tooManyRequestsRate = System.getProperty("zhipuai.mock.too-many-requests-rate");
+        if (tooManyRequestsRate != null) {
+            builder.withTooManyRequestsRate(Double.parseDouble(tooManyRequestsRate));
+        }
+        String serverErrorRate = System.getProperty("zhipuai.mock.server-error-rate");
+        if (serverErrorRate != null) {
+            builder.withServerErrorRate(Double.parseDouble(serverErrorRate));
+        }
+        String connectionDropRate = System.getProperty("zhipuai.mock.connection-drop-rate");
+        if (connectionDropRate != null) {
+            builder.withConnectionDropRate(Double.parseDouble(connectionDropRate));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param value a duration such as {@code 250ms}, {@code 2s} or an ISO-8601 {@code PT2S}.
+     */
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim().toLowerCase();
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        if (trimmed.endsWith("s") && !trimmed.startsWith("pt")) {
+            return Duration.ofSeconds(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        return Duration.parse(value.trim());
+    }
+
+    public Duration getLatency() {
+        return this.latency;
+    }
+
+    public Duration getLatencyJitter() {
+        return this.latencyJitter;
+    }
+
+    public double getTokensPerSecond() {
+        return this.tokensPerSecond;
+    }
+
+    public int getCompletionTokens() {
+        return this.completionTokens;
+    }
+
+    public int getEmbeddingDimensions() {
+        return this.embeddingDimensions;
+    }
+
+    public double getTooManyRequestsRate() {
+        return this.tooManyRequestsRate;
+    }
+
+    public double getServerErrorRate() {
+        return this.serverErrorRate;
+    }
+
+    public double getConnectionDropRate() {
+        return this.connectionDropRate;
+    }
+
+    public List<ToolCallScript> getToolCalls() {
+        return this.toolCalls;
+    }
+
+    /**
+     * A scripted tool call: when the last message of a request is a user message and the request declares
+     * a function named {@code function}, the server answers with a call to it using {@code arguments}.
+     * Once the tool result is sent back, a regular completion is returned.
+     *
+     * @param function the function name.
+     * @param arguments the JSON arguments.
+     */
+    public record ToolCallScript(String function, String arguments) {
+
+        public ToolCallScript {
+            Objects.requireNonNull(function, "function must not be null");
+            Objects.requireNonNull(arguments, "arguments must not be null");
+        }
+    }
+
+    public static class Builder {
+
+        private Duration latency = Duration.ZERO;
+
+        private Duration latencyJitter = Duration.ZERO;
+
+        private double tokensPerSecond = 0;
+
+        private int completionTokens = 32;
+
+        private int embeddingDimensions = 1024;
+
+        private double tooManyRequestsRate = 0;
+
+        private double serverErrorRate = 0;
+
+        private double connectionDropRate = 0;
+
+        private final List<ToolCallScript> toolCalls = new ArrayList<>();
+
+        public Builder withLatency(Duration latency) {
+            this.latency = requireNonNegative(latency, "latency");
+            return this;
+        }
+
+        public Builder withLatencyJitter(Duration latencyJitter) {
+            this.latencyJitter = requireNonNegative(latencyJitter, "latencyJitter");
+            return this;
+        }
+
+        public Builder withTokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        public Builder withCompletionTokens(int completionTokens) {
+            if (completionTokens < 1) {
+                throw new IllegalArgumentException("completionTokens must be greater than 0");
+            }
+            this.completionTokens = completionTokens;
+            return this;
+        }
+
+        public Builder withEmbeddingDimensions(int embeddingDimensions) {
+            if (embeddingDimensions < 1) {
+                throw new IllegalArgumentException("embeddingDimensions must be greater than 0");
+            }
+            this.embeddingDimensions = embeddingDimensions;
+            return this;
+        }
+
+        public Builder withTooManyRequestsRate(double tooManyRequestsRate) {
+            this.tooManyRequestsRate = requireRate(tooManyRequestsRate, "tooManyRequestsRate");
+            return this;
+        }
+
+        public Builder withServerErrorRate(double serverErrorRate) {
+            this.serverErrorRate = requireRate(serverErrorRate, "serverErrorRate");
+            return this;
+        }
+
+        public Builder withConnectionDropRate(double connectionDropRate) {
+            this.connectionDropRate = requireRate(connectionDropRate, "connectionDropRate");
+            return this;
+        }
+
+        public Builder withToolCall(String function, String arguments) {
+            this.toolCalls.add(new ToolCallScript(function, arguments));
+            return this;
+        }
+
+        public ZhipuAiMockServerOptions build() {
+            return new ZhipuAiMockServerOptions(this);
+        }
+
+        private static Duration requireNonNegative(Duration duration, String name) {
+            Objects.requireNonNull(duration, name + " must not be null");
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return duration;
+        }
+
+        private static double requireRate(double rate, String name) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException(name + " must be between 0 and 1");
+            }
+            return rate;
+        }
+
+    }
+
+}
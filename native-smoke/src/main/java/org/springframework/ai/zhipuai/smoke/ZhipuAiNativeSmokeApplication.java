@@ -0,0 +1,124 @@
+package org.springframework.ai.zhipuai.smoke;
+
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.image.ImagePrompt;
+import org.springframework.ai.image.ImageResponse;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.model.function.FunctionCallbackWrapper;
+import org.springframework.ai.zhipuai.ZhipuAiChatClient;
+import org.springframework.ai.zhipuai.ZhipuAiEmbeddingClient;
+import org.springframework.ai.zhipuai.ZhipuAiFileClient;
+import org.springframework.ai.zhipuai.ZhipuAiImageClient;
+import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiFileApi;
+import org.springframework.ai.zhipuai.mock.ZhipuAiMockServer;
+import org.springframework.ai.zhipuai.mock.ZhipuAiMockServerOptions;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.util.Assert;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Exercises every client of the starter against the in-process mock server, on the JVM or as a native image:
+ * any missing reflection hint fails the run with a non zero exit code.
+ * <pre>
+ * mvn -Pnative native:compile
+ * target/spring-ai-zhipuai-native-smoke
+ * </pre>
+ * See {@code startup-benchmark.sh} for the JVM and native startup time and RSS comparison.
+ */
+@SpringBootApplication
+@RegisterReflectionForBinding({ ZhipuAiNativeSmokeApplication.WeatherRequest.class, ZhipuAiNativeSmokeApplication.WeatherResponse.class })
+public class ZhipuAiNativeSmokeApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ZhipuAiNativeSmokeApplication.class, args).close();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ZhipuAiMockServer zhipuAiMockServer(@Value("${zhipuai.mock.port}") int port) {
+        return new ZhipuAiMockServer(ZhipuAiMockServerOptions.builder()
+                .withCompletionTokens(8)
+                .withEmbeddingDimensions(1024)
+                .withToolCall("getCurrentWeather", "{\"location\":\"北京\"}")
+                .build()).start(port);
+    }
+
+    @Bean
+    public FunctionCallback weatherFunction() {
+        return FunctionCallbackWrapper.builder(new WeatherService())
+                .withName("getCurrentWeather")
+                .withDescription("Get the weather in location")
+                .withInputType(WeatherRequest.class)
+                .build();
+    }
+
+    /**
+     * With {@code --smoke.exercise=false} only the context startup is measured, the clients are not called.
+     */
+    @Bean
+    public ApplicationRunner smokeTest(ZhipuAiMockServer mockServer, ObjectProvider<ZhipuAiChatClient> chatClientProvider,
+                                       ObjectProvider<ZhipuAiEmbeddingClient> embeddingClientProvider,
+                                       ObjectProvider<ZhipuAiImageClient> imageClientProvider,
+                                       ObjectProvider<ZhipuAiFileClient> fileClientProvider,
+                                       @Value("${smoke.exercise:true}") boolean exercise) {
+        return args -> {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            if (!exercise) {
+                System.out.println("ZhipuAI startup, ready in " + uptime + " ms");
+                return;
+            }
+            ZhipuAiChatClient chatClient = chatClientProvider.getObject();
+            ZhipuAiEmbeddingClient embeddingClient = embeddingClientProvider.getObject();
+            ZhipuAiImageClient imageClient = imageClientProvider.getObject();
+            ZhipuAiFileClient fileClient = fileClientProvider.getObject();
+
+            ChatResponse response = chatClient.call(new Prompt("你好"));
+            Assert.hasText(response.getResult().getOutput().getContent(), "Empty chat completion");
+
+            List<ChatResponse> chunks = chatClient.stream(new Prompt("你好")).collectList().block();
+            Assert.notEmpty(chunks, "Empty chat completion stream");
+
+            ChatResponse toolResponse = chatClient.call(new Prompt("今天北京的天气怎么样？",
+                    ZhipuAiChatOptions.builder().withFunction("getCurrentWeather").build()));
+            Assert.hasText(toolResponse.getResult().getOutput().getContent(), "Empty chat completion after tool call");
+
+            List<Double> embedding = embeddingClient.embed("你好");
+            Assert.isTrue(embedding.size() == 1024, "Unexpected embedding dimensions " + embedding.size());
+
+            ImageResponse image = imageClient.call(new ImagePrompt("一只猫"));
+            Assert.hasText(image.getResult().getOutput().getUrl(), "Empty image url");
+
+            ZhipuAiFileApi.ZhipuAiFileResponse files = fileClient.listFile().getBody();
+            Assert.notNull(files, "Empty file list");
+
+            System.out.println("ZhipuAI smoke test passed against " + mockServer.getBaseUrl()
+                    + ", ready in " + uptime + " ms");
+        };
+    }
+
+    public record WeatherRequest(String location) {
+    }
+
+    public record WeatherResponse(double temperature, String unit) {
+    }
+
+    static class WeatherService implements Function<WeatherRequest, WeatherResponse> {
+
+        @Override
+        public WeatherResponse apply(WeatherRequest request) {
+            return new WeatherResponse(30, "C");
+        }
+
+    }
+
+}
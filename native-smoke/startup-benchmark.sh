@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+#
+# 对比 JVM 与 GraalVM 原生镜像的启动时间和常驻内存（RSS）。
+#
+#   mvn -DskipTests package                 # JVM jar
+#   mvn -DskipTests -Pnative native:compile  # 原生镜像
+#   ./startup-benchmark.sh [runs] [extra application arguments...]
+#
+# 每次运行都会启动进程内的 mock server、依次调用全部客户端然后退出，
+# 因此耗时包含了首个请求的开销；传入 --smoke.exercise=false 则只测量上下文启动。
+# 需要 GNU time（/usr/bin/time）。
+set -euo pipefail
+
+cd "$(dirname "$0")"
+RUNS="${1:-10}"
+shift || true
+
+JAR="target/spring-ai-zhipuai-native-smoke-1.0.0-SNAPSHOT.jar"
+NATIVE="target/spring-ai-zhipuai-native-smoke"
+
+measure() {
+  local name="$1"
+  shift
+  local total_ms=0 total_rss=0 ready
+  for ((i = 1; i <= RUNS; i++)); do
+    local start end output rss
+    start=$(date +%s%N)
+    output=$( { /usr/bin/time -f "%M" "$@" > /tmp/zhipuai-smoke.log; } 2>&1 | tail -n 1)
+    end=$(date +%s%N)
+    rss="$output"
+    ready=$(grep -o 'ready in [0-9]* ms' /tmp/zhipuai-smoke.log || echo "ready in ? ms")
+    total_ms=$((total_ms + (end - start) / 1000000))
+    total_rss=$((total_rss + rss))
+  done
+  printf "%-8s wall: %6d ms  max rss: %7d KB  (%s, last run)\n" "$name" $((total_ms / RUNS)) $((total_rss / RUNS)) "$ready"
+}
+
+if [[ -f "$JAR" ]]; then
+  measure "jvm" java -jar "$JAR" "$@"
+else
+  echo "skipping jvm: $JAR not found"
+fi
+if [[ -x "$NATIVE" ]]; then
+  measure "native" "$NATIVE" "$@"
+else
+  echo "skipping native: $NATIVE not found"
+fi
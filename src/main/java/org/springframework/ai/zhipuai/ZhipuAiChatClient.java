@@ -6,24 +6,50 @@ import org.springframework.ai.chat.ChatClient;
 import org.springframework.ai.chat.ChatResponse;
 import org.springframework.ai.chat.Generation;
 import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
 import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.model.ModelOptionsUtils;
 import org.springframework.ai.model.function.AbstractFunctionCallSupport;
+import org.springframework.ai.model.function.FunctionCallback;
 import org.springframework.ai.model.function.FunctionCallbackContext;
+import org.springframework.ai.model.function.FunctionCallingOptions;
 import org.springframework.ai.retry.RetryUtils;
 import org.springframework.ai.zhipuai.api.ZhipuAiApi;
 import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiDeadlineExceededException;
+import org.springframework.ai.zhipuai.memory.ZhipuAiChatMemory;
+import org.springframework.ai.zhipuai.support.ZhipuAiDeadline;
+import org.springframework.ai.zhipuai.support.ZhipuAiFunctionToolRegistry;
+import org.springframework.ai.zhipuai.support.ZhipuAiHedgingExecutor;
+import org.springframework.ai.zhipuai.support.ZhipuAiJsonStreamParser;
+import org.springframework.ai.zhipuai.support.ZhipuAiSharedStream;
+import org.springframework.ai.zhipuai.support.ZhipuAiSingleFlight;
+import org.springframework.ai.zhipuai.support.ZhipuAiSseRelay;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamBuffer;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamRegistry;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamSessions;
 import org.springframework.ai.zhipuai.util.ApiUtils;
+import org.springframework.ai.zhipuai.util.OptionsUtils;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class ZhipuAiChatClient
         extends AbstractFunctionCallSupport<ZhipuAiApi.ChatCompletionMessage, ZhipuAiApi.ChatCompletionRequest, ResponseEntity<ZhipuAiApi.ChatCompletion>>
@@ -34,11 +60,58 @@ public class ZhipuAiChatClient
      * Default options to be used for all chat requests.
      */
     private ZhipuAiChatOptions defaultOptions;
+    /**
+     * Request fields of the default options, merged into every request.
+     */
+    private final ZhipuAiApi.ChatCompletionRequest defaultRequest;
     /**
      * Low-level 智普 API library.
      */
     private final ZhipuAiApi zhipuAiApi;
     private final RetryTemplate retryTemplate;
+    /**
+     * Precompiled tool definitions of the registered function callbacks.
+     */
+    private final ZhipuAiFunctionToolRegistry functionToolRegistry = new ZhipuAiFunctionToolRegistry();
+    private final FunctionCallbackContext callbackContext;
+    /**
+     * Function callbacks registered on the first request enabling a function missing from the registry,
+     * so that the callback beans are not created at startup.
+     */
+    private volatile Supplier<? extends Collection<FunctionCallback>> functionCallbackProvider;
+    /**
+     * Retry applied to the HTTP round trips of {@link #asyncCall(Prompt)}.
+     */
+    private Retry reactiveRetry = ApiUtils.DEFAULT_REACTIVE_RETRY;
+    /**
+     * Scheduler the tool callbacks of the reactive calls are executed on.
+     */
+    private Scheduler toolScheduler = Schedulers.boundedElastic();
+    /**
+     * Optional hedging of the blocking chat completion calls.
+     */
+    private ZhipuAiHedgingExecutor hedgingExecutor;
+    private ZhipuAiApi hedgingApi;
+    /**
+     * Optional coalescing of identical concurrent requests.
+     */
+    private ZhipuAiSingleFlight singleFlight;
+    /**
+     * Streams in flight, for diagnostics.
+     */
+    private final ZhipuAiStreamRegistry streamRegistry = new ZhipuAiStreamRegistry();
+    /**
+     * Optional conversation history of the prompts carrying a session id.
+     */
+    private ZhipuAiChatMemory chatMemory;
+    /**
+     * Optional sessions of the resumable streams.
+     */
+    private ZhipuAiStreamSessions streamSessions;
+    /**
+     * Optional bounded buffer of the streams, for slow subscribers.
+     */
+    private ZhipuAiStreamBuffer streamBuffer;
 
     public ZhipuAiChatClient(ZhipuAiApi zhipuAiApi) {
         this(zhipuAiApi, ZhipuAiChatOptions.builder()
@@ -62,35 +135,165 @@ public class ZhipuAiChatClient
         Assert.notNull(retryTemplate, "RetryTemplate must not be null");
         this.zhipuAiApi = zhipuAiApi;
         this.defaultOptions = options;
+        this.defaultRequest = OptionsUtils.toRequest(options);
         this.retryTemplate = retryTemplate;
+        this.callbackContext = functionCallbackContext;
+        if (!CollectionUtils.isEmpty(options.getFunctionCallbacks())) {
+            this.functionToolRegistry.register(options.getFunctionCallbacks(), !IS_RUNTIME_CALL);
+        }
+    }
+
+    public void setReactiveRetry(Retry reactiveRetry) {
+        Assert.notNull(reactiveRetry, "Reactive retry must not be null");
+        this.reactiveRetry = reactiveRetry;
+    }
+
+    public void setToolScheduler(Scheduler toolScheduler) {
+        Assert.notNull(toolScheduler, "Tool scheduler must not be null");
+        this.toolScheduler = toolScheduler;
+    }
+
+    /**
+     * Enable hedged requests for the blocking chat completion calls. The hedged calls run on the reactive HTTP stack of the
+     * APIs, so that the losing attempt is aborted rather than left running.
+     * @param hedgingExecutor the hedging executor.
+     * @param hedgingApi the API the hedged requests are sent to, can be the same as the primary one.
+     */
+    public void setHedging(ZhipuAiHedgingExecutor hedgingExecutor, ZhipuAiApi hedgingApi) {
+        Assert.notNull(hedgingExecutor, "Hedging executor must not be null");
+        Assert.notNull(hedgingApi, "Hedging API must not be null");
+        this.hedgingExecutor = hedgingExecutor;
+        this.hedgingApi = hedgingApi;
+    }
+
+    /**
+     * Resolve additional function callbacks lazily, on the first request enabling a function that is
+     * not registered yet.
+     * @param functionCallbackProvider the supplier of the function callbacks.
+     */
+    public void setFunctionCallbackProvider(Supplier<? extends Collection<FunctionCallback>> functionCallbackProvider) {
+        Assert.notNull(functionCallbackProvider, "Function callback provider must not be null");
+        this.functionCallbackProvider = functionCallbackProvider;
+    }
+
+    /**
+     * Coalesce identical concurrent {@link #call(Prompt)} and {@link #stream(Prompt)} requests into a
+     * single upstream call.
+     * @param singleFlight the single flight registry.
+     */
+    public void setSingleFlight(ZhipuAiSingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+
+    /**
+     * Keep the conversation history of the prompts whose {@link ZhipuAiChatOptions#getSessionId() session id}
+     * is set.
+     * @param chatMemory the chat memory.
+     */
+    public void setChatMemory(ZhipuAiChatMemory chatMemory) {
+        this.chatMemory = chatMemory;
+    }
+
+    /**
+     * Keep streaming the completions of {@link #streamResumable(Prompt)} while their client reconnects.
+     * @param streamSessions the resumable stream sessions.
+     */
+    public void setStreamSessions(ZhipuAiStreamSessions streamSessions) {
+        Assert.notNull(streamSessions, "Stream sessions must not be null");
+        this.streamSessions = streamSessions;
     }
 
+    /**
+     * Bound the chunks of {@link #stream(Prompt)} buffered for a slow subscriber, the content deltas being
+     * coalesced by {@link ZhipuAiStreamBuffer.Overflow#COALESCE}.
+     * @param streamBuffer the stream buffer.
+     */
+    public void setStreamBuffer(ZhipuAiStreamBuffer streamBuffer) {
+        Assert.notNull(streamBuffer, "Stream buffer must not be null");
+        this.streamBuffer = streamBuffer;
+    }
 
     @Override
     public ChatResponse call(Prompt prompt) {
 
+        ZhipuAiDeadline deadline = this.getDeadline(prompt, ZhipuAiDeadline.current());
+        if (deadline != null) {
+            // 截止时间绑定到当前线程，每次重试、每轮工具调用前检查剩余预算，HTTP 请求最多等待到截止时间
+            return deadline.call(() -> this.doCall(prompt));
+        }
+        return this.doCall(prompt);
+    }
+
+    private ChatResponse doCall(Prompt prompt) {
+
         var request = createRequest(prompt, false);
 
-        return retryTemplate.execute(ctx -> {
+        ChatResponse chatResponse = retryTemplate.execute(ctx -> {
 
-            ResponseEntity<ZhipuAiApi.ChatCompletion> completionEntity = this.callWithFunctionSupport(request);
+            checkDeadline();
 
-            var chatCompletion = completionEntity.getBody();
-            if (chatCompletion == null) {
-                log.warn("No chat completion returned for prompt: {}", prompt);
-                return new ChatResponse(List.of());
-            }
+            ResponseEntity<ZhipuAiApi.ChatCompletion> completionEntity = (this.singleFlight != null)
+                    ? this.singleFlight.execute(request, () -> this.callWithFunctionSupport(request))
+                    : this.callWithFunctionSupport(request);
+
+            return toChatResponse(prompt, completionEntity);
+        });
+        this.remember(prompt, getContent(chatResponse));
+        return chatResponse;
+    }
 
-            List<Generation> generations = chatCompletion.choices()
-                    .stream()
-                    .map(choice -> new Generation(choice.message().content(), toMap(chatCompletion.id(), choice))
-                            .withGenerationMetadata(ChatGenerationMetadata.from(choice.finishReason().name(), null)))
-                    .toList();
+    /**
+     * Reactive variant of {@link #call(Prompt)} backed by the {@link ZhipuAiApi} WebClient. Every HTTP
+     * round trip is retried with the {@link #setReactiveRetry(Retry) reactive retry} and the tool
+     * callbacks are executed on the {@link #setToolScheduler(Scheduler) tool scheduler}. The call fails
+     * with a {@link ZhipuAiDeadlineExceededException} at its {@link ZhipuAiDeadline deadline}, if any.
+     * @param prompt the prompt to call.
+     * @return {@link Mono} of the chat response.
+     */
+    public Mono<ChatResponse> asyncCall(Prompt prompt) {
 
-            return new ChatResponse(generations);
+        var request = createRequest(prompt, false);
+        ZhipuAiDeadline bound = ZhipuAiDeadline.current();
+
+        return Mono.deferContextual(context -> {
+            Mono<ChatResponse> response = this.asyncCallWithFunctionSupport(request)
+                    .map(completionEntity -> toChatResponse(prompt, completionEntity))
+                    .doOnNext(chatResponse -> this.remember(prompt, getContent(chatResponse)));
+            ZhipuAiDeadline deadline = this.getDeadline(prompt, ZhipuAiDeadline.earliest(bound, ZhipuAiDeadline.current(context)));
+            return (deadline != null) ? deadline.applyTo(response) : response;
         });
     }
 
+    private Mono<ResponseEntity<ZhipuAiApi.ChatCompletion>> asyncCallWithFunctionSupport(ZhipuAiApi.ChatCompletionRequest request) {
+        return Mono.defer(() -> this.zhipuAiApi.asyncChatCompletionEntity(request))
+                .retryWhen(this.reactiveRetry)
+                .flatMap(response -> {
+                    if (!this.isToolFunctionCall(response)) {
+                        return Mono.just(response);
+                    }
+                    return this.createToolResponseRequestAsync(request, response)
+                            .flatMap(this::asyncCallWithFunctionSupport);
+                });
+    }
+
+    private ChatResponse toChatResponse(Prompt prompt, ResponseEntity<ZhipuAiApi.ChatCompletion> completionEntity) {
+
+        var chatCompletion = completionEntity.getBody();
+        if (chatCompletion == null) {
+            log.warn("No chat completion returned for prompt: {}", prompt);
+            return new ChatResponse(List.of());
+        }
+
+        List<Generation> generations = chatCompletion.choices()
+                .stream()
+                .map(choice -> new Generation(choice.message().content(), toMap(chatCompletion.id(), choice))
+                        .withGenerationMetadata(ChatGenerationMetadata.from(choice.finishReason().name(), null)))
+                .toList();
+
+        return new ChatResponse(generations);
+    }
+
     private Map<String, Object> toMap(String id, ZhipuAiApi.ChatCompletion.Choice choice) {
         Map<String, Object> map = new HashMap<>();
 
@@ -109,20 +312,29 @@ public class ZhipuAiChatClient
     public Flux<ChatResponse> stream(Prompt prompt) {
         var request = createRequest(prompt, true);
 
-        return retryTemplate.execute(ctx -> {
-
-            var completionChunks = this.zhipuAiApi.chatCompletionStream(request);
+        Flux<ChatResponse> responses = retryTemplate.execute(ctx -> {
 
             // For chunked responses, only the first chunk contains the choice role.
             // The rest of the chunks with same ID share the same role.
             ConcurrentHashMap<String, String> roleMap = new ConcurrentHashMap<>();
 
-            return completionChunks.map(chunk -> toChatCompletion(chunk)).map(chatCompletion -> {
+            Flux<ZhipuAiApi.ChatCompletion> completions = (this.singleFlight != null)
+                    ? this.singleFlight.stream(request, () -> this.streamWithFunctionSupport(request))
+                    : this.streamWithFunctionSupport(request);
+            // count the deltas as received, before the buffer holds or merges them
+            completions = completions.doOnEach(signal -> {
+                ZhipuAiStreamRegistry.StreamHandle stream = signal.getContextView()
+                        .getOrDefault(ZhipuAiStreamRegistry.StreamHandle.class, null);
+                if (signal.isOnNext() && stream != null) {
+                    signal.get().choices().forEach(choice -> stream.contentReceived(choice.message().content()));
+                }
+            });
+            if (this.streamBuffer != null) {
+                completions = this.streamBuffer.apply(completions, ZhipuAiChatClient::coalesce);
+            }
 
-                chatCompletion = handleFunctionCallOrReturn(request, ResponseEntity.of(Optional.of(chatCompletion)))
-                        .getBody();
+            return completions.map(chatCompletion -> {
 
-                @SuppressWarnings("null")
                 String id = chatCompletion.id();
 
                 List<Generation> generations = chatCompletion.choices().stream().map(choice -> {
@@ -141,6 +353,159 @@ public class ZhipuAiChatClient
                 return new ChatResponse(generations);
             });
         });
+
+        ZhipuAiDeadline bound = ZhipuAiDeadline.current();
+        return Flux.deferContextual(context -> {
+            ZhipuAiStreamRegistry.StreamHandle stream = this.streamRegistry.open(request.model());
+            StringBuilder answer = (this.getSessionId(prompt) != null) ? new StringBuilder() : null;
+            ZhipuAiDeadline deadline = this.getDeadline(prompt, ZhipuAiDeadline.earliest(bound, ZhipuAiDeadline.current(context)));
+            Flux<ChatResponse> timed = (deadline != null) ? deadline.applyTo(responses) : responses;
+            return timed.doOnNext(response -> {
+                        if (answer != null) {
+                            String content = getContent(response);
+                            if (content != null) {
+                                answer.append(content);
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (answer != null) {
+                            this.remember(prompt, answer.toString());
+                        }
+                    })
+                    .doFinally(stream::close)
+                    .contextWrite(Context.of(ZhipuAiStreamRegistry.StreamHandle.class, stream));
+        });
+    }
+
+    /**
+     * Multicast variant of {@link #stream(Prompt)}: every subscriber of the returned {@link Flux} reads the
+     * same upstream request, and the late ones first receive the latest {@code replay} responses.
+     * @param prompt the prompt to stream.
+     * @param replay the number of latest responses replayed to late subscribers.
+     * @return the shared stream of chat responses.
+     * @see ZhipuAiSharedStream
+     */
+    public Flux<ChatResponse> streamShared(Prompt prompt, int replay) {
+        return new ZhipuAiSharedStream<>(this.stream(prompt), replay).asFlux();
+    }
+
+    /**
+     * Stream a JSON answer and emit its elements as soon as each of them is complete, see
+     * {@link ZhipuAiJsonStreamParser} for the elements read from the answer.
+     * @param prompt the prompt asking for a JSON answer.
+     * @param type the type of the elements.
+     * @return the elements, failing when the answer is not complete JSON.
+     * @param <T> the type of the elements.
+     */
+    public <T> Flux<T> streamElements(Prompt prompt, Class<T> type) {
+        return ZhipuAiJsonStreamParser.elements(this.stream(prompt).mapNotNull(ZhipuAiChatClient::getContent), type);
+    }
+
+    /**
+     * Stream a JSON object and emit the elements of one of its array fields as soon as each of them is
+     * complete, the other fields being ignored.
+     * @param prompt the prompt asking for a JSON answer.
+     * @param type the type of the elements.
+     * @param arrayField the name of the array field whose elements are emitted.
+     * @return the elements, failing when the answer is not complete JSON.
+     * @param <T> the type of the elements.
+     */
+    public <T> Flux<T> streamElements(Prompt prompt, Class<T> type, String arrayField) {
+        return ZhipuAiJsonStreamParser.elements(this.stream(prompt).mapNotNull(ZhipuAiChatClient::getContent), type,
+                arrayField);
+    }
+
+    /**
+     * Stream the raw server-sent events of the chat completion, to be relayed to a browser with
+     * {@link ZhipuAiSseRelay} instead of parsing every chunk into a {@link ChatResponse} and serializing
+     * it again. The function callbacks are not executed and the chat memory is not updated.
+     * @param prompt the prompt to stream.
+     * @return the response body buffers, to be released by the subscriber.
+     */
+    public Flux<DataBuffer> streamRaw(Prompt prompt) {
+        var request = createRequest(prompt, true);
+        return Flux.defer(() -> {
+            ZhipuAiStreamRegistry.StreamHandle stream = this.streamRegistry.open(request.model());
+            return ZhipuAiSseRelay.peek(this.zhipuAiApi.chatCompletionStreamRaw(request), new ZhipuAiSseRelay.Listener() {
+                        @Override
+                        public void onContent(int characters) {
+                            stream.contentReceived(characters);
+                        }
+                    })
+                    .doFinally(stream::close);
+        });
+    }
+
+    /**
+     * Start streaming the chat completion in a resumable session: the generation goes on while the client
+     * is disconnected, which then reads the events following the last one it received with
+     * {@code getStreamSessions().get(sessionId).events(lastEventId)}. As with {@link #streamRaw(Prompt)}
+     * the function callbacks are not executed and the chat memory is not updated.
+     * @param prompt the prompt to stream.
+     * @return the session, whose events are read with {@code events(0)}.
+     * @throws IllegalStateException when no stream sessions are set or too many are running.
+     */
+    public ZhipuAiStreamSessions.StreamSession streamResumable(Prompt prompt) {
+        Assert.state(this.streamSessions != null, "Resumable streams are not enabled");
+        var request = createRequest(prompt, true);
+        return this.streamSessions.open(Flux.defer(() -> {
+            ZhipuAiStreamRegistry.StreamHandle stream = this.streamRegistry.open(request.model());
+            return this.zhipuAiApi.chatCompletionStream(request)
+                    .doOnNext(chunk -> chunk.choices().forEach(choice -> stream.contentReceived(choice.delta().content())))
+                    .doFinally(stream::close);
+        }));
+    }
+
+    /**
+     * Streaming counterpart of {@link #callWithFunctionSupport}. The tool call chunks are already
+     * aggregated by {@link ZhipuAiApi#chatCompletionStream}, so when one shows up the callbacks are
+     * executed on the tool scheduler and the follow-up request is streamed again. Nothing
+     * blocks the event loop and the final answer is still emitted token by token.
+     * @param request the streaming chat completion request.
+     * @return the chat completions of the final (non tool call) answer.
+     */
+    private Flux<ZhipuAiApi.ChatCompletion> streamWithFunctionSupport(ZhipuAiApi.ChatCompletionRequest request) {
+        return this.zhipuAiApi.chatCompletionStream(request)
+                .map(this::toChatCompletion)
+                .concatMap(chatCompletion -> {
+                    ResponseEntity<ZhipuAiApi.ChatCompletion> response = ResponseEntity.of(Optional.of(chatCompletion));
+                    if (!this.isToolFunctionCall(response)) {
+                        return Flux.just(chatCompletion);
+                    }
+                    return this.createToolResponseRequestAsync(request, response)
+                            .flatMapMany(this::streamWithFunctionSupport);
+                });
+    }
+
+    /**
+     * {@link #createToolResponseRequest} on the tool scheduler, with the deadline of the call bound to the
+     * thread of the tool callbacks.
+     */
+    private Mono<ZhipuAiApi.ChatCompletionRequest> createToolResponseRequestAsync(ZhipuAiApi.ChatCompletionRequest request,
+                                                                                 ResponseEntity<ZhipuAiApi.ChatCompletion> response) {
+        return Mono.deferContextual(context -> {
+            ZhipuAiDeadline deadline = ZhipuAiDeadline.current(context);
+            return Mono.fromCallable(() -> {
+                if (deadline == null) {
+                    return this.createToolResponseRequest(request, response);
+                }
+                deadline.check();
+                return deadline.call(() -> this.createToolResponseRequest(request, response));
+            });
+        }).subscribeOn(this.toolScheduler);
+    }
+
+    /**
+     * Execute the tool calls of the given response and create the follow-up request, same as a
+     * single step of {@link #callWithFunctionSupport}.
+     */
+    private ZhipuAiApi.ChatCompletionRequest createToolResponseRequest(ZhipuAiApi.ChatCompletionRequest request,
+                                                                       ResponseEntity<ZhipuAiApi.ChatCompletion> response) {
+        List<ZhipuAiApi.ChatCompletionMessage> conversationHistory = new ArrayList<>(this.doGetUserMessages(request));
+        ZhipuAiApi.ChatCompletionMessage responseMessage = this.doGetToolResponseMessage(response);
+        conversationHistory.add(responseMessage);
+        return this.doCreateToolResponseRequest(request, responseMessage, conversationHistory);
     }
 
     private ZhipuAiApi.ChatCompletion toChatCompletion(ZhipuAiApi.ChatCompletionChunk chunk) {
@@ -165,15 +530,19 @@ public class ZhipuAiChatClient
                         ZhipuAiApi.ChatCompletionMessage.Role.valueOf(m.getMessageType().name())))
                 .toList();
 
+        String sessionId = this.getSessionId(prompt);
+        if (sessionId != null) {
+            chatCompletionMessages = this.withHistory(sessionId, chatCompletionMessages);
+        }
+
         var request = new ZhipuAiApi.ChatCompletionRequest(null, chatCompletionMessages, stream);
 
         if (this.defaultOptions != null) {
-            Set<String> defaultEnabledFunctions = this.handleFunctionCallbackConfigurations(this.defaultOptions,
-                    !IS_RUNTIME_CALL);
+            Set<String> defaultEnabledFunctions = this.handleFunctionCallbacks(this.defaultOptions, !IS_RUNTIME_CALL);
 
             functionsForThisRequest.addAll(defaultEnabledFunctions);
 
-            request = ModelOptionsUtils.merge(request, this.defaultOptions, ZhipuAiApi.ChatCompletionRequest.class);
+            request = OptionsUtils.merge(request, this.defaultRequest);
         }
 
         if (prompt.getOptions() != null) {
@@ -181,12 +550,10 @@ public class ZhipuAiChatClient
                 var updatedRuntimeOptions = ModelOptionsUtils.copyToTarget(runtimeOptions, ChatOptions.class,
                         ZhipuAiChatOptions.class);
 
-                Set<String> promptEnabledFunctions = this.handleFunctionCallbackConfigurations(updatedRuntimeOptions,
-                        IS_RUNTIME_CALL);
+                Set<String> promptEnabledFunctions = this.handleFunctionCallbacks(updatedRuntimeOptions, IS_RUNTIME_CALL);
                 functionsForThisRequest.addAll(promptEnabledFunctions);
 
-                request = ModelOptionsUtils.merge(updatedRuntimeOptions, request,
-                        ZhipuAiApi.ChatCompletionRequest.class);
+                request = OptionsUtils.merge(OptionsUtils.toRequest(updatedRuntimeOptions), request);
             }
             else {
                 throw new IllegalArgumentException("Prompt options are not of type ChatOptions: "
@@ -197,20 +564,190 @@ public class ZhipuAiChatClient
         // Add the enabled functions definitions to the request's tools parameter.
         if (!CollectionUtils.isEmpty(functionsForThisRequest)) {
 
-            request = ModelOptionsUtils.merge(
-                    ZhipuAiChatOptions.builder().withTools(this.getFunctionTools(functionsForThisRequest)).build(),
-                    request, ZhipuAiApi.ChatCompletionRequest.class);
+            // The precompiled tools are set as they are, a JSON merge would parse their schemas again.
+            request = new ZhipuAiApi.ChatCompletionRequest(request.requestId(), request.model(), request.messages(),
+                    request.doSample(), request.stream(), request.temperature(), request.topP(), request.maxTokens(),
+                    request.stop(), this.getFunctionTools(functionsForThisRequest), request.toolChoice(), request.user());
         }
 
         return request;
     }
 
+    /**
+     * Deadline of a call, the earliest of the deadline of its options, or of the default options, and of
+     * the given one.
+     */
+    private ZhipuAiDeadline getDeadline(Prompt prompt, ZhipuAiDeadline bound) {
+        Duration budget = (prompt.getOptions() instanceof ZhipuAiChatOptions options) ? options.getDeadline() : null;
+        if (budget == null && this.defaultOptions != null) {
+            budget = this.defaultOptions.getDeadline();
+        }
+        return ZhipuAiDeadline.earliest((budget != null) ? ZhipuAiDeadline.after(budget) : null, bound);
+    }
+
+    private String getSessionId(Prompt prompt) {
+        if (this.chatMemory != null && prompt.getOptions() instanceof ZhipuAiChatOptions options) {
+            return options.getSessionId();
+        }
+        return null;
+    }
+
+    /**
+     * Insert the history of the session between the system messages and the other messages of the prompt.
+     */
+    private List<ZhipuAiApi.ChatCompletionMessage> withHistory(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> messages) {
+        List<ZhipuAiApi.ChatCompletionMessage> history = this.chatMemory.get(sessionId);
+        if (history.isEmpty()) {
+            return messages;
+        }
+        List<ZhipuAiApi.ChatCompletionMessage> merged = new ArrayList<>(history.size() + messages.size());
+        for (ZhipuAiApi.ChatCompletionMessage message : messages) {
+            if (message.role() == ZhipuAiApi.ChatCompletionMessage.Role.SYSTEM) {
+                merged.add(message);
+            }
+        }
+        merged.addAll(history);
+        for (ZhipuAiApi.ChatCompletionMessage message : messages) {
+            if (message.role() != ZhipuAiApi.ChatCompletionMessage.Role.SYSTEM) {
+                merged.add(message);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Append the user and assistant messages of the prompt and the answer to the session history.
+     */
+    private void remember(Prompt prompt, String answer) {
+        String sessionId = this.getSessionId(prompt);
+        if (sessionId == null || !StringUtils.hasText(answer)) {
+            return;
+        }
+        List<ZhipuAiApi.ChatCompletionMessage> turn = new ArrayList<>();
+        for (Message message : prompt.getInstructions()) {
+            if (message.getMessageType() == MessageType.USER || message.getMessageType() == MessageType.ASSISTANT) {
+                turn.add(new ZhipuAiApi.ChatCompletionMessage(message.getContent(),
+                        ZhipuAiApi.ChatCompletionMessage.Role.valueOf(message.getMessageType().name())));
+            }
+        }
+        turn.add(new ZhipuAiApi.ChatCompletionMessage(answer, ZhipuAiApi.ChatCompletionMessage.Role.ASSISTANT));
+        this.chatMemory.add(sessionId, turn);
+    }
+
+    private static String getContent(ChatResponse chatResponse) {
+        if (chatResponse == null || CollectionUtils.isEmpty(chatResponse.getResults())) {
+            return null;
+        }
+        return chatResponse.getResults().get(0).getOutput().getContent();
+    }
+
+    /**
+     * Merge two consecutive content chunks of a stream, null when either of them has several choices or
+     * tool calls, or the first one is the last of its completion.
+     */
+    private static ZhipuAiApi.ChatCompletion coalesce(ZhipuAiApi.ChatCompletion previous, ZhipuAiApi.ChatCompletion next) {
+        if (!Objects.equals(previous.id(), next.id()) || previous.choices().size() != 1 || next.choices().size() != 1) {
+            return null;
+        }
+        ZhipuAiApi.ChatCompletion.Choice first = previous.choices().get(0);
+        ZhipuAiApi.ChatCompletion.Choice second = next.choices().get(0);
+        if (first.finishReason() != null || !CollectionUtils.isEmpty(first.message().toolCalls())
+                || !CollectionUtils.isEmpty(second.message().toolCalls())) {
+            return null;
+        }
+        String content = Objects.toString(first.message().content(), "") + Objects.toString(second.message().content(), "");
+        ZhipuAiApi.ChatCompletionMessage.Role role = (first.message().role() != null) ? first.message().role() : second.message().role();
+        var message = new ZhipuAiApi.ChatCompletionMessage(content, role, first.message().name(), null);
+        return new ZhipuAiApi.ChatCompletion(previous.id(), previous.object(), previous.created(), next.model(),
+                List.of(new ZhipuAiApi.ChatCompletion.Choice(first.index(), message, second.finishReason())),
+                next.requestId(), (next.usage() != null) ? next.usage() : previous.usage());
+    }
+
+    /**
+     * Register the callbacks of the given options in the {@link ZhipuAiFunctionToolRegistry} and return
+     * the functions enabled for the request. Same semantics as
+     * {@link #handleFunctionCallbackConfigurations}, without rewriting the registry when nothing changed.
+     */
+    private Set<String> handleFunctionCallbacks(FunctionCallingOptions options, boolean isRuntimeCall) {
+        Set<String> functionToCall = new HashSet<>();
+        if (!CollectionUtils.isEmpty(options.getFunctionCallbacks())) {
+            this.functionToolRegistry.register(options.getFunctionCallbacks(), isRuntimeCall);
+            // Automatically enable the function, usually from prompt callback.
+            if (isRuntimeCall) {
+                options.getFunctionCallbacks().forEach(functionCallback -> functionToCall.add(functionCallback.getName()));
+            }
+        }
+        // Add the explicitly enabled functions.
+        if (!CollectionUtils.isEmpty(options.getFunctions())) {
+            functionToCall.addAll(options.getFunctions());
+        }
+        return functionToCall;
+    }
+
     private List<ZhipuAiApi.FunctionTool> getFunctionTools(Set<String> functionNames) {
-        return this.resolveFunctionCallbacks(functionNames).stream().map(functionCallback -> {
-            var function = new ZhipuAiApi.FunctionTool.Function(functionCallback.getDescription(),
-                    functionCallback.getName(), functionCallback.getInputTypeSchema());
-            return new ZhipuAiApi.FunctionTool(function);
-        }).toList();
+        for (String functionName : functionNames) {
+            if (!this.functionToolRegistry.contains(functionName) && this.functionCallbackProvider != null) {
+                this.registerProvidedFunctionCallbacks();
+            }
+            if (!this.functionToolRegistry.contains(functionName)) {
+                if (this.callbackContext == null) {
+                    throw new IllegalStateException("No function callback found for name: " + functionName);
+                }
+                FunctionCallback functionCallback = this.callbackContext.getFunctionCallback(functionName, null);
+                if (functionCallback == null) {
+                    throw new IllegalStateException("No function callback [" + functionName + "] found in the FunctionCallbackContext");
+                }
+                this.functionToolRegistry.register(List.of(functionCallback), false);
+            }
+        }
+        return this.functionToolRegistry.getTools(functionNames);
+    }
+
+    private synchronized void registerProvidedFunctionCallbacks() {
+        Supplier<? extends Collection<FunctionCallback>> provider = this.functionCallbackProvider;
+        if (provider != null) {
+            Collection<FunctionCallback> functionCallbacks = provider.get();
+            if (!CollectionUtils.isEmpty(functionCallbacks)) {
+                this.functionToolRegistry.register(functionCallbacks, !IS_RUNTIME_CALL);
+            }
+            this.functionCallbackProvider = null;
+        }
+    }
+
+    public ZhipuAiFunctionToolRegistry getFunctionToolRegistry() {
+        return this.functionToolRegistry;
+    }
+
+    public ZhipuAiStreamRegistry getStreamRegistry() {
+        return this.streamRegistry;
+    }
+
+    public ZhipuAiSingleFlight getSingleFlight() {
+        return this.singleFlight;
+    }
+
+    public ZhipuAiHedgingExecutor getHedgingExecutor() {
+        return this.hedgingExecutor;
+    }
+
+    public ZhipuAiApi getZhipuAiApi() {
+        return this.zhipuAiApi;
+    }
+
+    public ZhipuAiApi getHedgingApi() {
+        return this.hedgingApi;
+    }
+
+    public ZhipuAiChatMemory getChatMemory() {
+        return this.chatMemory;
+    }
+
+    public ZhipuAiStreamSessions getStreamSessions() {
+        return this.streamSessions;
+    }
+
+    public ZhipuAiStreamBuffer getStreamBuffer() {
+        return this.streamBuffer;
     }
 
     //
@@ -228,11 +765,13 @@ public class ZhipuAiChatClient
             var functionName = toolCall.function().name();
             String functionArguments = toolCall.function().arguments();
 
-            if (!this.functionCallbackRegister.containsKey(functionName)) {
+            FunctionCallback functionCallback = this.functionToolRegistry.getCallback(functionName);
+            if (functionCallback == null) {
                 throw new IllegalStateException("No function callback found for function name: " + functionName);
             }
 
-            String functionResponse = this.functionCallbackRegister.get(functionName).call(functionArguments);
+            checkDeadline();
+            String functionResponse = functionCallback.call(functionArguments);
 
             // Add the function response to the conversation.
             conversationHistory
@@ -241,8 +780,8 @@ public class ZhipuAiChatClient
 
         // Recursively call chatCompletionWithTools until the model doesn't call a
         // functions anymore.
-        ZhipuAiApi.ChatCompletionRequest newRequest = new ZhipuAiApi.ChatCompletionRequest(previousRequest.requestId(), conversationHistory, false);
-        newRequest = ModelOptionsUtils.merge(newRequest, previousRequest, ZhipuAiApi.ChatCompletionRequest.class);
+        ZhipuAiApi.ChatCompletionRequest newRequest = new ZhipuAiApi.ChatCompletionRequest(previousRequest.requestId(), conversationHistory, previousRequest.stream());
+        newRequest = OptionsUtils.merge(newRequest, previousRequest);
 
         return newRequest;
     }
@@ -260,9 +799,28 @@ public class ZhipuAiChatClient
 
     @Override
     protected ResponseEntity<ZhipuAiApi.ChatCompletion> doChatCompletion(ZhipuAiApi.ChatCompletionRequest request) {
+        ZhipuAiDeadline deadline = checkDeadline();
+        if (this.hedgingExecutor != null) {
+            Mono<ResponseEntity<ZhipuAiApi.ChatCompletion>> primary = this.zhipuAiApi.asyncChatCompletionEntity(request);
+            Mono<ResponseEntity<ZhipuAiApi.ChatCompletion>> hedge = this.hedgingApi.asyncChatCompletionEntity(request);
+            return (deadline != null) ? deadline.applyTo(this.hedgingExecutor.hedge(primary, hedge)).block()
+                    : this.hedgingExecutor.execute(primary, hedge);
+        }
         return this.zhipuAiApi.chatCompletionEntity(request);
     }
 
+    /**
+     * Fail a blocking call whose deadline, bound to the current thread, has passed.
+     * @return the deadline of the call, or null.
+     */
+    private static ZhipuAiDeadline checkDeadline() {
+        ZhipuAiDeadline deadline = ZhipuAiDeadline.current();
+        if (deadline != null) {
+            deadline.check();
+        }
+        return deadline;
+    }
+
     @Override
     protected boolean isToolFunctionCall(ResponseEntity<ZhipuAiApi.ChatCompletion> chatCompletion) {
 
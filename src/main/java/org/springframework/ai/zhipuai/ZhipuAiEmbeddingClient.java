@@ -5,17 +5,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.MetadataMode;
 import org.springframework.ai.embedding.*;
-import org.springframework.ai.model.ModelOptionsUtils;
 import org.springframework.ai.retry.RetryUtils;
 import org.springframework.ai.zhipuai.api.ZhipuAiApi;
 import org.springframework.ai.zhipuai.api.ZhipuAiEmbeddingOptions;
+import org.springframework.ai.zhipuai.support.ZhipuAiEmbeddingBatcher;
+import org.springframework.ai.zhipuai.support.ZhipuAiHedgingExecutor;
+import org.springframework.ai.zhipuai.support.ZhipuAiSingleFlight;
+import org.springframework.ai.zhipuai.util.OptionsUtils;
+import org.springframework.http.ResponseEntity;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
-public class ZhipuAiEmbeddingClient extends AbstractEmbeddingClient {
+public class ZhipuAiEmbeddingClient extends AbstractEmbeddingClient implements AutoCloseable {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -30,6 +36,23 @@ public class ZhipuAiEmbeddingClient extends AbstractEmbeddingClient {
 
     private final RetryTemplate retryTemplate;
 
+    /**
+     * Optional hedging of the embedding calls.
+     */
+    private ZhipuAiHedgingExecutor hedgingExecutor;
+
+    private ZhipuAiApi hedgingApi;
+
+    /**
+     * Optional coalescing of identical concurrent requests.
+     */
+    private ZhipuAiSingleFlight singleFlight;
+
+    /**
+     * Optional micro-batching of the single text embeddings.
+     */
+    private ZhipuAiEmbeddingBatcher batcher;
+
     public ZhipuAiEmbeddingClient(ZhipuAiApi zhipuAiApi) {
         this(zhipuAiApi, MetadataMode.EMBED);
     }
@@ -57,6 +80,78 @@ public class ZhipuAiEmbeddingClient extends AbstractEmbeddingClient {
         this.retryTemplate = retryTemplate;
     }
 
+    /**
+     * Enable hedged requests for the embedding calls. The hedged calls run on the reactive HTTP stack of the
+     * APIs, so that the losing attempt is aborted rather than left running.
+     * @param hedgingExecutor the hedging executor.
+     * @param hedgingApi the API the hedged requests are sent to, can be the same as the primary one.
+     */
+    public void setHedging(ZhipuAiHedgingExecutor hedgingExecutor, ZhipuAiApi hedgingApi) {
+        Assert.notNull(hedgingExecutor, "Hedging executor must not be null");
+        Assert.notNull(hedgingApi, "Hedging API must not be null");
+        this.hedgingExecutor = hedgingExecutor;
+        this.hedgingApi = hedgingApi;
+    }
+
+    /**
+     * Coalesce identical concurrent embedding requests into a single upstream call.
+     * @param singleFlight the single flight registry.
+     */
+    public void setSingleFlight(ZhipuAiSingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Queue the {@link #embed(String)} calls and send them as batched upstream requests.
+     * @param batcher the micro-batching dispatcher, usually calling {@link #batchEmbed(List)}.
+     */
+    public void setBatcher(ZhipuAiEmbeddingBatcher batcher) {
+        this.batcher = batcher;
+    }
+
+    @Override
+    public List<Double> embed(String text) {
+        if (this.batcher == null) {
+            return super.embed(text);
+        }
+        try {
+            return this.batcher.embed(text).join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Embed the given texts with a single upstream request.
+     * @param texts the texts to embed.
+     * @return the embeddings, in the order of the texts.
+     */
+    public List<List<Double>> batchEmbed(List<String> texts) {
+        Assert.notEmpty(texts, "At least one text is required!");
+        return this.retryTemplate.execute(ctx -> {
+
+            var model = (this.defaultOptions != null && this.defaultOptions.getModel() != null)
+                    ? this.defaultOptions.getModel() : ZhipuAiApi.EmbeddingModel.EMBED.getValue();
+
+            var apiEmbeddingResponse = this.zhipuAiApi.embeddings(new ZhipuAiApi.BatchEmbeddingRequest(texts, model)).getBody();
+
+            if (apiEmbeddingResponse == null || apiEmbeddingResponse.data() == null) {
+                logger.warn("No embeddings returned for {} texts", texts.size());
+                return List.of();
+            }
+
+            return apiEmbeddingResponse.data()
+                    .stream()
+                    .sorted(Comparator.comparing(ZhipuAiApi.Embedding::index, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .map(ZhipuAiApi.Embedding::embedding)
+                    .toList();
+        });
+    }
+
     @Override
     public List<Double> embed(Document document) {
         Assert.notNull(document, "Document must not be null");
@@ -77,10 +172,13 @@ public class ZhipuAiEmbeddingClient extends AbstractEmbeddingClient {
                     : new ZhipuAiApi.EmbeddingRequest(inputContent, ZhipuAiApi.EmbeddingModel.EMBED.getValue());
 
             if (request.getOptions() != null && !EmbeddingOptions.EMPTY.equals(request.getOptions())) {
-                apiRequest = ModelOptionsUtils.merge(request.getOptions(), apiRequest, ZhipuAiApi.EmbeddingRequest.class);
+                apiRequest = OptionsUtils.merge(request.getOptions(), apiRequest);
             }
 
-            var apiEmbeddingResponse = this.zhipuAiApi.embeddings(apiRequest).getBody();
+            var embeddingRequest = apiRequest;
+            var apiEmbeddingResponse = (this.singleFlight != null)
+                    ? this.singleFlight.execute(embeddingRequest, () -> this.embeddings(embeddingRequest)).getBody()
+                    : this.embeddings(embeddingRequest).getBody();
 
             if (apiEmbeddingResponse == null) {
                 logger.warn("No embeddings returned for request: {}", request);
@@ -99,6 +197,14 @@ public class ZhipuAiEmbeddingClient extends AbstractEmbeddingClient {
         });
     }
 
+    private ResponseEntity<ZhipuAiApi.EmbeddingList<ZhipuAiApi.Embedding>> embeddings(ZhipuAiApi.EmbeddingRequest apiRequest) {
+        if (this.hedgingExecutor != null) {
+            return this.hedgingExecutor.execute(this.zhipuAiApi.asyncEmbeddings(apiRequest),
+                    this.hedgingApi.asyncEmbeddings(apiRequest));
+        }
+        return this.zhipuAiApi.embeddings(apiRequest);
+    }
+
     private EmbeddingResponseMetadata generateResponseMetadata(String model, ZhipuAiApi.Usage usage) {
         var metadata = new EmbeddingResponseMetadata();
         metadata.put("model", model);
@@ -107,4 +213,34 @@ public class ZhipuAiEmbeddingClient extends AbstractEmbeddingClient {
         return metadata;
     }
 
+    public ZhipuAiSingleFlight getSingleFlight() {
+        return this.singleFlight;
+    }
+
+    public ZhipuAiHedgingExecutor getHedgingExecutor() {
+        return this.hedgingExecutor;
+    }
+
+    public ZhipuAiEmbeddingBatcher getBatcher() {
+        return this.batcher;
+    }
+
+    public ZhipuAiApi getZhipuAiApi() {
+        return this.zhipuAiApi;
+    }
+
+    public ZhipuAiApi getHedgingApi() {
+        return this.hedgingApi;
+    }
+
+    /**
+     * Close the batcher, if any. Called by the application context for the auto-configured client.
+     */
+    @Override
+    public void close() {
+        if (this.batcher != null) {
+            this.batcher.close();
+        }
+    }
+
 }
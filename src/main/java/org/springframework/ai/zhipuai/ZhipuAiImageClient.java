@@ -3,12 +3,12 @@ package org.springframework.ai.zhipuai;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.image.*;
-import org.springframework.ai.model.ModelOptionsUtils;
 import org.springframework.ai.retry.RetryUtils;
 import org.springframework.ai.zhipuai.api.ZhipuAiImageApi;
 import org.springframework.ai.zhipuai.api.ZhipuAiImageOptions;
 import org.springframework.ai.zhipuai.metadata.ZhipuAiImageGenerationMetadata;
 import org.springframework.ai.zhipuai.metadata.ZhipuAiImageResponseMetadata;
+import org.springframework.ai.zhipuai.util.OptionsUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
@@ -55,13 +55,11 @@ public class ZhipuAiImageClient implements ImageClient {
                     ZhipuAiImageApi.DEFAULT_IMAGE_MODEL);
 
             if (this.defaultOptions != null) {
-                imageRequest = ModelOptionsUtils.merge(this.defaultOptions, imageRequest,
-                        ZhipuAiImageApi.ZhipuAiImageRequest.class);
+                imageRequest = OptionsUtils.merge(this.defaultOptions, imageRequest);
             }
 
             if (imagePrompt.getOptions() != null) {
-                imageRequest = ModelOptionsUtils.merge(toZhipuAiImageOptions(imagePrompt.getOptions()), imageRequest,
-                        ZhipuAiImageApi.ZhipuAiImageRequest.class);
+                imageRequest = OptionsUtils.merge(toZhipuAiImageOptions(imagePrompt.getOptions()), imageRequest);
             }
 
             // Make the request
@@ -0,0 +1,104 @@
+package org.springframework.ai.zhipuai.actuate;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.util.Assert;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health indicator measuring the TCP connect and TLS handshake latency to the configured ZhipuAI base urls,
+ * without sending any API request. The result is cached for {@code ttl}, so that frequent probes do not
+ * open a new connection each. Add it to the readiness group with
+ * {@code management.endpoint.health.group.readiness.include=readinessState,zhipuai}.
+ */
+public class ZhipuAiConnectionHealthIndicator extends AbstractHealthIndicator {
+
+    private final List<String> baseUrls;
+
+    private final int timeoutMillis;
+
+    private final long ttlNanos;
+
+    private volatile Health health;
+
+    private volatile long checkedNanos;
+
+    /**
+     * @param baseUrls the distinct base urls to probe.
+     * @param timeout the connect and handshake timeout.
+     * @param ttl how long a probe result is reused.
+     */
+    public ZhipuAiConnectionHealthIndicator(Collection<String> baseUrls, Duration timeout, Duration ttl) {
+        super("ZhipuAI connection health check failed");
+        Assert.notEmpty(baseUrls, "Base urls must not be empty");
+        Assert.notNull(timeout, "Timeout must not be null");
+        Assert.notNull(ttl, "Ttl must not be null");
+        this.baseUrls = List.copyOf(baseUrls);
+        this.timeoutMillis = (int) timeout.toMillis();
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public Health health() {
+        Health health = this.health;
+        if (health != null && System.nanoTime() - this.checkedNanos < this.ttlNanos) {
+            return health;
+        }
+        synchronized (this) {
+            if (this.health == null || System.nanoTime() - this.checkedNanos >= this.ttlNanos) {
+                this.health = super.health();
+                this.checkedNanos = System.nanoTime();
+            }
+            return this.health;
+        }
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        builder.up();
+        for (String baseUrl : this.baseUrls) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            try {
+                this.probe(URI.create(baseUrl), details);
+            }
+            catch (Exception ex) {
+                builder.down();
+                details.put("error", ex.getClass().getName() + ": " + ex.getMessage());
+            }
+            builder.withDetail(baseUrl, details);
+        }
+    }
+
+    private void probe(URI uri, Map<String, Object> details) throws Exception {
+        boolean tls = "https".equalsIgnoreCase(uri.getScheme());
+        int port = (uri.getPort() != -1) ? uri.getPort() : (tls ? 443 : 80);
+
+        long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(uri.getHost(), port), this.timeoutMillis);
+            long connected = System.nanoTime();
+            details.put("connectMillis", TimeUnit.NANOSECONDS.toMillis(connected - start));
+            if (tls) {
+                socket.setSoTimeout(this.timeoutMillis);
+                SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+                try (SSLSocket sslSocket = (SSLSocket) factory.createSocket(socket, uri.getHost(), port, true)) {
+                    sslSocket.startHandshake();
+                    details.put("tlsHandshakeMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connected));
+                    details.put("protocol", sslSocket.getSession().getProtocol());
+                }
+            }
+        }
+    }
+
+}
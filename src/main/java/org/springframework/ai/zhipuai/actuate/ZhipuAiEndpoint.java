@@ -0,0 +1,209 @@
+package org.springframework.ai.zhipuai.actuate;
+
+import org.springframework.ai.zhipuai.ZhipuAiChatClient;
+import org.springframework.ai.zhipuai.ZhipuAiEmbeddingClient;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.memory.ZhipuAiSummarizingChatMemory;
+import org.springframework.ai.zhipuai.support.ZhipuAiApiStats;
+import org.springframework.ai.zhipuai.support.ZhipuAiConnectionWarmer;
+import org.springframework.ai.zhipuai.support.ZhipuAiEmbeddingBatcher;
+import org.springframework.ai.zhipuai.support.ZhipuAiHedgingExecutor;
+import org.springframework.ai.zhipuai.support.ZhipuAiSingleFlight;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamBuffer;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamRegistry;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamSessions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code zhipuai} actuator endpoint reporting the live state of the clients: streams in flight, connection
+ * pool utilisation, batching and hedging queues, request coalescing and the health of every API key.
+ * Everything is read from lock-free counters, nothing is recorded for the endpoint on the request path.
+ * <p>
+ * Expose it with {@code management.endpoints.web.exposure.include=health,zhipuai}.
+ */
+@Endpoint(id = "zhipuai")
+public class ZhipuAiEndpoint {
+
+    /**
+     * Maximum number of streams listed, the oldest first.
+     */
+    private static final int MAX_STREAMS = 100;
+
+    private final ObjectProvider<ZhipuAiChatClient> chatClient;
+
+    private final ObjectProvider<ZhipuAiEmbeddingClient> embeddingClient;
+
+    private final ObjectProvider<ZhipuAiConnectionWarmer> connectionWarmer;
+
+    public ZhipuAiEndpoint(ObjectProvider<ZhipuAiChatClient> chatClient,
+                           ObjectProvider<ZhipuAiEmbeddingClient> embeddingClient,
+                           ObjectProvider<ZhipuAiConnectionWarmer> connectionWarmer) {
+        this.chatClient = chatClient;
+        this.embeddingClient = embeddingClient;
+        this.connectionWarmer = connectionWarmer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> zhipuai() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        // the primary and hedging APIs, each listed once
+        Set<ZhipuAiApi> apis = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        ZhipuAiChatClient chatClient = this.chatClient.getIfAvailable();
+        if (chatClient != null) {
+            Map<String, Object> chat = new LinkedHashMap<>();
+            chat.put("streams", this.streams(chatClient.getStreamRegistry()));
+            chat.put("functionTools", chatClient.getFunctionToolRegistry().size());
+            chat.put("singleFlight", this.singleFlight(chatClient.getSingleFlight()));
+            chat.put("hedging", this.hedging(chatClient.getHedgingExecutor()));
+            chat.put("streamBuffer", this.streamBuffer(chatClient.getStreamBuffer()));
+            if (chatClient.getChatMemory() != null) {
+                chat.put("memorySessions", chatClient.getChatMemory().getSessionCount());
+            }
+            if (chatClient.getChatMemory() instanceof ZhipuAiSummarizingChatMemory summarizingChatMemory) {
+                chat.put("memorySummaries", summarizingChatMemory.getSummaries());
+                chat.put("memorySummaryFailures", summarizingChatMemory.getFailures());
+            }
+            ZhipuAiStreamSessions streamSessions = chatClient.getStreamSessions();
+            if (streamSessions != null) {
+                Map<String, Object> resumable = new LinkedHashMap<>();
+                resumable.put("sessions", streamSessions.getSessions().size());
+                resumable.put("running", streamSessions.getSessions().stream().filter(session -> !session.isTerminated()).count());
+                resumable.put("resumes", streamSessions.getResumes());
+                resumable.put("abandoned", streamSessions.getAbandoned());
+                chat.put("resumableStreams", resumable);
+            }
+            report.put("chat", chat);
+            apis.add(chatClient.getZhipuAiApi());
+            if (chatClient.getHedgingApi() != null) {
+                apis.add(chatClient.getHedgingApi());
+            }
+        }
+
+        ZhipuAiEmbeddingClient embeddingClient = this.embeddingClient.getIfAvailable();
+        if (embeddingClient != null) {
+            Map<String, Object> embedding = new LinkedHashMap<>();
+            embedding.put("batcher", this.batcher(embeddingClient.getBatcher()));
+            embedding.put("singleFlight", this.singleFlight(embeddingClient.getSingleFlight()));
+            embedding.put("hedging", this.hedging(embeddingClient.getHedgingExecutor()));
+            report.put("embedding", embedding);
+            apis.add(embeddingClient.getZhipuAiApi());
+            if (embeddingClient.getHedgingApi() != null) {
+                apis.add(embeddingClient.getHedgingApi());
+            }
+        }
+
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (ZhipuAiApi api : apis) {
+            Map<String, Object> key = this.stats(api.getStats());
+            key.put("connectionPools", api.getConnectionPoolMetrics().getPools());
+            keys.add(key);
+        }
+        report.put("apis", keys);
+
+        ZhipuAiConnectionWarmer connectionWarmer = this.connectionWarmer.getIfAvailable();
+        if (connectionWarmer != null) {
+            report.put("warmUp", Map.of("warmUps", connectionWarmer.getWarmUps(), "failures", connectionWarmer.getFailures()));
+        }
+        return report;
+    }
+
+    private Map<String, Object> streams(ZhipuAiStreamRegistry streamRegistry) {
+        List<Map<String, Object>> streams = streamRegistry.getStreams()
+                .stream()
+                .sorted(Comparator.comparingLong(ZhipuAiStreamRegistry.StreamHandle::getId))
+                .limit(MAX_STREAMS)
+                .map(stream -> {
+                    Map<String, Object> details = new LinkedHashMap<>();
+                    details.put("id", stream.getId());
+                    details.put("model", stream.getModel());
+                    details.put("ageMillis", stream.getAge().toMillis());
+                    details.put("tokens", stream.getTokens());
+                    return details;
+                })
+                .toList();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("inFlight", streamRegistry.size());
+        details.put("cancelled", streamRegistry.getCancelled());
+        details.put("cancelledTokens", streamRegistry.getCancelledTokens());
+        details.put("oldest", streams);
+        return details;
+    }
+
+    private Map<String, Object> singleFlight(ZhipuAiSingleFlight singleFlight) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", singleFlight != null);
+        if (singleFlight != null) {
+            details.put("inFlight", singleFlight.getInFlight());
+            details.put("coalesced", singleFlight.getCoalesced());
+        }
+        return details;
+    }
+
+    private Map<String, Object> streamBuffer(ZhipuAiStreamBuffer streamBuffer) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", streamBuffer != null);
+        if (streamBuffer != null) {
+            details.put("capacity", streamBuffer.getCapacity());
+            details.put("overflow", streamBuffer.getOverflow());
+            details.put("streams", streamBuffer.getStreams());
+            details.put("depth", streamBuffer.getDepth());
+            details.put("maxDepth", streamBuffer.getMaxDepth());
+            details.put("coalesced", streamBuffer.getCoalesced());
+            details.put("overflows", streamBuffer.getOverflows());
+        }
+        return details;
+    }
+
+    private Map<String, Object> hedging(ZhipuAiHedgingExecutor hedgingExecutor) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", hedgingExecutor != null);
+        if (hedgingExecutor != null) {
+            details.put("requests", hedgingExecutor.getRequests());
+            details.put("hedges", hedgingExecutor.getHedges());
+            details.put("hedgeWins", hedgingExecutor.getHedgeWins());
+            details.put("hedgeDelayMillis", hedgingExecutor.getHedgeDelay().toMillis());
+            details.put("availableHedges", hedgingExecutor.getAvailableHedges());
+        }
+        return details;
+    }
+
+    private Map<String, Object> batcher(ZhipuAiEmbeddingBatcher batcher) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", batcher != null);
+        if (batcher != null) {
+            details.put("queued", batcher.getQueued());
+            details.put("availableBatches", batcher.getAvailableBatches());
+        }
+        return details;
+    }
+
+    private Map<String, Object> stats(ZhipuAiApiStats stats) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("baseUrl", stats.getBaseUrl());
+        details.put("apiKey", stats.getMaskedApiKey());
+        details.put("status", stats.getStatus());
+        details.put("requests", stats.getRequests());
+        details.put("inFlight", stats.getInFlight());
+        details.put("failures", stats.getFailures());
+        details.put("rateLimited", stats.getRateLimited());
+        details.put("consecutiveFailures", stats.getConsecutiveFailures());
+        details.put("meanLatencyMillis", stats.getMeanLatency().toMillis());
+        details.put("lastSuccess", stats.getLastSuccess());
+        details.put("lastFailure", stats.getLastFailure());
+        details.put("lastError", stats.getLastError());
+        return details;
+    }
+
+}
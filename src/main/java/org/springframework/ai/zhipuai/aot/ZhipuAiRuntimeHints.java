@@ -2,22 +2,45 @@ package org.springframework.ai.zhipuai.aot;
 
 import org.springframework.ai.zhipuai.api.ZhipuAiApi;
 import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiEmbeddingOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiFileApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiImageApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiImageOptions;
+import org.springframework.ai.zhipuai.metadata.ZhipuAiImageGenerationMetadata;
+import org.springframework.ai.zhipuai.metadata.ZhipuAiImageResponseMetadata;
 import org.springframework.aot.hint.MemberCategory;
 import org.springframework.aot.hint.RuntimeHints;
 import org.springframework.aot.hint.RuntimeHintsRegistrar;
 
+import java.util.List;
+
 import static org.springframework.ai.aot.AiRuntimeHints.findJsonAnnotatedClassesInPackage;
 
 public class ZhipuAiRuntimeHints implements RuntimeHintsRegistrar {
 
+    /**
+     * Types (de)serialized by Jackson or copied by {@code ModelOptionsUtils}, registered together
+     * with all their nested records and enums since not all of them carry a Jackson annotation.
+     */
+    private static final List<Class<?>> JSON_TYPES = List.of(ZhipuAiApi.class, ZhipuAiImageApi.class,
+            ZhipuAiFileApi.class, ZhipuAiChatOptions.class, ZhipuAiEmbeddingOptions.class, ZhipuAiImageOptions.class,
+            ZhipuAiImageGenerationMetadata.class, ZhipuAiImageResponseMetadata.class);
+
     @Override
     public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
         var mcs = MemberCategory.values();
         for (var tr : findJsonAnnotatedClassesInPackage(ZhipuAiApi.class)) {
             hints.reflection().registerType(tr, mcs);
         }
-        for (var tr : findJsonAnnotatedClassesInPackage(ZhipuAiChatOptions.class)) {
-            hints.reflection().registerType(tr, mcs);
+        for (var type : JSON_TYPES) {
+            registerType(hints, type, mcs);
+        }
+    }
+
+    private static void registerType(RuntimeHints hints, Class<?> type, MemberCategory[] mcs) {
+        hints.reflection().registerType(type, mcs);
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            registerType(hints, nested, mcs);
         }
     }
 
@@ -2,21 +2,31 @@ package org.springframework.ai.zhipuai.api;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.netty.channel.ChannelOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.model.ModelOptionsUtils;
 import org.springframework.ai.retry.RetryUtils;
+import org.springframework.ai.zhipuai.support.ZhipuAiApiStats;
+import org.springframework.ai.zhipuai.support.ZhipuAiConnectionPoolMetrics;
 import org.springframework.ai.zhipuai.util.ApiUtils;
 import org.springframework.boot.context.properties.bind.ConstructorBinding;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.util.Assert;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.util.List;
 import java.util.Map;
@@ -32,7 +42,18 @@ public class ZhipuAiApi {
 
     private final RestClient restClient;
 
-    private final WebClient webClient;
+    /**
+     * Only built on the first streaming or async call, the reactive HTTP stack is not needed otherwise.
+     */
+    private final SingletonSupplier<WebClient> webClient;
+
+    private final ZhipuAiApiStats stats;
+
+    private final ZhipuAiConnectionPoolMetrics connectionPoolMetrics = new ZhipuAiConnectionPoolMetrics();
+
+    private final ZhipuAiTimeouts timeouts;
+
+    private volatile ConnectionProvider connectionProvider;
 
     /**
      * Create a new client api with DEFAULT_BASE_URL
@@ -60,15 +81,82 @@ public class ZhipuAiApi {
      */
     public ZhipuAiApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
                         ResponseErrorHandler responseErrorHandler) {
+        this(baseUrl, apiKey, restClientBuilder, responseErrorHandler, ZhipuAiTimeouts.NONE);
+    }
 
+    /**
+     * Create a new client api.
+     * @param baseUrl api base URL.
+     * @param apiKey ZhipuAI api Key.
+     * @param restClientBuilder RestClient builder, whose request factory enforces the connect and
+     * {@link ZhipuAiTimeouts#getReadTimeout() read} timeouts of the blocking calls.
+     * @param responseErrorHandler Response error handler.
+     * @param timeouts the timeouts of the calls.
+     */
+    public ZhipuAiApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
+                        ResponseErrorHandler responseErrorHandler, ZhipuAiTimeouts timeouts) {
+
+        Assert.notNull(timeouts, "Timeouts must not be null");
         Consumer<HttpHeaders> jsonContentHeaders = ApiUtils.getJsonContentHeaders(apiKey);
+        this.stats = new ZhipuAiApiStats(baseUrl, apiKey);
+        this.timeouts = timeouts;
 
-        this.restClient = restClientBuilder.baseUrl(baseUrl)
+        // clone, the builder may be shared with other clients
+        this.restClient = restClientBuilder.clone()
+                .baseUrl(baseUrl)
                 .defaultHeaders(jsonContentHeaders)
                 .defaultStatusHandler(responseErrorHandler)
+                .requestInterceptor(this.stats)
+                .requestInterceptor(ApiUtils.timeoutInterceptor(timeouts))
                 .build();
 
-        this.webClient = WebClient.builder().baseUrl(baseUrl).defaultHeaders(jsonContentHeaders).build();
+        this.webClient = SingletonSupplier.of(() -> {
+            ConnectionProvider connectionProvider = ConnectionProvider.builder("zhipuai")
+                    .metrics(true, () -> this.connectionPoolMetrics)
+                    .build();
+            this.connectionProvider = connectionProvider;
+            HttpClient httpClient = HttpClient.create(connectionProvider);
+            if (timeouts.connect() != null) {
+                httpClient = httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeouts.connect().toMillis());
+            }
+            if (timeouts.response() != null) {
+                httpClient = httpClient.responseTimeout(timeouts.response());
+            }
+            return WebClient.builder()
+                    .baseUrl(baseUrl)
+                    .defaultHeaders(jsonContentHeaders)
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .filter(this.stats)
+                    .build();
+        });
+    }
+
+    /**
+     * @return the health counters of this base url and API key.
+     */
+    public ZhipuAiApiStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * @return the connection pool gauges of the streaming and async calls.
+     */
+    public ZhipuAiConnectionPoolMetrics getConnectionPoolMetrics() {
+        return this.connectionPoolMetrics;
+    }
+
+    public ZhipuAiTimeouts getTimeouts() {
+        return this.timeouts;
+    }
+
+    /**
+     * Close the connection pool of the streaming and async calls, if it was ever built.
+     */
+    public void close() {
+        ConnectionProvider connectionProvider = this.connectionProvider;
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
     }
 
     // --------------------------------------------------------------------------
@@ -501,17 +589,41 @@ public class ZhipuAiApi {
         Assert.notNull(chatRequest, "The request body can not be null.");
         Assert.isTrue(!chatRequest.stream(), "Request must set the steam property to false.");
 
-        return this.restClient.post()
+        return ApiUtils.withTimeouts(() -> this.restClient.post()
                 .uri("/v4/chat/completions")
                 .body(chatRequest)
                 .retrieve()
-                .toEntity(ZhipuAiApi.ChatCompletion.class);
+                .toEntity(ZhipuAiApi.ChatCompletion.class), this.timeouts);
+    }
+
+    /**
+     * Creates a model response for the given chat conversation. Reactive variant of
+     * {@link #chatCompletionEntity(ChatCompletionRequest)} backed by the {@link WebClient}.
+     * @param chatRequest The chat completion request.
+     * @return {@link Mono} of the entity response with {@link ZhipuAiApi.ChatCompletion} as a body
+     * and HTTP status code and headers.
+     */
+    public Mono<ResponseEntity<ZhipuAiApi.ChatCompletion>> asyncChatCompletionEntity(ZhipuAiApi.ChatCompletionRequest chatRequest) {
+
+        Assert.notNull(chatRequest, "The request body can not be null.");
+        Assert.isTrue(!chatRequest.stream(), "Request must set the steam property to false.");
+
+        return ApiUtils.withTimeouts(this.webClient.obtain().post()
+                .uri("/v4/chat/completions")
+                .body(Mono.just(chatRequest), ChatCompletionRequest.class)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, ApiUtils::toAiException)
+                .toEntity(ZhipuAiApi.ChatCompletion.class), this.timeouts);
     }
 
     private ZhipuAiStreamFunctionCallingHelper chunkMerger = new ZhipuAiStreamFunctionCallingHelper();
 
     /**
      * Creates a streaming chat response for the given chat conversation.
+     * <p>
+     * Cancelling the returned {@link Flux} before its end aborts the request at once: the connection is
+     * closed instead of being drained and released to the pool, so that the generation stops being
+     * received and the connection is not held by an abandoned response.
      * @param chatRequest The chat completion request. Must have the stream property set
      * to true.
      * @return Returns a {@link Flux} stream from chat completion chunks.
@@ -523,11 +635,13 @@ public class ZhipuAiApi {
 
         AtomicBoolean isInsideTool = new AtomicBoolean(false);
 
-        return this.webClient.post()
+        Flux<String> events = ApiUtils.withTimeouts(this.webClient.obtain().post()
                 .uri("/v4/chat/completions")
                 .body(Mono.just(chatRequest), ChatCompletionRequest.class)
                 .retrieve()
-                .bodyToFlux(String.class)
+                .bodyToFlux(String.class), this.timeouts);
+
+        return events
                 .takeUntil(SSE_DONE_PREDICATE)
                 .filter(SSE_DONE_PREDICATE.negate())
                 .map(content -> ModelOptionsUtils.jsonToObject(content, ChatCompletionChunk.class))
@@ -552,6 +666,27 @@ public class ZhipuAiApi {
                 .flatMap(mono -> mono);
     }
 
+    /**
+     * Creates a streaming chat response for the given chat conversation, as the raw server-sent events of
+     * the API: the buffers are neither decoded nor parsed, so that they can be relayed as they are with
+     * {@link org.springframework.ai.zhipuai.support.ZhipuAiSseRelay}. Tool calls are not merged.
+     * @param chatRequest The chat completion request. Must have the stream property set
+     * to true.
+     * @return Returns a {@link Flux} of the response body buffers, to be released by the subscriber.
+     */
+    public Flux<DataBuffer> chatCompletionStreamRaw(ChatCompletionRequest chatRequest) {
+
+        Assert.notNull(chatRequest, "The request body can not be null.");
+        Assert.isTrue(chatRequest.stream(), "Request must set the steam property to true.");
+
+        return ApiUtils.withTimeouts(this.webClient.obtain().post()
+                .uri("/v4/chat/completions")
+                .body(Mono.just(chatRequest), ChatCompletionRequest.class)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, ApiUtils::toAiException)
+                .bodyToFlux(DataBuffer.class), this.timeouts);
+    }
+
     // --------------------------------------------------------------------------
     // Embeddings
     // --------------------------------------------------------------------------
@@ -622,6 +757,31 @@ public class ZhipuAiApi {
         }
     }
 
+    /**
+     * Creates embedding vectors representing the input texts, in a single request.
+     *
+     * @param input Input texts to embed, at most {@link #MAX_INPUTS} texts per request.
+     * @param model ID of the model to use.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchEmbeddingRequest(
+            @JsonProperty("input") List<String> input,
+            @JsonProperty("model") String model) {
+
+        /**
+         * Maximum number of texts the endpoint accepts in a single request.
+         */
+        public static final int MAX_INPUTS = 64;
+
+        /**
+         * Create a batch embedding request with the given input and the default embedding model.
+         * @param input Input texts to embed.
+         */
+        public BatchEmbeddingRequest(List<String> input) {
+            this(input, ZhipuAiApi.EmbeddingModel.EMBED.getValue());
+        }
+    }
+
     /**
      * List of multiple embedding responses.
      *
@@ -698,13 +858,81 @@ public class ZhipuAiApi {
         // request, pass an array of strings or array of token arrays.
         Assert.notNull(embeddingRequest.input(), "The input can not be null.");
 
-        return this.restClient.post()
+        return ApiUtils.withTimeouts(() -> this.restClient.post()
+                .uri("/v4/embeddings")
+                .body(embeddingRequest)
+                .retrieve()
+                .onStatus(RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER)
+                .toEntity(new ParameterizedTypeReference<EmbeddingList<Embedding>>() {
+                }), this.timeouts);
+    }
+
+    /**
+     * Creates an embedding vector representing the input text. Reactive variant of
+     * {@link #embeddings(EmbeddingRequest)} backed by the {@link WebClient}.
+     * @param embeddingRequest The embedding request.
+     * @return {@link Mono} of the list of {@link ZhipuAiApi.Embedding} wrapped in {@link ZhipuAiApi.EmbeddingList}.
+     */
+    public Mono<ResponseEntity<EmbeddingList<Embedding>>> asyncEmbeddings(EmbeddingRequest embeddingRequest) {
+
+        Assert.notNull(embeddingRequest, "The request body can not be null.");
+        Assert.notNull(embeddingRequest.input(), "The input can not be null.");
+
+        return ApiUtils.withTimeouts(this.webClient.obtain().post()
+                .uri("/v4/embeddings")
+                .body(Mono.just(embeddingRequest), EmbeddingRequest.class)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, ApiUtils::toAiException)
+                .toEntity(new ParameterizedTypeReference<EmbeddingList<Embedding>>() {
+                }), this.timeouts);
+    }
+
+    /**
+     * Creates embedding vectors representing the input texts in a single request.
+     * @param embeddingRequest The batch embedding request.
+     * @return Returns list of {@link ZhipuAiApi.Embedding} wrapped in {@link ZhipuAiApi.EmbeddingList},
+     * one per input text.
+     */
+    public ResponseEntity<EmbeddingList<Embedding>> embeddings(BatchEmbeddingRequest embeddingRequest) {
+
+        Assert.notNull(embeddingRequest, "The request body can not be null.");
+        Assert.notEmpty(embeddingRequest.input(), "The input can not be empty.");
+
+        return ApiUtils.withTimeouts(() -> this.restClient.post()
                 .uri("/v4/embeddings")
                 .body(embeddingRequest)
                 .retrieve()
                 .onStatus(RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER)
-                .toEntity(new ParameterizedTypeReference<>() {
-                });
+                .toEntity(new ParameterizedTypeReference<EmbeddingList<Embedding>>() {
+                }), this.timeouts);
+    }
+
+    // --------------------------------------------------------------------------
+    // Warm-up
+    // --------------------------------------------------------------------------
+
+    /**
+     * Open, or keep alive, a pooled connection to the base url on the blocking HTTP stack. The response
+     * status is ignored, only the DNS, TCP and TLS setup matters.
+     */
+    public void warmUp() {
+        this.restClient.head()
+                .uri("/")
+                .exchange((request, response) -> response.getStatusCode());
+    }
+
+    /**
+     * Open, or keep alive, up to {@code connections} pooled connections to the base url on the reactive
+     * HTTP stack used by the streaming calls.
+     * @param connections the number of concurrent requests.
+     * @return completes when all the requests are answered.
+     */
+    public Mono<Void> warmUpStreaming(int connections) {
+        return Flux.range(0, connections)
+                .flatMap(i -> this.webClient.obtain().head()
+                        .uri("/")
+                        .exchangeToMono(ClientResponse::releaseBody), connections)
+                .then();
     }
 
 }
@@ -12,6 +12,7 @@ import org.springframework.ai.model.function.FunctionCallingOptions;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.util.Assert;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -99,6 +100,19 @@ public class ZhipuAiChatOptions implements FunctionCallingOptions, ChatOptions {
     @JsonIgnore
     private Set<String> functions = new HashSet<>();
 
+    /**
+     * Chat memory session of the prompt: its history is prepended to the messages of the request and the
+     * completed turn is appended to it. Only used when the ChatClient has a chat memory, never sent to the API.
+     */
+    @JsonIgnore
+    private String sessionId;
+
+    /**
+     * Budget of a call, shared by its retries, tool executions and follow-up requests. Never sent to the API.
+     */
+    @JsonIgnore
+    private Duration deadline;
+
     @Override
     public List<FunctionCallback> getFunctionCallbacks() {
         return this.functionCallbacks;
@@ -189,6 +203,16 @@ public class ZhipuAiChatOptions implements FunctionCallingOptions, ChatOptions {
             return this;
         }
 
+        public Builder withSessionId(String sessionId) {
+            this.options.setSessionId(sessionId);
+            return this;
+        }
+
+        public Builder withDeadline(Duration deadline) {
+            this.options.setDeadline(deadline);
+            return this;
+        }
+
         public ZhipuAiChatOptions build() {
             return this.options;
         }
@@ -264,6 +288,22 @@ public class ZhipuAiChatOptions implements FunctionCallingOptions, ChatOptions {
         return model;
     }
 
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Duration deadline) {
+        this.deadline = deadline;
+    }
+
     public List<ZhipuAiApi.FunctionTool> getTools() {
         return tools;
     }
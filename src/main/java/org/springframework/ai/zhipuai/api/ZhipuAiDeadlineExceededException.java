@@ -0,0 +1,31 @@
+package org.springframework.ai.zhipuai.api;
+
+import org.springframework.ai.retry.NonTransientAiException;
+
+import java.time.Duration;
+
+/**
+ * A call exceeded its deadline, see {@link ZhipuAiTimeouts#deadline()}. Unlike the other
+ * {@link ZhipuAiTimeoutException timeouts} it is not transient: a retry would start past the deadline.
+ */
+public class ZhipuAiDeadlineExceededException extends NonTransientAiException {
+
+    private final Duration deadline;
+
+    public ZhipuAiDeadlineExceededException(Duration deadline) {
+        this(deadline, null);
+    }
+
+    public ZhipuAiDeadlineExceededException(Duration deadline, Throwable cause) {
+        super("ZhipuAI deadline" + ((deadline != null) ? " of " + deadline.toMillis() + "ms" : "") + " exceeded", cause);
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return the exceeded deadline, as a budget from the start of the call.
+     */
+    public Duration getDeadline() {
+        return this.deadline;
+    }
+
+}
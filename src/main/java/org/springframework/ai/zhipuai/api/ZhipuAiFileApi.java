@@ -19,6 +19,8 @@ public class ZhipuAiFileApi {
 
     private final RestClient restClient;
 
+    private final ZhipuAiTimeouts timeouts;
+
     /**
      * Create a new ZhipuAI File api with base URL set to https://api.moonshot.cn
      * @param apiKey ZhipuAI apiKey.
@@ -46,11 +48,27 @@ public class ZhipuAiFileApi {
      */
     public ZhipuAiFileApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
                           ResponseErrorHandler responseErrorHandler) {
+        this(baseUrl, apiKey, restClientBuilder, responseErrorHandler, ZhipuAiTimeouts.NONE);
+    }
+
+    /**
+     * Create a new ZhipuAI File API with the provided base URL.
+     * @param baseUrl the base URL for the ZhipuAI API.
+     * @param apiKey ZhipuAI apiKey.
+     * @param restClientBuilder the rest client builder to use, whose request factory enforces the timeouts.
+     * @param responseErrorHandler the response error handler to use.
+     * @param timeouts the timeouts of the request factory, to report them in the
+     * {@link ZhipuAiTimeoutException}s, and the deadline of the calls.
+     */
+    public ZhipuAiFileApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
+                          ResponseErrorHandler responseErrorHandler, ZhipuAiTimeouts timeouts) {
 
         this.restClient = restClientBuilder.baseUrl(baseUrl)
                 .defaultHeaders(ApiUtils.getJsonContentHeaders(apiKey))
                 .defaultStatusHandler(responseErrorHandler)
+                .requestInterceptor(ApiUtils.timeoutInterceptor(timeouts))
                 .build();
+        this.timeouts = timeouts;
     }
 
     // @formatter:off
@@ -90,10 +108,10 @@ public class ZhipuAiFileApi {
      * @return
      */
     public ResponseEntity<ZhipuAiFileResponse> listFile() {
-        return this.restClient.get()
+        return ApiUtils.withTimeouts(() -> this.restClient.get()
                 .uri("/v4/files")
                 .retrieve()
-                .toEntity(ZhipuAiFileResponse.class);
+                .toEntity(ZhipuAiFileResponse.class), this.timeouts);
     }
 
     /**
@@ -125,11 +143,11 @@ public class ZhipuAiFileApi {
 
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
 
-        return this.restClient.post()
+        return ApiUtils.withTimeouts(() -> this.restClient.post()
                 .uri("/v4/files")
                 .body(requestEntity)
                 .retrieve()
-                .toEntity(ZhipuAiFileResponse.Data.class);
+                .toEntity(ZhipuAiFileResponse.Data.class), this.timeouts);
     }
 
 }
@@ -17,6 +17,8 @@ public class ZhipuAiImageApi {
 
     private final RestClient restClient;
 
+    private final ZhipuAiTimeouts timeouts;
+
     /**
      * Create a new ZhipuAI Image api with base URL set to https://api.moonshot.cn
      * @param apiKey ZhipuAI apiKey.
@@ -44,11 +46,27 @@ public class ZhipuAiImageApi {
      */
     public ZhipuAiImageApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
                            ResponseErrorHandler responseErrorHandler) {
+        this(baseUrl, apiKey, restClientBuilder, responseErrorHandler, ZhipuAiTimeouts.NONE);
+    }
+
+    /**
+     * Create a new ZhipuAI Image API with the provided base URL.
+     * @param baseUrl the base URL for the ZhipuAI API.
+     * @param apiKey ZhipuAI apiKey.
+     * @param restClientBuilder the rest client builder to use, whose request factory enforces the timeouts.
+     * @param responseErrorHandler the response error handler to use.
+     * @param timeouts the timeouts of the request factory, to report them in the
+     * {@link ZhipuAiTimeoutException}s, and the deadline of the calls.
+     */
+    public ZhipuAiImageApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
+                           ResponseErrorHandler responseErrorHandler, ZhipuAiTimeouts timeouts) {
 
         this.restClient = restClientBuilder.baseUrl(baseUrl)
                 .defaultHeaders(ApiUtils.getJsonContentHeaders(apiKey))
                 .defaultStatusHandler(responseErrorHandler)
+                .requestInterceptor(ApiUtils.timeoutInterceptor(timeouts))
                 .build();
+        this.timeouts = timeouts;
     }
 
     /**
@@ -109,11 +127,11 @@ public class ZhipuAiImageApi {
         Assert.notNull(imageRequest, "Image request cannot be null.");
         Assert.hasLength(imageRequest.prompt(), "Prompt cannot be empty.");
 
-        return this.restClient.post()
+        return ApiUtils.withTimeouts(() -> this.restClient.post()
                 .uri("/v4/images/generations")
                 .body(imageRequest)
                 .retrieve()
-                .toEntity(ZhipuAiImageResponse.class);
+                .toEntity(ZhipuAiImageResponse.class), this.timeouts);
     }
 
 }
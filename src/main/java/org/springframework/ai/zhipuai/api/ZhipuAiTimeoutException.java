@@ -0,0 +1,46 @@
+package org.springframework.ai.zhipuai.api;
+
+import org.springframework.ai.retry.TransientAiException;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * A call exceeded one of its {@link ZhipuAiTimeouts}. It is transient, so retried by the default retry
+ * templates. The deadline is reported by a {@link ZhipuAiDeadlineExceededException} instead, which is not.
+ */
+public class ZhipuAiTimeoutException extends TransientAiException {
+
+    public enum Kind {
+
+        CONNECT, RESPONSE, FIRST_TOKEN, IDLE
+
+    }
+
+    private final Kind kind;
+
+    private final Duration timeout;
+
+    public ZhipuAiTimeoutException(Kind kind, Duration timeout) {
+        this(kind, timeout, null);
+    }
+
+    public ZhipuAiTimeoutException(Kind kind, Duration timeout, Throwable cause) {
+        super("ZhipuAI " + kind.name().toLowerCase(Locale.ROOT).replace('_', ' ') + " timeout"
+                + ((timeout != null) ? " of " + timeout.toMillis() + "ms" : "") + " exceeded", cause);
+        this.kind = kind;
+        this.timeout = timeout;
+    }
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * @return the exceeded timeout, null when the timeout of the HTTP stack is not known.
+     */
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+}
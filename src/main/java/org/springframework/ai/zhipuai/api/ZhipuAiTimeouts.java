@@ -0,0 +1,85 @@
+package org.springframework.ai.zhipuai.api;
+
+import java.time.Duration;
+
+/**
+ * Timeouts of the calls of an API client, a null timeout is not enforced.
+ * <ul>
+ * <li>{@code connect}: establishing a connection;</li>
+ * <li>{@code response}: maximum time between two reads of the response on the connection;</li>
+ * <li>{@code firstToken}: from the subscription of a stream to its first chunk;</li>
+ * <li>{@code idle}: between two chunks of a stream;</li>
+ * <li>{@code deadline}: the whole call, from the request to the last byte of the response. Exceeding it
+ * fails the call with a {@link ZhipuAiDeadlineExceededException}, which is not retried.</li>
+ * </ul>
+ *
+ * @param connect the connect timeout.
+ * @param response the response timeout.
+ * @param firstToken the time to first token of the streams.
+ * @param idle the maximum time between two chunks of the streams.
+ * @param deadline the maximum duration of a call.
+ */
+public record ZhipuAiTimeouts(Duration connect, Duration response, Duration firstToken, Duration idle,
+                              Duration deadline) {
+
+    public static final ZhipuAiTimeouts NONE = new ZhipuAiTimeouts(null, null, null, null, null);
+
+    /**
+     * @return the read timeout of the blocking calls, the shortest of the response timeout and the deadline,
+     * so that the thread of a blocking call given up at its deadline is released soon after.
+     */
+    public Duration getReadTimeout() {
+        if (this.response == null || this.deadline == null) {
+            return (this.response != null) ? this.response : this.deadline;
+        }
+        return (this.response.compareTo(this.deadline) <= 0) ? this.response : this.deadline;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private Duration connect;
+
+        private Duration response;
+
+        private Duration firstToken;
+
+        private Duration idle;
+
+        private Duration deadline;
+
+        public Builder withConnect(Duration connect) {
+            this.connect = connect;
+            return this;
+        }
+
+        public Builder withResponse(Duration response) {
+            this.response = response;
+            return this;
+        }
+
+        public Builder withFirstToken(Duration firstToken) {
+            this.firstToken = firstToken;
+            return this;
+        }
+
+        public Builder withIdle(Duration idle) {
+            this.idle = idle;
+            return this;
+        }
+
+        public Builder withDeadline(Duration deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        public ZhipuAiTimeouts build() {
+            return new ZhipuAiTimeouts(this.connect, this.response, this.firstToken, this.idle, this.deadline);
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.springframework.ai.zhipuai.autoconfigure;
+
+import org.springframework.ai.zhipuai.ZhipuAiChatClient;
+import org.springframework.ai.zhipuai.ZhipuAiEmbeddingClient;
+import org.springframework.ai.zhipuai.actuate.ZhipuAiConnectionHealthIndicator;
+import org.springframework.ai.zhipuai.actuate.ZhipuAiEndpoint;
+import org.springframework.ai.zhipuai.support.ZhipuAiConnectionWarmer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * {@link AutoConfiguration Auto-configuration} for the 智普AI actuator support, only applied when
+ * spring-boot-actuator is on the classpath.
+ */
+@AutoConfiguration(after = ZhipuAiAutoConfiguration.class)
+@ConditionalOnClass(HealthIndicator.class)
+public class ZhipuAiActuatorAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(name = "zhipuaiHealthIndicator")
+    @ConditionalOnProperty(prefix = "management.health.zhipuai", name = "enabled", havingValue = "true")
+    public ZhipuAiConnectionHealthIndicator zhipuaiHealthIndicator(ZhipuAiConnectionProperties connectionProperties,
+                                                                   ZhipuAiChatProperties chatProperties,
+                                                                   ZhipuAiEmbeddingProperties embeddingProperties,
+                                                                   ZhipuAiImageProperties imageProperties,
+                                                                   @Value("${management.health.zhipuai.timeout:2s}") Duration timeout,
+                                                                   @Value("${management.health.zhipuai.ttl:30s}") Duration ttl) {
+        Set<String> baseUrls = new LinkedHashSet<>();
+        Stream.of(connectionProperties.getBaseUrl(), chatProperties.getBaseUrl(), embeddingProperties.getBaseUrl(),
+                        imageProperties.getBaseUrl())
+                .filter(StringUtils::hasText)
+                .forEach(baseUrls::add);
+        return new ZhipuAiConnectionHealthIndicator(baseUrls, timeout, ttl);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ZhipuAiEndpoint zhipuAiEndpoint(ObjectProvider<ZhipuAiChatClient> chatClient,
+                                           ObjectProvider<ZhipuAiEmbeddingClient> embeddingClient,
+                                           ObjectProvider<ZhipuAiConnectionWarmer> connectionWarmer) {
+        return new ZhipuAiEndpoint(chatClient, embeddingClient, connectionWarmer);
+    }
+
+}
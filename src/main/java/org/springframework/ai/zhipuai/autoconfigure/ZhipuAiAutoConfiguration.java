@@ -10,23 +10,45 @@ import org.springframework.ai.zhipuai.ZhipuAiImageClient;
 import org.springframework.ai.zhipuai.api.ZhipuAiApi;
 import org.springframework.ai.zhipuai.api.ZhipuAiFileApi;
 import org.springframework.ai.zhipuai.api.ZhipuAiImageApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiTimeouts;
+import org.springframework.ai.zhipuai.memory.ZhipuAiChatMemory;
+import org.springframework.ai.zhipuai.memory.ZhipuAiInMemoryChatMemory;
+import org.springframework.ai.zhipuai.memory.ZhipuAiMappedChatMemory;
+import org.springframework.ai.zhipuai.memory.ZhipuAiSummarizingChatMemory;
+import org.springframework.ai.zhipuai.support.ZhipuAiConnectionWarmer;
+import org.springframework.ai.zhipuai.support.ZhipuAiDeadlineRequestFactory;
+import org.springframework.ai.zhipuai.support.ZhipuAiEmbeddingBatcher;
+import org.springframework.ai.zhipuai.support.ZhipuAiHedgingExecutor;
+import org.springframework.ai.zhipuai.support.ZhipuAiSingleFlight;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamBuffer;
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamSessions;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.client.RestClientAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
-import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.List;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
 
 /**
  * {@link AutoConfiguration Auto-configuration} for 智普AI Chat Client.
@@ -36,74 +58,215 @@ import java.util.List;
 @ConditionalOnClass(ZhipuAiApi.class)
 public class ZhipuAiAutoConfiguration {
 
+    /**
+     * JDK {@link HttpClient} of the blocking calls, shared by the clients using the connect timeout of
+     * {@code spring.ai.zhipuai.timeouts}.
+     */
+    @Bean
+    @Lazy
+    @ConditionalOnMissingBean(name = "zhipuAiHttpClient")
+    public HttpClient zhipuAiHttpClient(ZhipuAiConnectionProperties connectionProperties) {
+        return httpClient(connectionProperties, connectTimeout(connectionProperties));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "zhipuAiChatApi")
+    @ConditionalOnProperty(prefix = ZhipuAiChatProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
+    public ZhipuAiApi zhipuAiChatApi(ZhipuAiConnectionProperties connectionProperties,
+                                     ZhipuAiChatProperties chatProperties,
+                                     RestClient.Builder restClientBuilder,
+                                     ResponseErrorHandler responseErrorHandler,
+                                     @Qualifier("zhipuAiHttpClient") ObjectProvider<HttpClient> httpClient) {
+
+        String baseUrl = StringUtils.hasText(chatProperties.getBaseUrl()) ? chatProperties.getBaseUrl() : connectionProperties.getBaseUrl();
+        String apiKey = StringUtils.hasText(chatProperties.getApiKey()) ? chatProperties.getApiKey() : connectionProperties.getApiKey();
+        ZhipuAiTimeouts timeouts = chatProperties.getTimeouts().toTimeouts(connectionProperties.getTimeouts());
+        return this.zhipuAiApi(baseUrl, apiKey, restClientBuilder, httpClient, connectionProperties, responseErrorHandler, timeouts);
+    }
+
+    /**
+     * API the hedged chat requests are sent to, with its own connection pool.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "zhipuAiChatHedgingApi")
+    @ConditionalOnExpression("${" + ZhipuAiChatProperties.CONFIG_PREFIX + ".enabled:false} and ${"
+            + ZhipuAiChatProperties.CONFIG_PREFIX + ".hedging.enabled:false}")
+    public ZhipuAiApi zhipuAiChatHedgingApi(ZhipuAiConnectionProperties connectionProperties,
+                                            ZhipuAiChatProperties chatProperties,
+                                            RestClient.Builder restClientBuilder,
+                                            ResponseErrorHandler responseErrorHandler,
+                                            @Qualifier("zhipuAiHttpClient") ObjectProvider<HttpClient> httpClient) {
+
+        ZhipuAiHedgingProperties hedging = chatProperties.getHedging();
+        String baseUrl = StringUtils.hasText(hedging.getBaseUrl()) ? hedging.getBaseUrl()
+                : StringUtils.hasText(chatProperties.getBaseUrl()) ? chatProperties.getBaseUrl() : connectionProperties.getBaseUrl();
+        String apiKey = StringUtils.hasText(hedging.getApiKey()) ? hedging.getApiKey()
+                : StringUtils.hasText(chatProperties.getApiKey()) ? chatProperties.getApiKey() : connectionProperties.getApiKey();
+        ZhipuAiTimeouts timeouts = chatProperties.getTimeouts().toTimeouts(connectionProperties.getTimeouts());
+        return this.zhipuAiApi(baseUrl, apiKey, restClientBuilder, httpClient, connectionProperties, responseErrorHandler, timeouts);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = ZhipuAiChatProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
     public ZhipuAiChatClient zhipuAiChatClient(ZhipuAiConnectionProperties connectionProperties,
                                                ZhipuAiChatProperties chatProperties,
-                                               List<FunctionCallback> toolFunctionCallbacks,
+                                               @Qualifier("zhipuAiChatApi") ZhipuAiApi zhipuAiApi,
+                                               @Qualifier("zhipuAiChatHedgingApi") ObjectProvider<ZhipuAiApi> hedgingApi,
+                                               ObjectProvider<FunctionCallback> toolFunctionCallbacks,
                                                FunctionCallbackContext functionCallbackContext,
-                                               RestClient.Builder restClientBuilder,
-                                               ResponseErrorHandler responseErrorHandler,
-                                               ObjectProvider<RetryTemplate> retryTemplateProvider) {
-        if (!CollectionUtils.isEmpty(toolFunctionCallbacks)) {
-            chatProperties.getOptions().getFunctionCallbacks().addAll(toolFunctionCallbacks);
-        }
+                                               ObjectProvider<RetryTemplate> retryTemplateProvider,
+                                               ObjectProvider<ZhipuAiChatMemory> chatMemory,
+                                               ObjectProvider<ZhipuAiStreamSessions> streamSessions) {
 
-        String baseUrl = StringUtils.hasText(chatProperties.getBaseUrl()) ? chatProperties.getBaseUrl() : connectionProperties.getBaseUrl();
-        String apiKey = StringUtils.hasText(chatProperties.getApiKey()) ? chatProperties.getApiKey() : connectionProperties.getApiKey();
-        Assert.hasText(baseUrl, "ZhipuAI base URL must be set");
-        Assert.hasText(apiKey, "ZhipuAI API key must be set");
+        RetryTemplate retryTemplate = retryTemplateProvider.getIfAvailable(() -> RetryTemplate.builder().build());
+        ZhipuAiChatClient chatClient = new ZhipuAiChatClient(zhipuAiApi, chatProperties.getOptions(), functionCallbackContext, retryTemplate);
+        // 工具函数 Bean 在首次需要时才创建
+        chatClient.setFunctionCallbackProvider(() -> toolFunctionCallbacks.orderedStream().toList());
+        if (connectionProperties.getVirtualThreads().isEnabled()) {
+            chatClient.setToolScheduler(Schedulers.fromExecutor(new VirtualThreadTaskExecutor("zhipuai-tool-")));
+        }
+        ZhipuAiHedgingProperties hedging = chatProperties.getHedging();
+        if (hedging.isEnabled()) {
+            chatClient.setHedging(this.hedgingExecutor(hedging), hedgingApi.getObject());
+        }
+        if (chatProperties.isCoalesceRequests()) {
+            chatClient.setSingleFlight(new ZhipuAiSingleFlight());
+        }
+        ZhipuAiStreamBufferProperties streamBuffer = chatProperties.getStreamBuffer();
+        if (streamBuffer.isEnabled()) {
+            chatClient.setStreamBuffer(new ZhipuAiStreamBuffer(streamBuffer.getCapacity(), streamBuffer.getOverflow()));
+        }
+        chatMemory.ifAvailable(memory -> chatClient.setChatMemory(
+                this.summarizingChatMemory(memory, chatProperties.getMemory().getSummarization(), zhipuAiApi, connectionProperties)));
+        streamSessions.ifAvailable(chatClient::setStreamSessions);
+        return chatClient;
+    }
 
-        ZhipuAiApi zhipuAiApi = new ZhipuAiApi(baseUrl, apiKey, restClientBuilder, responseErrorHandler);
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = ZhipuAiChatProperties.CONFIG_PREFIX + ".resumable-streams", name = "enabled", havingValue = "true")
+    public ZhipuAiStreamSessions zhipuAiStreamSessions(ZhipuAiChatProperties chatProperties) {
+        ZhipuAiResumableStreamProperties resumableStreams = chatProperties.getResumableStreams();
+        return new ZhipuAiStreamSessions(resumableStreams.getMaxSessions(), resumableStreams.getMaxEvents(),
+                resumableStreams.getGracePeriod(), resumableStreams.getTtl());
+    }
 
-        RetryTemplate retryTemplate = retryTemplateProvider.getIfAvailable(() -> RetryTemplate.builder().build());
-        return new ZhipuAiChatClient(zhipuAiApi, chatProperties.getOptions(), functionCallbackContext, retryTemplate);
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = ZhipuAiChatProperties.CONFIG_PREFIX + ".memory", name = "enabled", havingValue = "true")
+    public ZhipuAiChatMemory zhipuAiChatMemory(ZhipuAiChatProperties chatProperties) throws IOException {
+        ZhipuAiChatMemoryProperties memory = chatProperties.getMemory();
+        if (memory.getStore() == ZhipuAiChatMemoryProperties.Store.MAPPED) {
+            Path path;
+            if (StringUtils.hasText(memory.getPath())) {
+                path = Path.of(memory.getPath());
+            }
+            else {
+                path = Files.createTempFile("zhipuai-chat-memory", ".dat");
+                path.toFile().deleteOnExit();
+            }
+            return new ZhipuAiMappedChatMemory(path, memory.getMaxSessions(), (int) memory.getSlotSize().toBytes(),
+                    memory.getMaxMessages(), memory.getMaxTokens());
+        }
+        return new ZhipuAiInMemoryChatMemory(memory.getMaxSessions(), memory.getMaxMessages(), memory.getMaxTokens(),
+                memory.getIdleTimeout());
     }
 
     @Bean
+    @Lazy
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = ZhipuAiChatProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
     public ZhipuAiFileClient zhipuAiFileClient(ZhipuAiConnectionProperties connectionProperties,
                                                RestClient.Builder restClientBuilder,
                                                ResponseErrorHandler responseErrorHandler,
+                                               @Qualifier("zhipuAiHttpClient") ObjectProvider<HttpClient> httpClient,
                                                ObjectProvider<RetryTemplate> retryTemplateProvider) {
 
         Assert.hasText(connectionProperties.getBaseUrl(), "ZhipuAI base URL must be set");
         Assert.hasText(connectionProperties.getApiKey(), "ZhipuAI API key must be set");
 
-        ZhipuAiFileApi zhipuAiFileApi = new ZhipuAiFileApi(connectionProperties.getBaseUrl(), connectionProperties.getApiKey(), restClientBuilder, responseErrorHandler);
+        ZhipuAiTimeouts timeouts = connectionProperties.getTimeouts().toTimeouts(connectionProperties.getTimeouts());
+        ZhipuAiFileApi zhipuAiFileApi = new ZhipuAiFileApi(connectionProperties.getBaseUrl(), connectionProperties.getApiKey(),
+                this.configure(restClientBuilder, httpClient, connectionProperties, timeouts), responseErrorHandler, timeouts);
         RetryTemplate retryTemplate = retryTemplateProvider.getIfAvailable(() -> RetryTemplate.builder().build());
         return new ZhipuAiFileClient(zhipuAiFileApi, retryTemplate);
     }
 
     @Bean
-    @ConditionalOnMissingBean
+    @ConditionalOnMissingBean(name = "zhipuAiEmbeddingApi")
     @ConditionalOnProperty(prefix = ZhipuAiEmbeddingProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
-    public ZhipuAiEmbeddingClient zhipuAiEmbeddingClient(ZhipuAiConnectionProperties connectionProperties,
-                                                         ZhipuAiEmbeddingProperties embeddingProperties,
-                                                         RestClient.Builder restClientBuilder,
-                                                         ResponseErrorHandler responseErrorHandler,
-                                                         ObjectProvider<RetryTemplate> retryTemplateProvider) {
+    public ZhipuAiApi zhipuAiEmbeddingApi(ZhipuAiConnectionProperties connectionProperties,
+                                          ZhipuAiEmbeddingProperties embeddingProperties,
+                                          RestClient.Builder restClientBuilder,
+                                          ResponseErrorHandler responseErrorHandler,
+                                          @Qualifier("zhipuAiHttpClient") ObjectProvider<HttpClient> httpClient) {
 
         String baseUrl = StringUtils.hasText(embeddingProperties.getBaseUrl()) ? embeddingProperties.getBaseUrl() : connectionProperties.getBaseUrl();
         String apiKey = StringUtils.hasText(embeddingProperties.getApiKey()) ? embeddingProperties.getApiKey() : connectionProperties.getApiKey();
-        Assert.hasText(baseUrl, "ZhipuAI base URL must be set");
-        Assert.hasText(apiKey, "ZhipuAI API key must be set");
+        ZhipuAiTimeouts timeouts = embeddingProperties.getTimeouts().toTimeouts(connectionProperties.getTimeouts());
+        return this.zhipuAiApi(baseUrl, apiKey, restClientBuilder, httpClient, connectionProperties, responseErrorHandler, timeouts);
+    }
+
+    /**
+     * API the hedged embedding requests are sent to, with its own connection pool.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "zhipuAiEmbeddingHedgingApi")
+    @ConditionalOnExpression("${" + ZhipuAiEmbeddingProperties.CONFIG_PREFIX + ".enabled:false} and ${"
+            + ZhipuAiEmbeddingProperties.CONFIG_PREFIX + ".hedging.enabled:false}")
+    public ZhipuAiApi zhipuAiEmbeddingHedgingApi(ZhipuAiConnectionProperties connectionProperties,
+                                                 ZhipuAiEmbeddingProperties embeddingProperties,
+                                                 RestClient.Builder restClientBuilder,
+                                                 ResponseErrorHandler responseErrorHandler,
+                                                 @Qualifier("zhipuAiHttpClient") ObjectProvider<HttpClient> httpClient) {
 
-        ZhipuAiApi zhipuAiApi = new ZhipuAiApi(baseUrl, apiKey, restClientBuilder, responseErrorHandler);
+        ZhipuAiHedgingProperties hedging = embeddingProperties.getHedging();
+        String baseUrl = StringUtils.hasText(hedging.getBaseUrl()) ? hedging.getBaseUrl()
+                : StringUtils.hasText(embeddingProperties.getBaseUrl()) ? embeddingProperties.getBaseUrl() : connectionProperties.getBaseUrl();
+        String apiKey = StringUtils.hasText(hedging.getApiKey()) ? hedging.getApiKey()
+                : StringUtils.hasText(embeddingProperties.getApiKey()) ? embeddingProperties.getApiKey() : connectionProperties.getApiKey();
+        ZhipuAiTimeouts timeouts = embeddingProperties.getTimeouts().toTimeouts(connectionProperties.getTimeouts());
+        return this.zhipuAiApi(baseUrl, apiKey, restClientBuilder, httpClient, connectionProperties, responseErrorHandler, timeouts);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = ZhipuAiEmbeddingProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
+    public ZhipuAiEmbeddingClient zhipuAiEmbeddingClient(ZhipuAiConnectionProperties connectionProperties,
+                                                         ZhipuAiEmbeddingProperties embeddingProperties,
+                                                         @Qualifier("zhipuAiEmbeddingApi") ZhipuAiApi zhipuAiApi,
+                                                         @Qualifier("zhipuAiEmbeddingHedgingApi") ObjectProvider<ZhipuAiApi> hedgingApi,
+                                                         ObjectProvider<RetryTemplate> retryTemplateProvider) {
 
         RetryTemplate retryTemplate = retryTemplateProvider.getIfAvailable(() -> RetryTemplate.builder().build());
-        return new ZhipuAiEmbeddingClient(zhipuAiApi, embeddingProperties.getMetadataMode(), embeddingProperties.getOptions(), retryTemplate);
+        ZhipuAiEmbeddingClient embeddingClient = new ZhipuAiEmbeddingClient(zhipuAiApi, embeddingProperties.getMetadataMode(), embeddingProperties.getOptions(), retryTemplate);
+        ZhipuAiHedgingProperties hedging = embeddingProperties.getHedging();
+        if (hedging.isEnabled()) {
+            embeddingClient.setHedging(this.hedgingExecutor(hedging), hedgingApi.getObject());
+        }
+        if (embeddingProperties.isCoalesceRequests()) {
+            embeddingClient.setSingleFlight(new ZhipuAiSingleFlight());
+        }
+        ZhipuAiEmbeddingProperties.Batching batching = embeddingProperties.getBatching();
+        if (batching.isEnabled()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("zhipuai-embedding-batch-");
+            executor.setVirtualThreads(connectionProperties.getVirtualThreads().isEnabled());
+            embeddingClient.setBatcher(new ZhipuAiEmbeddingBatcher(embeddingClient::batchEmbed, batching.getMaxBatchSize(),
+                    batching.getLinger(), batching.getMaxInFlightBatches(), executor));
+        }
+        return embeddingClient;
     }
 
     @Bean
+    @Lazy
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = ZhipuAiImageProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
     public ZhipuAiImageClient zhipuAiImageClient(ZhipuAiConnectionProperties connectionProperties,
                                                  ZhipuAiImageProperties imageProperties,
                                                  RestClient.Builder restClientBuilder,
                                                  ResponseErrorHandler responseErrorHandler,
+                                                 @Qualifier("zhipuAiHttpClient") ObjectProvider<HttpClient> httpClient,
                                                  ObjectProvider<RetryTemplate> retryTemplateProvider) {
 
         String baseUrl = StringUtils.hasText(imageProperties.getBaseUrl()) ? imageProperties.getBaseUrl() : connectionProperties.getBaseUrl();
@@ -111,12 +274,27 @@ public class ZhipuAiAutoConfiguration {
         Assert.hasText(baseUrl, "ZhipuAI base URL must be set");
         Assert.hasText(apiKey, "ZhipuAI API key must be set");
 
-        ZhipuAiImageApi zhipuAiImageApi = new ZhipuAiImageApi(baseUrl, apiKey, restClientBuilder, responseErrorHandler);
+        ZhipuAiTimeouts timeouts = imageProperties.getTimeouts().toTimeouts(connectionProperties.getTimeouts());
+        ZhipuAiImageApi zhipuAiImageApi = new ZhipuAiImageApi(baseUrl, apiKey, this.configure(restClientBuilder, httpClient, connectionProperties, timeouts),
+                responseErrorHandler, timeouts);
 
         RetryTemplate retryTemplate = retryTemplateProvider.getIfAvailable(() -> RetryTemplate.builder().build());
         return new ZhipuAiImageClient(zhipuAiImageApi, imageProperties.getOptions(), retryTemplate);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = ZhipuAiConnectionProperties.CONFIG_PREFIX + ".warm-up", name = "enabled", havingValue = "true")
+    public ZhipuAiConnectionWarmer zhipuAiConnectionWarmer(ZhipuAiConnectionProperties connectionProperties,
+                                                           ObjectProvider<ZhipuAiApi> zhipuAiApis) {
+        ZhipuAiConnectionProperties.WarmUp warmUp = connectionProperties.getWarmUp();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("zhipuai-warm-up-");
+        executor.setVirtualThreads(connectionProperties.getVirtualThreads().isEnabled());
+        // 在生命周期启动时解析，此时 Chat 与 Embedding 客户端已创建
+        return new ZhipuAiConnectionWarmer(() -> zhipuAiApis.orderedStream().toList(), warmUp.getConnections(),
+                warmUp.isStreaming(), warmUp.getTimeout(), warmUp.getKeepAliveInterval(), executor);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public FunctionCallbackContext springAiFunctionManager(ApplicationContext context) {
@@ -125,4 +303,58 @@ public class ZhipuAiAutoConfiguration {
         return manager;
     }
 
+    private ZhipuAiChatMemory summarizingChatMemory(ZhipuAiChatMemory chatMemory,
+                                                    ZhipuAiChatMemoryProperties.Summarization summarization,
+                                                    ZhipuAiApi zhipuAiApi, ZhipuAiConnectionProperties connectionProperties) {
+        if (!summarization.isEnabled()) {
+            return chatMemory;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("zhipuai-summary-");
+        executor.setVirtualThreads(connectionProperties.getVirtualThreads().isEnabled());
+        return new ZhipuAiSummarizingChatMemory(chatMemory, zhipuAiApi, summarization.getModel(),
+                summarization.getThresholdTokens(), summarization.getKeepMessages(), summarization.getMaxTokens(),
+                summarization.getMaxConcurrentSummaries(), executor);
+    }
+
+    private ZhipuAiHedgingExecutor hedgingExecutor(ZhipuAiHedgingProperties hedging) {
+        return new ZhipuAiHedgingExecutor(hedging.getPercentile(), hedging.getMinDelay(), hedging.getBudget());
+    }
+
+    private ZhipuAiApi zhipuAiApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
+                                  ObjectProvider<HttpClient> httpClient, ZhipuAiConnectionProperties connectionProperties,
+                                  ResponseErrorHandler responseErrorHandler, ZhipuAiTimeouts timeouts) {
+        Assert.hasText(baseUrl, "ZhipuAI base URL must be set");
+        Assert.hasText(apiKey, "ZhipuAI API key must be set");
+        return new ZhipuAiApi(baseUrl, apiKey, this.configure(restClientBuilder, httpClient, connectionProperties, timeouts),
+                responseErrorHandler, timeouts);
+    }
+
+    /**
+     * Copy of the builder with a request factory of the JDK {@link HttpClient} enforcing the connect and read
+     * timeouts of the blocking calls, and bounding each request by the remaining budget of its
+     * {@code ZhipuAiDeadline}. The shared {@code zhipuAiHttpClient} is used unless the client sets its own
+     * connect timeout.
+     */
+    private RestClient.Builder configure(RestClient.Builder restClientBuilder, ObjectProvider<HttpClient> httpClient,
+                                         ZhipuAiConnectionProperties connectionProperties, ZhipuAiTimeouts timeouts) {
+        HttpClient client = Objects.equals(timeouts.connect(), connectTimeout(connectionProperties)) ? httpClient.getObject()
+                : httpClient(connectionProperties, timeouts.connect());
+        return restClientBuilder.clone().requestFactory(new ZhipuAiDeadlineRequestFactory(client, timeouts.response()));
+    }
+
+    private static Duration connectTimeout(ZhipuAiConnectionProperties connectionProperties) {
+        return connectionProperties.getTimeouts().toTimeouts(connectionProperties.getTimeouts()).connect();
+    }
+
+    private static HttpClient httpClient(ZhipuAiConnectionProperties connectionProperties, Duration connectTimeout) {
+        HttpClient.Builder builder = HttpClient.newBuilder();
+        if (connectionProperties.getVirtualThreads().isEnabled()) {
+            builder.executor(new VirtualThreadTaskExecutor("zhipuai-http-"));
+        }
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout);
+        }
+        return builder.build();
+    }
+
 }
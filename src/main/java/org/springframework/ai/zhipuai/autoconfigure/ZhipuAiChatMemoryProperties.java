@@ -0,0 +1,224 @@
+package org.springframework.ai.zhipuai.autoconfigure;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Conversation memory configuration of the chat client.
+ */
+public class ZhipuAiChatMemoryProperties {
+
+    public enum Store {
+
+        /**
+         * In-heap sessions, the least recently used ones evicted first.
+         */
+        HEAP,
+
+        /**
+         * Sessions stored in a memory-mapped file, only the session index is kept in the heap.
+         */
+        MAPPED
+
+    }
+
+    /**
+     * Keep the conversation history of the prompts carrying a session id.
+     */
+    private boolean enabled = false;
+
+    private Store store = Store.HEAP;
+
+    /**
+     * Maximum number of sessions, the least recently used ones are evicted beyond it.
+     */
+    private int maxSessions = 10_000;
+
+    /**
+     * Maximum number of messages kept per session.
+     */
+    private int maxMessages = 64;
+
+    /**
+     * Estimated token budget of the history of a session.
+     */
+    private int maxTokens = 4096;
+
+    /**
+     * Time after which an idle session is evicted from the heap store, zero to keep them.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * File of the mapped store, a temporary file by default.
+     */
+    private String path;
+
+    /**
+     * Size of the history of a session in the mapped store.
+     */
+    private DataSize slotSize = DataSize.ofKilobytes(32);
+
+    /**
+     * Rolling summarization of the older turns of the long sessions.
+     */
+    private Summarization summarization = new Summarization();
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Store getStore() {
+        return this.store;
+    }
+
+    public void setStore(Store store) {
+        this.store = store;
+    }
+
+    public int getMaxSessions() {
+        return this.maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public int getMaxMessages() {
+        return this.maxMessages;
+    }
+
+    public void setMaxMessages(int maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+
+    public int getMaxTokens() {
+        return this.maxTokens;
+    }
+
+    public void setMaxTokens(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public Duration getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public String getPath() {
+        return this.path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public DataSize getSlotSize() {
+        return this.slotSize;
+    }
+
+    public void setSlotSize(DataSize slotSize) {
+        this.slotSize = slotSize;
+    }
+
+    public Summarization getSummarization() {
+        return this.summarization;
+    }
+
+    public void setSummarization(Summarization summarization) {
+        this.summarization = summarization;
+    }
+
+    public static class Summarization {
+
+        /**
+         * Summarize the older turns of the sessions above the threshold, asynchronously.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Model writing the summaries.
+         */
+        private String model = ZhipuAiApi.ChatModel.GLM_3_TURBO.getValue();
+
+        /**
+         * Estimated history tokens above which a session is summarized, lower than the token budget of the
+         * session so that the turns are summarized before being evicted.
+         */
+        private int thresholdTokens = 3072;
+
+        /**
+         * Number of latest messages kept as they are.
+         */
+        private int keepMessages = 6;
+
+        /**
+         * Maximum tokens of a summary.
+         */
+        private int maxTokens = 512;
+
+        /**
+         * Maximum number of summaries requested at the same time.
+         */
+        private int maxConcurrentSummaries = 4;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getModel() {
+            return this.model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+
+        public int getThresholdTokens() {
+            return this.thresholdTokens;
+        }
+
+        public void setThresholdTokens(int thresholdTokens) {
+            this.thresholdTokens = thresholdTokens;
+        }
+
+        public int getKeepMessages() {
+            return this.keepMessages;
+        }
+
+        public void setKeepMessages(int keepMessages) {
+            this.keepMessages = keepMessages;
+        }
+
+        public int getMaxTokens() {
+            return this.maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public int getMaxConcurrentSummaries() {
+            return this.maxConcurrentSummaries;
+        }
+
+        public void setMaxConcurrentSummaries(int maxConcurrentSummaries) {
+            this.maxConcurrentSummaries = maxConcurrentSummaries;
+        }
+
+    }
+
+}
@@ -31,6 +31,35 @@ public class ZhipuAiChatProperties extends ZhipuAiParentProperties {
             .withTopP(ApiUtils.DEFAULT_TOP_P)
             .build();
 
+    /**
+     * Hedged requests of the chat client.
+     */
+    @NestedConfigurationProperty
+    private ZhipuAiHedgingProperties hedging = new ZhipuAiHedgingProperties();
+
+    /**
+     * Coalesce identical concurrent requests into a single upstream call.
+     */
+    private boolean coalesceRequests = false;
+
+    /**
+     * Conversation memory of the chat client.
+     */
+    @NestedConfigurationProperty
+    private ZhipuAiChatMemoryProperties memory = new ZhipuAiChatMemoryProperties();
+
+    /**
+     * Streams going on while their client reconnects.
+     */
+    @NestedConfigurationProperty
+    private ZhipuAiResumableStreamProperties resumableStreams = new ZhipuAiResumableStreamProperties();
+
+    /**
+     * Bounded buffering of the streams for slow subscribers.
+     */
+    @NestedConfigurationProperty
+    private ZhipuAiStreamBufferProperties streamBuffer = new ZhipuAiStreamBufferProperties();
+
     public ZhipuAiChatOptions getOptions() {
         return this.options;
     }
@@ -39,6 +68,46 @@ public class ZhipuAiChatProperties extends ZhipuAiParentProperties {
         this.options = options;
     }
 
+    public ZhipuAiHedgingProperties getHedging() {
+        return this.hedging;
+    }
+
+    public void setHedging(ZhipuAiHedgingProperties hedging) {
+        this.hedging = hedging;
+    }
+
+    public ZhipuAiChatMemoryProperties getMemory() {
+        return this.memory;
+    }
+
+    public void setMemory(ZhipuAiChatMemoryProperties memory) {
+        this.memory = memory;
+    }
+
+    public ZhipuAiResumableStreamProperties getResumableStreams() {
+        return this.resumableStreams;
+    }
+
+    public void setResumableStreams(ZhipuAiResumableStreamProperties resumableStreams) {
+        this.resumableStreams = resumableStreams;
+    }
+
+    public ZhipuAiStreamBufferProperties getStreamBuffer() {
+        return this.streamBuffer;
+    }
+
+    public void setStreamBuffer(ZhipuAiStreamBufferProperties streamBuffer) {
+        this.streamBuffer = streamBuffer;
+    }
+
+    public boolean isCoalesceRequests() {
+        return this.coalesceRequests;
+    }
+
+    public void setCoalesceRequests(boolean coalesceRequests) {
+        this.coalesceRequests = coalesceRequests;
+    }
+
     public boolean isEnabled() {
         return this.enabled;
     }
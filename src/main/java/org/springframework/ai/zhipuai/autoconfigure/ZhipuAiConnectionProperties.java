@@ -1,11 +1,131 @@
 package org.springframework.ai.zhipuai.autoconfigure;
 
-import org.springframework.ai.zhipuai.util.ApiUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
 
 @ConfigurationProperties(ZhipuAiConnectionProperties.CONFIG_PREFIX)
 public class ZhipuAiConnectionProperties extends ZhipuAiParentProperties {
 
     public static final String CONFIG_PREFIX = "spring.ai.zhipuai";
 
+    /**
+     * Virtual thread execution mode of the blocking clients.
+     */
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    /**
+     * Connection pre-warming at startup.
+     */
+    private final WarmUp warmUp = new WarmUp();
+
+    public ZhipuAiConnectionProperties() {
+        // 各客户端未设置的超时取这里的值
+        this.getTimeouts().setConnect(Duration.ofSeconds(10));
+        this.getTimeouts().setResponse(Duration.ofMinutes(2));
+        this.getTimeouts().setIdle(Duration.ofMinutes(1));
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    public WarmUp getWarmUp() {
+        return this.warmUp;
+    }
+
+    public static class VirtualThreads {
+
+        /**
+         * Whether to run the blocking HTTP calls and the tool callbacks on virtual threads. Requires
+         * Java 21 or later.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            Assert.isTrue(!enabled || JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE),
+                    () -> CONFIG_PREFIX + ".virtual-threads.enabled requires Java 21 or later, running on Java "
+                            + JavaVersion.getJavaVersion());
+            this.enabled = enabled;
+        }
+
+    }
+
+    public static class WarmUp {
+
+        /**
+         * Whether to open pooled connections to the configured base urls before the application
+         * is ready.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of concurrent connections opened per base url. The JDK HttpURLConnection used by
+         * default keeps at most {@code http.maxConnections} (5) idle connections per host.
+         */
+        private int connections = 4;
+
+        /**
+         * Whether to warm the reactive HTTP stack of the streaming calls as well.
+         */
+        private boolean streaming = false;
+
+        /**
+         * Maximum time the startup waits for the warm-up.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * Interval of the keep-alive requests keeping the connections open, zero to disable.
+         */
+        private Duration keepAliveInterval = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getConnections() {
+            return this.connections;
+        }
+
+        public void setConnections(int connections) {
+            this.connections = connections;
+        }
+
+        public boolean isStreaming() {
+            return this.streaming;
+        }
+
+        public void setStreaming(boolean streaming) {
+            this.streaming = streaming;
+        }
+
+        public Duration getTimeout() {
+            return this.timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getKeepAliveInterval() {
+            return this.keepAliveInterval;
+        }
+
+        public void setKeepAliveInterval(Duration keepAliveInterval) {
+            this.keepAliveInterval = keepAliveInterval;
+        }
+
+    }
+
 }
@@ -5,6 +5,9 @@ import org.springframework.ai.zhipuai.api.ZhipuAiApi;
 import org.springframework.ai.zhipuai.api.ZhipuAiEmbeddingOptions;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
 
 @ConfigurationProperties(ZhipuAiEmbeddingProperties.CONFIG_PREFIX)
 public class ZhipuAiEmbeddingProperties extends ZhipuAiParentProperties {
@@ -30,6 +33,22 @@ public class ZhipuAiEmbeddingProperties extends ZhipuAiParentProperties {
             .withModel(DEFAULT_EMBEDDING_MODEL)
             .build();
 
+    /**
+     * Hedged requests of the embedding client.
+     */
+    @NestedConfigurationProperty
+    private ZhipuAiHedgingProperties hedging = new ZhipuAiHedgingProperties();
+
+    /**
+     * Coalesce identical concurrent requests into a single upstream call.
+     */
+    private boolean coalesceRequests = false;
+
+    /**
+     * Micro-batching of the single text embeddings.
+     */
+    private final Batching batching = new Batching();
+
     public ZhipuAiEmbeddingOptions getOptions() {
         return this.options;
     }
@@ -46,6 +65,26 @@ public class ZhipuAiEmbeddingProperties extends ZhipuAiParentProperties {
         this.metadataMode = metadataMode;
     }
 
+    public ZhipuAiHedgingProperties getHedging() {
+        return this.hedging;
+    }
+
+    public void setHedging(ZhipuAiHedgingProperties hedging) {
+        this.hedging = hedging;
+    }
+
+    public boolean isCoalesceRequests() {
+        return this.coalesceRequests;
+    }
+
+    public void setCoalesceRequests(boolean coalesceRequests) {
+        this.coalesceRequests = coalesceRequests;
+    }
+
+    public Batching getBatching() {
+        return this.batching;
+    }
+
     public boolean isEnabled() {
         return this.enabled;
     }
@@ -54,4 +93,62 @@ public class ZhipuAiEmbeddingProperties extends ZhipuAiParentProperties {
         this.enabled = enabled;
     }
 
+    public static class Batching {
+
+        /**
+         * Queue the single text embeddings and send them as batched requests.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of texts per batched request, at most 64.
+         */
+        private int maxBatchSize = ZhipuAiApi.BatchEmbeddingRequest.MAX_INPUTS;
+
+        /**
+         * Maximum time a text waits for a batch to fill up.
+         */
+        private Duration linger = Duration.ofMillis(10);
+
+        /**
+         * Maximum number of batched requests sent at the same time.
+         */
+        private int maxInFlightBatches = 4;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxBatchSize() {
+            return this.maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            Assert.isTrue(maxBatchSize >= 1 && maxBatchSize <= ZhipuAiApi.BatchEmbeddingRequest.MAX_INPUTS,
+                    "Max batch size must be between 1 and " + ZhipuAiApi.BatchEmbeddingRequest.MAX_INPUTS);
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Duration getLinger() {
+            return this.linger;
+        }
+
+        public void setLinger(Duration linger) {
+            this.linger = linger;
+        }
+
+        public int getMaxInFlightBatches() {
+            return this.maxInFlightBatches;
+        }
+
+        public void setMaxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+        }
+
+    }
+
 }
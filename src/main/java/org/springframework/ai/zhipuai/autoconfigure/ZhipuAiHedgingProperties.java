@@ -0,0 +1,88 @@
+package org.springframework.ai.zhipuai.autoconfigure;
+
+import java.time.Duration;
+
+/**
+ * Hedged requests configuration of a client.
+ */
+public class ZhipuAiHedgingProperties {
+
+    /**
+     * Enable hedged requests.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Latency percentile after which a hedged request is issued.
+     */
+    private double percentile = 95;
+
+    /**
+     * Minimum delay before a hedged request is issued, also used until enough latencies are observed.
+     */
+    private Duration minDelay = Duration.ofSeconds(1);
+
+    /**
+     * Maximum ratio of extra requests issued as hedges.
+     */
+    private double budget = 0.05;
+
+    /**
+     * Base URL the hedged requests are sent to, defaults to the client base URL.
+     */
+    private String baseUrl;
+
+    /**
+     * API key the hedged requests are sent with, defaults to the client API key.
+     */
+    private String apiKey;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPercentile() {
+        return this.percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public Duration getMinDelay() {
+        return this.minDelay;
+    }
+
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    public double getBudget() {
+        return this.budget;
+    }
+
+    public void setBudget(double budget) {
+        this.budget = budget;
+    }
+
+    public String getBaseUrl() {
+        return this.baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public String getApiKey() {
+        return this.apiKey;
+    }
+
+    public void setApiKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+}
@@ -8,7 +8,7 @@ import org.springframework.boot.context.properties.NestedConfigurationProperty;
 @ConfigurationProperties(ZhipuAiImageProperties.CONFIG_PREFIX)
 public class ZhipuAiImageProperties extends ZhipuAiParentProperties {
 
-    public static final String CONFIG_PREFIX = "spring.ai.zhipuai.embedding";
+    public static final String CONFIG_PREFIX = "spring.ai.zhipuai.image";
 
     /**
      * Enable 智普AI image client.
@@ -2,6 +2,7 @@ package org.springframework.ai.zhipuai.autoconfigure;
 
 
 import org.springframework.ai.zhipuai.util.ApiUtils;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
 class ZhipuAiParentProperties {
 
@@ -12,6 +13,12 @@ class ZhipuAiParentProperties {
 
     private String apiKey;
 
+    /**
+     * Timeouts of the calls.
+     */
+    @NestedConfigurationProperty
+    private ZhipuAiTimeoutProperties timeouts = new ZhipuAiTimeoutProperties();
+
     public String getApiKey() {
         return this.apiKey;
     }
@@ -28,4 +35,12 @@ class ZhipuAiParentProperties {
         this.baseUrl = baseUrl;
     }
 
+    public ZhipuAiTimeoutProperties getTimeouts() {
+        return this.timeouts;
+    }
+
+    public void setTimeouts(ZhipuAiTimeoutProperties timeouts) {
+        this.timeouts = timeouts;
+    }
+
 }
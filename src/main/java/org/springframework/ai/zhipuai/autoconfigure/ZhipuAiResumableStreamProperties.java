@@ -0,0 +1,75 @@
+package org.springframework.ai.zhipuai.autoconfigure;
+
+import java.time.Duration;
+
+/**
+ * Resumable streams configuration of the chat client.
+ */
+public class ZhipuAiResumableStreamProperties {
+
+    /**
+     * Enable resumable streams.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of sessions held, running or terminated.
+     */
+    private int maxSessions = 1000;
+
+    /**
+     * Maximum number of chunks kept per session for the reconnecting clients.
+     */
+    private int maxEvents = 2048;
+
+    /**
+     * Time the generation goes on without any connected client.
+     */
+    private Duration gracePeriod = Duration.ofSeconds(30);
+
+    /**
+     * Time a terminated session can still be resumed.
+     */
+    private Duration ttl = Duration.ofMinutes(2);
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxSessions() {
+        return this.maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public int getMaxEvents() {
+        return this.maxEvents;
+    }
+
+    public void setMaxEvents(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    public Duration getGracePeriod() {
+        return this.gracePeriod;
+    }
+
+    public void setGracePeriod(Duration gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+
+    public Duration getTtl() {
+        return this.ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+}
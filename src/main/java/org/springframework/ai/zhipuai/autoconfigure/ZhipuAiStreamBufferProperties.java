@@ -0,0 +1,50 @@
+package org.springframework.ai.zhipuai.autoconfigure;
+
+import org.springframework.ai.zhipuai.support.ZhipuAiStreamBuffer;
+
+/**
+ * Bounded buffering of the streams of the chat client for slow subscribers.
+ */
+public class ZhipuAiStreamBufferProperties {
+
+    /**
+     * Enable the bounded stream buffer.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of chunks buffered per stream.
+     */
+    private int capacity = 256;
+
+    /**
+     * What to do when the buffer of a stream is full: block the reads of the connection, coalesce the
+     * deltas or fail the stream.
+     */
+    private ZhipuAiStreamBuffer.Overflow overflow = ZhipuAiStreamBuffer.Overflow.BLOCK;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public ZhipuAiStreamBuffer.Overflow getOverflow() {
+        return this.overflow;
+    }
+
+    public void setOverflow(ZhipuAiStreamBuffer.Overflow overflow) {
+        this.overflow = overflow;
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.springframework.ai.zhipuai.autoconfigure;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiTimeouts;
+
+import java.time.Duration;
+
+/**
+ * Timeouts of a client, the unset ones default to those of {@code spring.ai.zhipuai.timeouts}.
+ */
+public class ZhipuAiTimeoutProperties {
+
+    /**
+     * Connect timeout.
+     */
+    private Duration connect;
+
+    /**
+     * Maximum time between two reads of a response.
+     */
+    private Duration response;
+
+    /**
+     * Maximum time from the start of a stream to its first chunk.
+     */
+    private Duration firstToken;
+
+    /**
+     * Maximum time between two chunks of a stream.
+     */
+    private Duration idle;
+
+    /**
+     * Maximum total duration of a call, blocking or reactive, not retried when exceeded.
+     */
+    private Duration deadline;
+
+    public Duration getConnect() {
+        return this.connect;
+    }
+
+    public void setConnect(Duration connect) {
+        this.connect = connect;
+    }
+
+    public Duration getResponse() {
+        return this.response;
+    }
+
+    public void setResponse(Duration response) {
+        this.response = response;
+    }
+
+    public Duration getFirstToken() {
+        return this.firstToken;
+    }
+
+    public void setFirstToken(Duration firstToken) {
+        this.firstToken = firstToken;
+    }
+
+    public Duration getIdle() {
+        return this.idle;
+    }
+
+    public void setIdle(Duration idle) {
+        this.idle = idle;
+    }
+
+    public Duration getDeadline() {
+        return this.deadline;
+    }
+
+    public void setDeadline(Duration deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @param defaults the timeouts of the connection.
+     * @return the timeouts of the client, a zero duration disabling a timeout set by default.
+     */
+    public ZhipuAiTimeouts toTimeouts(ZhipuAiTimeoutProperties defaults) {
+        return ZhipuAiTimeouts.builder()
+                .withConnect(timeout(this.connect, defaults.getConnect()))
+                .withResponse(timeout(this.response, defaults.getResponse()))
+                .withFirstToken(timeout(this.firstToken, defaults.getFirstToken()))
+                .withIdle(timeout(this.idle, defaults.getIdle()))
+                .withDeadline(timeout(this.deadline, defaults.getDeadline()))
+                .build();
+    }
+
+    private static Duration timeout(Duration timeout, Duration defaultTimeout) {
+        Duration value = (timeout != null) ? timeout : defaultTimeout;
+        return (value != null && !value.isZero() && !value.isNegative()) ? value : null;
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.springframework.ai.zhipuai.memory;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.util.ApiUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ring buffer of the messages of a session, bounded by a number of messages and by a token budget.
+ * The window always starts with a user message, or with the summary of the evicted turns, so that no
+ * answer is kept without its question.
+ */
+class ZhipuAiChatHistory {
+
+    private final ZhipuAiApi.ChatCompletionMessage[] messages;
+
+    private final int[] tokens;
+
+    private final int maxTokens;
+
+    private int head;
+
+    private int size;
+
+    private int totalTokens;
+
+    private volatile long lastAccess = System.nanoTime();
+
+    ZhipuAiChatHistory(int maxMessages, int maxTokens) {
+        this.messages = new ZhipuAiApi.ChatCompletionMessage[maxMessages];
+        this.tokens = new int[maxMessages];
+        this.maxTokens = maxTokens;
+    }
+
+    synchronized List<ZhipuAiApi.ChatCompletionMessage> get() {
+        this.lastAccess = System.nanoTime();
+        return this.messages();
+    }
+
+    synchronized void add(Collection<ZhipuAiApi.ChatCompletionMessage> messages) {
+        this.lastAccess = System.nanoTime();
+        this.append(messages);
+    }
+
+    /**
+     * Replace the oldest messages, unless they changed since they were read.
+     * @param head the oldest messages, as read.
+     * @param replacement the messages replacing them.
+     * @return whether the messages were replaced.
+     */
+    synchronized boolean replaceHead(List<ZhipuAiApi.ChatCompletionMessage> head,
+                                     List<ZhipuAiApi.ChatCompletionMessage> replacement) {
+        List<ZhipuAiApi.ChatCompletionMessage> current = this.messages();
+        if (current.size() < head.size() || !current.subList(0, head.size()).equals(head)) {
+            return false;
+        }
+        List<ZhipuAiApi.ChatCompletionMessage> messages = new ArrayList<>(replacement);
+        messages.addAll(current.subList(head.size(), current.size()));
+        while (this.size > 0) {
+            this.removeOldest();
+        }
+        this.append(messages);
+        return true;
+    }
+
+    /**
+     * Evict the oldest message and the answers left without their question.
+     * @return whether a message was evicted.
+     */
+    synchronized boolean evictOldest() {
+        if (this.size == 0) {
+            return false;
+        }
+        this.removeOldest();
+        this.trimHead();
+        return true;
+    }
+
+    synchronized int getTokens() {
+        return this.totalTokens;
+    }
+
+    long getLastAccess() {
+        return this.lastAccess;
+    }
+
+    private List<ZhipuAiApi.ChatCompletionMessage> messages() {
+        List<ZhipuAiApi.ChatCompletionMessage> messages = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            messages.add(this.messages[(this.head + i) % this.messages.length]);
+        }
+        return messages;
+    }
+
+    private void append(Collection<ZhipuAiApi.ChatCompletionMessage> messages) {
+        for (ZhipuAiApi.ChatCompletionMessage message : messages) {
+            if (this.size == this.messages.length) {
+                this.removeOldest();
+            }
+            int tail = (this.head + this.size) % this.messages.length;
+            this.messages[tail] = message;
+            this.tokens[tail] = ApiUtils.estimateTokens(message.content());
+            this.totalTokens += this.tokens[tail];
+            this.size++;
+        }
+        while (this.totalTokens > this.maxTokens && this.size > 1) {
+            this.removeOldest();
+        }
+        this.trimHead();
+    }
+
+    private void trimHead() {
+        while (this.size > 0 && this.messages[this.head].role() != ZhipuAiApi.ChatCompletionMessage.Role.USER
+                && this.messages[this.head].role() != ZhipuAiApi.ChatCompletionMessage.Role.SYSTEM) {
+            this.removeOldest();
+        }
+    }
+
+    private void removeOldest() {
+        this.totalTokens -= this.tokens[this.head];
+        this.messages[this.head] = null;
+        this.head = (this.head + 1) % this.messages.length;
+        this.size--;
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.springframework.ai.zhipuai.memory;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.util.ApiUtils;
+
+import java.util.List;
+
+/**
+ * Conversation history of the chat sessions, prepended to the messages of every request carrying a
+ * {@link org.springframework.ai.zhipuai.api.ZhipuAiChatOptions#getSessionId() session id}.
+ * <p>
+ * Every session is a window of the latest messages bounded by a token budget: the oldest turns are
+ * evicted as new ones are added, so the prompt size does not grow with the length of the conversation.
+ * Only user and assistant messages are kept, and the summaries of the evicted turns as system messages;
+ * the other system messages come from the prompt.
+ */
+public interface ZhipuAiChatMemory {
+
+    /**
+     * @param sessionId the session id.
+     * @return the messages of the session, oldest first, empty for an unknown session.
+     */
+    List<ZhipuAiApi.ChatCompletionMessage> get(String sessionId);
+
+    /**
+     * Append the messages of a completed turn to the session, evicting the oldest turns beyond the budget.
+     * @param sessionId the session id.
+     * @param messages the messages to append.
+     */
+    void add(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> messages);
+
+    /**
+     * @param sessionId the session id.
+     * @return the estimated tokens of the messages of the session, zero for an unknown session.
+     */
+    default int getTokens(String sessionId) {
+        int tokens = 0;
+        for (ZhipuAiApi.ChatCompletionMessage message : this.get(sessionId)) {
+            tokens += ApiUtils.estimateTokens(message.content());
+        }
+        return tokens;
+    }
+
+    /**
+     * Replace the oldest messages of the session, typically with their summary, unless they changed since
+     * they were read: a concurrent turn may have evicted them meanwhile.
+     * @param sessionId the session id.
+     * @param head the oldest messages of the session, as read.
+     * @param replacement the messages replacing them.
+     * @return whether the messages were replaced.
+     */
+    boolean replaceHead(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> head,
+                        List<ZhipuAiApi.ChatCompletionMessage> replacement);
+
+    /**
+     * Remove the session.
+     * @param sessionId the session id.
+     */
+    void clear(String sessionId);
+
+    /**
+     * @return the number of sessions currently held.
+     */
+    int getSessionCount();
+
+}
@@ -0,0 +1,153 @@
+package org.springframework.ai.zhipuai.memory;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-heap {@link ZhipuAiChatMemory}. The sessions are held in a concurrent map, every history records its
+ * last access, and a sweep run by a single caller at a time evicts:
+ * <ul>
+ * <li>the least recently used sessions once there are more than {@code maxSessions} plus a sixteenth,
+ * down to {@code maxSessions};</li>
+ * <li>the sessions idle for longer than {@code idleTimeout}, at most every quarter of the timeout.</li>
+ * </ul>
+ * No lock is shared by the sessions, the turns of distinct sessions never wait for each other.
+ */
+public class ZhipuAiInMemoryChatMemory implements ZhipuAiChatMemory {
+
+    private final int maxSessions;
+
+    private final int maxMessages;
+
+    private final int maxTokens;
+
+    private final long idleTimeoutNanos;
+
+    /**
+     * Session count that triggers an eviction sweep, so that a sweep is amortized over many new sessions.
+     */
+    private final int sweepThreshold;
+
+    private final ConcurrentHashMap<String, ZhipuAiChatHistory> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private volatile long nextIdleSweepNanos;
+
+    /**
+     * @param maxSessions the maximum number of sessions held.
+     * @param maxMessages the maximum number of messages per session.
+     * @param maxTokens the estimated token budget per session.
+     * @param idleTimeout the time after which an idle session is evicted, zero to keep them.
+     */
+    public ZhipuAiInMemoryChatMemory(int maxSessions, int maxMessages, int maxTokens, Duration idleTimeout) {
+        Assert.isTrue(maxSessions > 0, "Max sessions must be positive");
+        Assert.isTrue(maxMessages > 0, "Max messages must be positive");
+        Assert.isTrue(maxTokens > 0, "Max tokens must be positive");
+        Assert.notNull(idleTimeout, "Idle timeout must not be null");
+        this.maxSessions = maxSessions;
+        this.maxMessages = maxMessages;
+        this.maxTokens = maxTokens;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.sweepThreshold = maxSessions + Math.max(1, maxSessions / 16);
+        this.nextIdleSweepNanos = System.nanoTime() + this.idleTimeoutNanos / 4;
+    }
+
+    @Override
+    public List<ZhipuAiApi.ChatCompletionMessage> get(String sessionId) {
+        ZhipuAiChatHistory history = this.sessions.get(sessionId);
+        return (history != null) ? history.get() : List.of();
+    }
+
+    @Override
+    public void add(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> messages) {
+        Assert.notNull(sessionId, "Session id must not be null");
+        ZhipuAiChatHistory history = this.sessions.get(sessionId);
+        if (history == null) {
+            history = this.sessions.computeIfAbsent(sessionId,
+                    id -> new ZhipuAiChatHistory(this.maxMessages, this.maxTokens));
+        }
+        history.add(messages);
+        this.sweepIfNeeded();
+    }
+
+    @Override
+    public int getTokens(String sessionId) {
+        ZhipuAiChatHistory history = this.sessions.get(sessionId);
+        return (history != null) ? history.getTokens() : 0;
+    }
+
+    @Override
+    public boolean replaceHead(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> head,
+                               List<ZhipuAiApi.ChatCompletionMessage> replacement) {
+        ZhipuAiChatHistory history = this.sessions.get(sessionId);
+        return history != null && history.replaceHead(head, replacement);
+    }
+
+    @Override
+    public void clear(String sessionId) {
+        this.sessions.remove(sessionId);
+    }
+
+    @Override
+    public int getSessionCount() {
+        return this.sessions.size();
+    }
+
+    private void sweepIfNeeded() {
+        boolean idleSweep = this.idleTimeoutNanos > 0 && System.nanoTime() - this.nextIdleSweepNanos >= 0;
+        if (!idleSweep && this.sessions.size() <= this.sweepThreshold) {
+            return;
+        }
+        if (!this.sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (idleSweep) {
+                this.evictIdleSessions();
+            }
+            if (this.sessions.size() > this.maxSessions) {
+                this.evictLeastRecentlyUsed();
+            }
+        }
+        finally {
+            this.sweeping.set(false);
+        }
+    }
+
+    private void evictIdleSessions() {
+        long now = System.nanoTime();
+        this.nextIdleSweepNanos = now + this.idleTimeoutNanos / 4;
+        this.sessions.values().removeIf(history -> now - history.getLastAccess() >= this.idleTimeoutNanos);
+    }
+
+    /**
+     * Snapshot the access stamps and evict the oldest sessions, skipping the ones accessed since.
+     */
+    private void evictLeastRecentlyUsed() {
+        record Access(String sessionId, ZhipuAiChatHistory history, long stamp) {
+        }
+        List<Access> accesses = new ArrayList<>(this.sessions.size());
+        for (Map.Entry<String, ZhipuAiChatHistory> entry : this.sessions.entrySet()) {
+            accesses.add(new Access(entry.getKey(), entry.getValue(), entry.getValue().getLastAccess()));
+        }
+        accesses.sort(Comparator.comparingLong(Access::stamp));
+        int excess = accesses.size() - this.maxSessions;
+        for (int i = 0; i < accesses.size() && excess > 0; i++) {
+            Access access = accesses.get(i);
+            if (access.history().getLastAccess() == access.stamp()
+                    && this.sessions.remove(access.sessionId(), access.history())) {
+                excess--;
+            }
+        }
+    }
+
+}
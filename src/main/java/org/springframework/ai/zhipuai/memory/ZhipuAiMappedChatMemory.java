@@ -0,0 +1,323 @@
+package org.springframework.ai.zhipuai.memory;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ZhipuAiChatMemory} storing the messages in a memory-mapped file, for session counts whose
+ * history does not fit in the heap. The file is split in {@code maxSessions} fixed size slots: the heap
+ * only holds the session to slot index, and the page cache decides which histories stay in memory.
+ * <p>
+ * A slot holds the session id followed by the messages, a turn that does not fit evicts the oldest
+ * messages of the session. Beyond {@code maxSessions} the slot of the least recently used session is
+ * reused. The content of the file does not survive a restart.
+ */
+public class ZhipuAiMappedChatMemory implements ZhipuAiChatMemory, AutoCloseable {
+
+    private static final int MAX_SESSION_ID_BYTES = 256;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final ZhipuAiApi.ChatCompletionMessage.Role[] ROLES = ZhipuAiApi.ChatCompletionMessage.Role.values();
+
+    private final int maxMessages;
+
+    private final int maxTokens;
+
+    private final int slotSize;
+
+    private final int slotsPerSegment;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Slot of every session, in access order.
+     */
+    private final LinkedHashMap<String, Integer> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int[] freeSlots;
+
+    /**
+     * Estimated tokens of the history of every slot, guarded by the slot lock.
+     */
+    private final int[] slotTokens;
+
+    private int freeSlotCount;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param path the file backing the memory, created or truncated.
+     * @param maxSessions the number of slots of the file.
+     * @param slotSize the size of a slot in bytes, bounding the UTF-8 size of the history of a session.
+     * @param maxMessages the maximum number of messages per session.
+     * @param maxTokens the estimated token budget per session.
+     */
+    public ZhipuAiMappedChatMemory(Path path, int maxSessions, int slotSize, int maxMessages, int maxTokens) {
+        Assert.notNull(path, "Path must not be null");
+        Assert.isTrue(maxSessions > 0, "Max sessions must be positive");
+        Assert.isTrue(slotSize >= 1024, "Slot size must be at least 1024 bytes");
+        Assert.isTrue(maxMessages > 0, "Max messages must be positive");
+        Assert.isTrue(maxTokens > 0, "Max tokens must be positive");
+        this.maxMessages = maxMessages;
+        this.maxTokens = maxTokens;
+        this.slotSize = slotSize;
+        this.slotsPerSegment = Integer.MAX_VALUE / slotSize;
+        this.freeSlots = new int[maxSessions];
+        this.slotTokens = new int[maxSessions];
+        for (int i = 0; i < maxSessions; i++) {
+            this.freeSlots[i] = maxSessions - 1 - i;
+        }
+        this.freeSlotCount = maxSessions;
+        Arrays.setAll(this.locks, i -> new Object());
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            int segmentCount = (maxSessions + this.slotsPerSegment - 1) / this.slotsPerSegment;
+            this.segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                int slots = Math.min(this.slotsPerSegment, maxSessions - i * this.slotsPerSegment);
+                this.segments[i] = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) i * this.slotsPerSegment * slotSize, (long) slots * slotSize);
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Failed to map the chat memory file " + path, ex);
+        }
+    }
+
+    @Override
+    public List<ZhipuAiApi.ChatCompletionMessage> get(String sessionId) {
+        while (true) {
+            Integer slot;
+            synchronized (this.index) {
+                slot = this.index.get(sessionId);
+            }
+            if (slot == null) {
+                return List.of();
+            }
+            synchronized (this.lock(slot)) {
+                if (!this.isAssigned(sessionId, slot)) {
+                    continue;
+                }
+                List<ZhipuAiApi.ChatCompletionMessage> messages = this.read(slot, sessionId);
+                return (messages != null) ? messages : List.of();
+            }
+        }
+    }
+
+    @Override
+    public void add(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> messages) {
+        Assert.notNull(sessionId, "Session id must not be null");
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        Assert.isTrue(id.length <= MAX_SESSION_ID_BYTES, "Session id must not exceed " + MAX_SESSION_ID_BYTES + " bytes");
+        while (true) {
+            int slot = this.slot(sessionId);
+            synchronized (this.lock(slot)) {
+                if (!this.isAssigned(sessionId, slot)) {
+                    continue;
+                }
+                List<ZhipuAiApi.ChatCompletionMessage> previous = this.read(slot, sessionId);
+                ZhipuAiChatHistory history = new ZhipuAiChatHistory(this.maxMessages, this.maxTokens);
+                if (previous != null) {
+                    history.add(previous);
+                }
+                history.add(messages);
+                this.write(slot, id, history);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int getTokens(String sessionId) {
+        while (true) {
+            Integer slot;
+            synchronized (this.index) {
+                slot = this.index.get(sessionId);
+            }
+            if (slot == null) {
+                return 0;
+            }
+            synchronized (this.lock(slot)) {
+                if (!this.isAssigned(sessionId, slot)) {
+                    continue;
+                }
+                return this.slotTokens[slot];
+            }
+        }
+    }
+
+    @Override
+    public boolean replaceHead(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> head,
+                               List<ZhipuAiApi.ChatCompletionMessage> replacement) {
+        while (true) {
+            Integer slot;
+            synchronized (this.index) {
+                slot = this.index.get(sessionId);
+            }
+            if (slot == null) {
+                return false;
+            }
+            synchronized (this.lock(slot)) {
+                if (!this.isAssigned(sessionId, slot)) {
+                    continue;
+                }
+                List<ZhipuAiApi.ChatCompletionMessage> previous = this.read(slot, sessionId);
+                if (previous == null) {
+                    return false;
+                }
+                ZhipuAiChatHistory history = new ZhipuAiChatHistory(this.maxMessages, this.maxTokens);
+                history.add(previous);
+                if (!history.replaceHead(head, replacement)) {
+                    return false;
+                }
+                this.write(slot, sessionId.getBytes(StandardCharsets.UTF_8), history);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void clear(String sessionId) {
+        Integer slot;
+        synchronized (this.index) {
+            slot = this.index.remove(sessionId);
+        }
+        if (slot == null) {
+            return;
+        }
+        // neither indexed nor free until it is wiped: no other session can get it meanwhile
+        synchronized (this.lock(slot)) {
+            this.buffer(slot).putInt(0, 0);
+            this.slotTokens[slot] = 0;
+        }
+        synchronized (this.index) {
+            this.freeSlots[this.freeSlotCount++] = slot;
+        }
+    }
+
+    @Override
+    public int getSessionCount() {
+        synchronized (this.index) {
+            return this.index.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Find the slot of the session, allocating a free one or reusing the least recently used one.
+     */
+    private int slot(String sessionId) {
+        synchronized (this.index) {
+            Integer slot = this.index.get(sessionId);
+            if (slot != null) {
+                return slot;
+            }
+            int allocated;
+            if (this.freeSlotCount > 0) {
+                allocated = this.freeSlots[--this.freeSlotCount];
+            }
+            else {
+                Map.Entry<String, Integer> eldest = this.index.entrySet().iterator().next();
+                this.index.remove(eldest.getKey());
+                allocated = eldest.getValue();
+            }
+            this.index.put(sessionId, allocated);
+            return allocated;
+        }
+    }
+
+    /**
+     * Whether the slot is still the one of the session. The slot lock is taken after the lookup, in the
+     * meantime the slot may have been reused by another session, then the caller looks it up again.
+     * A slot lock is never acquired while holding the index lock.
+     */
+    private boolean isAssigned(String sessionId, int slot) {
+        synchronized (this.index) {
+            Integer assigned = this.index.get(sessionId);
+            return assigned != null && assigned == slot;
+        }
+    }
+
+    private Object lock(int slot) {
+        return this.locks[slot % LOCK_STRIPES];
+    }
+
+    private ByteBuffer buffer(int slot) {
+        ByteBuffer segment = this.segments[slot / this.slotsPerSegment];
+        return segment.slice((slot % this.slotsPerSegment) * this.slotSize, this.slotSize);
+    }
+
+    /**
+     * @return the messages of the slot, or null when it holds another session, reused since the lookup.
+     */
+    private List<ZhipuAiApi.ChatCompletionMessage> read(int slot, String sessionId) {
+        ByteBuffer buffer = this.buffer(slot);
+        int idLength = buffer.getInt();
+        if (idLength == 0 || idLength > MAX_SESSION_ID_BYTES) {
+            return null;
+        }
+        byte[] id = new byte[idLength];
+        buffer.get(id);
+        if (!sessionId.equals(new String(id, StandardCharsets.UTF_8))) {
+            return null;
+        }
+        int count = buffer.getInt();
+        List<ZhipuAiApi.ChatCompletionMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ZhipuAiApi.ChatCompletionMessage.Role role = ROLES[buffer.get()];
+            byte[] content = new byte[buffer.getInt()];
+            buffer.get(content);
+            messages.add(new ZhipuAiApi.ChatCompletionMessage(new String(content, StandardCharsets.UTF_8), role));
+        }
+        return messages;
+    }
+
+    private void write(int slot, byte[] id, ZhipuAiChatHistory history) {
+        List<ZhipuAiApi.ChatCompletionMessage> messages;
+        List<byte[]> contents;
+        do {
+            messages = history.get();
+            contents = new ArrayList<>(messages.size());
+            int size = 4 + id.length + 4;
+            for (ZhipuAiApi.ChatCompletionMessage message : messages) {
+                byte[] content = (message.content() != null) ? message.content().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                contents.add(content);
+                size += 1 + 4 + content.length;
+            }
+            if (size <= this.slotSize) {
+                break;
+            }
+        }
+        while (history.evictOldest());
+
+        this.slotTokens[slot] = history.getTokens();
+        ByteBuffer buffer = this.buffer(slot);
+        buffer.putInt(id.length).put(id).putInt(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            buffer.put((byte) messages.get(i).role().ordinal()).putInt(contents.get(i).length).put(contents.get(i));
+        }
+    }
+
+}
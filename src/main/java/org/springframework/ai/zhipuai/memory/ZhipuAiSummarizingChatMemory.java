@@ -0,0 +1,220 @@
+package org.springframework.ai.zhipuai.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.util.ApiUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ZhipuAiChatMemory} compressing the older turns of the long sessions into a summary.
+ * <p>
+ * Once the history of a session exceeds {@code thresholdTokens}, all but its latest {@code keepMessages}
+ * messages are summarized by a cheap model on the {@code executor}, off the request path: a turn only
+ * reads the token count the delegate keeps for the session, the history is read on the executor. Until
+ * the summary is ready the requests keep using the full history; it then replaces the summarized messages
+ * as a single system message, unless they were evicted meanwhile. At most {@code maxConcurrentSummaries}
+ * summaries run at the same time, the sessions above the threshold are summarized on their next turn.
+ */
+public class ZhipuAiSummarizingChatMemory implements ZhipuAiChatMemory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZhipuAiSummarizingChatMemory.class);
+
+    private static final String SUMMARY_PREFIX = "以下是此前对话的摘要：\n";
+
+    private static final String INSTRUCTION = "请将下面的对话压缩为一段简洁的摘要，保留关键事实、结论、用户的偏好以及尚未解决的问题，"
+            + "不要添加对话中没有的信息，直接输出摘要内容。";
+
+    private final ZhipuAiChatMemory delegate;
+
+    private final ZhipuAiApi zhipuAiApi;
+
+    private final String model;
+
+    private final int thresholdTokens;
+
+    private final int keepMessages;
+
+    private final int maxSummaryTokens;
+
+    private final Semaphore permits;
+
+    private final Executor executor;
+
+    private final Set<String> summarizing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder summaries = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * @param delegate the memory holding the sessions.
+     * @param zhipuAiApi the API the summaries are requested from.
+     * @param model the model writing the summaries.
+     * @param thresholdTokens the estimated history tokens above which a session is summarized.
+     * @param keepMessages the number of latest messages kept as they are.
+     * @param maxSummaryTokens the maximum tokens of a summary.
+     * @param maxConcurrentSummaries the maximum number of summaries running at the same time.
+     * @param executor the executor the summaries are requested on.
+     */
+    public ZhipuAiSummarizingChatMemory(ZhipuAiChatMemory delegate, ZhipuAiApi zhipuAiApi, String model,
+                                        int thresholdTokens, int keepMessages, int maxSummaryTokens,
+                                        int maxConcurrentSummaries, Executor executor) {
+        Assert.notNull(delegate, "Delegate must not be null");
+        Assert.notNull(zhipuAiApi, "ZhipuAiApi must not be null");
+        Assert.hasText(model, "Model must not be empty");
+        Assert.isTrue(thresholdTokens > 0, "Threshold tokens must be positive");
+        Assert.isTrue(keepMessages >= 0, "Keep messages must not be negative");
+        Assert.isTrue(maxSummaryTokens > 0, "Max summary tokens must be positive");
+        Assert.isTrue(maxConcurrentSummaries > 0, "Max concurrent summaries must be positive");
+        Assert.notNull(executor, "Executor must not be null");
+        this.delegate = delegate;
+        this.zhipuAiApi = zhipuAiApi;
+        this.model = model;
+        this.thresholdTokens = thresholdTokens;
+        this.keepMessages = keepMessages;
+        this.maxSummaryTokens = maxSummaryTokens;
+        this.permits = new Semaphore(maxConcurrentSummaries);
+        this.executor = executor;
+    }
+
+    @Override
+    public List<ZhipuAiApi.ChatCompletionMessage> get(String sessionId) {
+        return this.delegate.get(sessionId);
+    }
+
+    @Override
+    public void add(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> messages) {
+        this.delegate.add(sessionId, messages);
+        if (!this.summarizing.contains(sessionId)) {
+            this.summarizeIfNeeded(sessionId);
+        }
+    }
+
+    @Override
+    public int getTokens(String sessionId) {
+        return this.delegate.getTokens(sessionId);
+    }
+
+    @Override
+    public boolean replaceHead(String sessionId, List<ZhipuAiApi.ChatCompletionMessage> head,
+                               List<ZhipuAiApi.ChatCompletionMessage> replacement) {
+        return this.delegate.replaceHead(sessionId, head, replacement);
+    }
+
+    @Override
+    public void clear(String sessionId) {
+        this.delegate.clear(sessionId);
+    }
+
+    @Override
+    public int getSessionCount() {
+        return this.delegate.getSessionCount();
+    }
+
+    /**
+     * @return the number of summaries substituted into the sessions.
+     */
+    public long getSummaries() {
+        return this.summaries.sum();
+    }
+
+    /**
+     * @return the number of failed summaries.
+     */
+    public long getFailures() {
+        return this.failures.sum();
+    }
+
+    private void summarizeIfNeeded(String sessionId) {
+        if (this.delegate.getTokens(sessionId) <= this.thresholdTokens) {
+            return;
+        }
+        if (!this.summarizing.add(sessionId)) {
+            return;
+        }
+        if (!this.permits.tryAcquire()) {
+            this.summarizing.remove(sessionId);
+            return;
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.summarize(sessionId);
+                }
+                finally {
+                    this.permits.release();
+                    this.summarizing.remove(sessionId);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            this.permits.release();
+            this.summarizing.remove(sessionId);
+        }
+    }
+
+    private void summarize(String sessionId) {
+        List<ZhipuAiApi.ChatCompletionMessage> history = this.delegate.get(sessionId);
+        int tokens = 0;
+        for (ZhipuAiApi.ChatCompletionMessage message : history) {
+            tokens += ApiUtils.estimateTokens(message.content());
+        }
+        if (tokens <= this.thresholdTokens) {
+            return;
+        }
+        // the kept messages must start with a question
+        int cut = history.size() - this.keepMessages;
+        while (cut > 0 && cut < history.size()
+                && history.get(cut).role() != ZhipuAiApi.ChatCompletionMessage.Role.USER) {
+            cut++;
+        }
+        if (cut < 2 || cut >= history.size()) {
+            return;
+        }
+        List<ZhipuAiApi.ChatCompletionMessage> head = List.copyOf(history.subList(0, cut));
+        StringBuilder transcript = new StringBuilder();
+        for (ZhipuAiApi.ChatCompletionMessage message : head) {
+            String speaker = switch (message.role()) {
+                case SYSTEM -> "摘要";
+                case USER -> "用户";
+                default -> "助手";
+            };
+            transcript.append(speaker).append("：").append(message.content()).append('\n');
+        }
+        var request = new ZhipuAiApi.ChatCompletionRequest(null, this.model,
+                List.of(new ZhipuAiApi.ChatCompletionMessage(INSTRUCTION, ZhipuAiApi.ChatCompletionMessage.Role.SYSTEM),
+                        new ZhipuAiApi.ChatCompletionMessage(transcript.toString(), ZhipuAiApi.ChatCompletionMessage.Role.USER)),
+                Boolean.FALSE, Boolean.FALSE, null, null, this.maxSummaryTokens, null, null, null, null);
+        try {
+            ResponseEntity<ZhipuAiApi.ChatCompletion> response = this.zhipuAiApi.chatCompletionEntity(request);
+            ZhipuAiApi.ChatCompletion completion = response.getBody();
+            String summary = (completion != null && !CollectionUtils.isEmpty(completion.choices()))
+                    ? completion.choices().get(0).message().content() : null;
+            if (!StringUtils.hasText(summary)) {
+                this.failures.increment();
+                return;
+            }
+            if (this.delegate.replaceHead(sessionId, head, List.of(new ZhipuAiApi.ChatCompletionMessage(
+                    SUMMARY_PREFIX + summary.trim(), ZhipuAiApi.ChatCompletionMessage.Role.SYSTEM)))) {
+                this.summaries.increment();
+            }
+        }
+        catch (RuntimeException ex) {
+            this.failures.increment();
+            logger.debug("Failed to summarize the history of chat session {}", sessionId, ex);
+        }
+    }
+
+}
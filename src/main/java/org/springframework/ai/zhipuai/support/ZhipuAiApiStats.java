@@ -0,0 +1,195 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Health counters of a single base url and API key, fed by both the blocking and the reactive HTTP
+ * stacks. All counters are lock-free, reading them never blocks the requests. The {@code HEAD} requests
+ * only sent to warm up the connections are not counted.
+ */
+public class ZhipuAiApiStats implements ClientHttpRequestInterceptor, ExchangeFilterFunction {
+
+    /**
+     * Consecutive failures after which the key is reported as down.
+     */
+    private static final int DOWN_THRESHOLD = 5;
+
+    private final String baseUrl;
+
+    private final String maskedApiKey;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder rateLimited = new LongAdder();
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final LongAdder latencyNanos = new LongAdder();
+
+    private final AtomicLong consecutiveFailures = new AtomicLong();
+
+    private volatile long lastSuccessMillis;
+
+    private volatile long lastFailureMillis;
+
+    private volatile String lastError;
+
+    public ZhipuAiApiStats(String baseUrl, String apiKey) {
+        this.baseUrl = baseUrl;
+        this.maskedApiKey = mask(apiKey);
+    }
+
+    private static String mask(String apiKey) {
+        if (apiKey == null || apiKey.length() <= 8) {
+            return "****";
+        }
+        return apiKey.substring(0, 4) + "****" + apiKey.substring(apiKey.length() - 4);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (HttpMethod.HEAD.equals(request.getMethod())) {
+            return execution.execute(request, body);
+        }
+        long start = this.started();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            this.completed(start, response.getStatusCode());
+            return response;
+        }
+        catch (IOException | RuntimeException ex) {
+            this.failed(start, ex);
+            throw ex;
+        }
+        finally {
+            this.inFlight.decrement();
+        }
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (HttpMethod.HEAD.equals(request.method())) {
+            return next.exchange(request);
+        }
+        return Mono.defer(() -> {
+            long start = this.started();
+            return next.exchange(request)
+                    .doOnNext(response -> this.completed(start, response.statusCode()))
+                    .doOnError(ex -> this.failed(start, ex))
+                    .doFinally(signalType -> this.inFlight.decrement());
+        });
+    }
+
+    private long started() {
+        this.requests.increment();
+        this.inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the response headers, for streams the latency is the time to the first byte.
+     */
+    private void completed(long start, HttpStatusCode status) {
+        this.latencyNanos.add(System.nanoTime() - start);
+        if (status.value() == 429) {
+            this.rateLimited.increment();
+        }
+        if (status.is5xxServerError() || status.value() == 429 || status.value() == 401) {
+            this.recordFailure(status.toString());
+            return;
+        }
+        this.consecutiveFailures.set(0);
+        this.lastSuccessMillis = System.currentTimeMillis();
+    }
+
+    private void failed(long start, Throwable ex) {
+        this.latencyNanos.add(System.nanoTime() - start);
+        this.recordFailure(ex.toString());
+    }
+
+    private void recordFailure(String error) {
+        this.failures.increment();
+        this.consecutiveFailures.incrementAndGet();
+        this.lastFailureMillis = System.currentTimeMillis();
+        this.lastError = error;
+    }
+
+    public String getBaseUrl() {
+        return this.baseUrl;
+    }
+
+    public String getMaskedApiKey() {
+        return this.maskedApiKey;
+    }
+
+    /**
+     * @return {@code UP}, {@code DEGRADED} after a failure or {@code DOWN} after {@value #DOWN_THRESHOLD}
+     * consecutive ones.
+     */
+    public String getStatus() {
+        long consecutiveFailures = this.consecutiveFailures.get();
+        if (consecutiveFailures >= DOWN_THRESHOLD) {
+            return "DOWN";
+        }
+        return (consecutiveFailures > 0) ? "DEGRADED" : "UP";
+    }
+
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    public long getFailures() {
+        return this.failures.sum();
+    }
+
+    public long getRateLimited() {
+        return this.rateLimited.sum();
+    }
+
+    public long getInFlight() {
+        return this.inFlight.sum();
+    }
+
+    public long getConsecutiveFailures() {
+        return this.consecutiveFailures.get();
+    }
+
+    /**
+     * @return the mean time to the response headers.
+     */
+    public Duration getMeanLatency() {
+        long requests = this.requests.sum();
+        return (requests > 0) ? Duration.ofNanos(this.latencyNanos.sum() / requests) : Duration.ZERO;
+    }
+
+    public Instant getLastSuccess() {
+        return (this.lastSuccessMillis > 0) ? Instant.ofEpochMilli(this.lastSuccessMillis) : null;
+    }
+
+    public Instant getLastFailure() {
+        return (this.lastFailureMillis > 0) ? Instant.ofEpochMilli(this.lastFailureMillis) : null;
+    }
+
+    public String getLastError() {
+        return this.lastError;
+    }
+
+}
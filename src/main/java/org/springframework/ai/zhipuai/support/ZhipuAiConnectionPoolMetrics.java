@@ -0,0 +1,51 @@
+package org.springframework.ai.zhipuai.support;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the Reactor Netty pool gauges of the streaming WebClient without requiring Micrometer, the
+ * gauges are read from the pool on demand.
+ */
+public class ZhipuAiConnectionPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        this.pools.put(key(poolName, id, remoteAddress), metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        this.pools.remove(key(poolName, id, remoteAddress));
+    }
+
+    private static String key(String poolName, String id, SocketAddress remoteAddress) {
+        return poolName + "-" + id + "@" + remoteAddress;
+    }
+
+    /**
+     * @return the current utilisation of every pool, by pool and remote address.
+     */
+    public Map<String, Map<String, Integer>> getPools() {
+        Map<String, Map<String, Integer>> pools = new LinkedHashMap<>();
+        this.pools.forEach((key, metrics) -> {
+            Map<String, Integer> pool = new LinkedHashMap<>();
+            pool.put("acquired", metrics.acquiredSize());
+            pool.put("idle", metrics.idleSize());
+            pool.put("allocated", metrics.allocatedSize());
+            pool.put("maxAllocated", metrics.maxAllocatedSize());
+            pool.put("pendingAcquire", metrics.pendingAcquireSize());
+            pool.put("maxPendingAcquire", metrics.maxPendingAcquireSize());
+            pools.put(key, pool);
+        });
+        return pools;
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Opens pooled connections to the ZhipuAI endpoints before the application is ready, so that the first
+ * requests after a deploy do not pay the DNS, TCP and TLS setup, then keeps them open with periodic
+ * keep-alive requests.
+ * <p>
+ * The warm-up runs in {@link #start()} and blocks for at most {@code timeout}: failures are logged and
+ * never prevent the startup.
+ */
+public class ZhipuAiConnectionWarmer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZhipuAiConnectionWarmer.class);
+
+    private final Supplier<? extends Collection<ZhipuAiApi>> apis;
+
+    private final int connections;
+
+    private final boolean streaming;
+
+    private final Duration timeout;
+
+    private final Duration keepAliveInterval;
+
+    private final Executor executor;
+
+    private final LongAdder warmUps = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    /**
+     * @param apis the APIs to warm, resolved when the warmer starts.
+     * @param connections the number of concurrent connections opened per API.
+     * @param streaming whether to warm the reactive HTTP stack of the streaming calls as well.
+     * @param timeout the maximum time a warm-up round waits for the connections.
+     * @param keepAliveInterval the interval of the keep-alive rounds, zero to disable them.
+     * @param executor the executor the blocking warm-up requests are sent on.
+     */
+    public ZhipuAiConnectionWarmer(Supplier<? extends Collection<ZhipuAiApi>> apis, int connections, boolean streaming,
+                                   Duration timeout, Duration keepAliveInterval, Executor executor) {
+        Assert.notNull(apis, "APIs must not be null");
+        Assert.isTrue(connections > 0, "Connections must be positive");
+        Assert.notNull(timeout, "Timeout must not be null");
+        Assert.notNull(keepAliveInterval, "Keep alive interval must not be null");
+        Assert.notNull(executor, "Executor must not be null");
+        this.apis = apis;
+        this.connections = connections;
+        this.streaming = streaming;
+        this.timeout = timeout;
+        this.keepAliveInterval = keepAliveInterval;
+        this.executor = executor;
+    }
+
+    @Override
+    public void start() {
+        this.running = true;
+        long start = System.nanoTime();
+        this.warmUp();
+        logger.info("Warmed up ZhipuAI connections in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        if (!this.keepAliveInterval.isZero() && !this.keepAliveInterval.isNegative()) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "zhipuai-connection-keep-alive");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = this.keepAliveInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::warmUp, interval, interval, TimeUnit.MILLISECONDS);
+            this.scheduler = scheduler;
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.running = false;
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Send {@code connections} concurrent requests to every API and wait for them, at most {@code timeout}.
+     */
+    public void warmUp() {
+        List<CompletableFuture<?>> requests = new ArrayList<>();
+        for (ZhipuAiApi api : this.apis.get()) {
+            for (int i = 0; i < this.connections; i++) {
+                requests.add(CompletableFuture.runAsync(api::warmUp, this.executor).whenComplete(this::record));
+            }
+            if (this.streaming) {
+                requests.add(api.warmUpStreaming(this.connections).toFuture().whenComplete(this::record));
+            }
+        }
+        try {
+            CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new))
+                    .get(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception ex) {
+            logger.warn("ZhipuAI connection warm-up incomplete: {}", ex.toString());
+        }
+    }
+
+    private void record(Object result, Throwable failure) {
+        if (failure != null) {
+            this.failures.increment();
+            logger.debug("ZhipuAI connection warm-up request failed", failure);
+        }
+        else {
+            this.warmUps.increment();
+        }
+    }
+
+    /**
+     * @return the number of successful warm-up and keep-alive requests.
+     */
+    public long getWarmUps() {
+        return this.warmUps.sum();
+    }
+
+    /**
+     * @return the number of failed warm-up and keep-alive requests.
+     */
+    public long getFailures() {
+        return this.failures.sum();
+    }
+
+}
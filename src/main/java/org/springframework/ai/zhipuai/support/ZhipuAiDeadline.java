@@ -0,0 +1,218 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiDeadlineExceededException;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Absolute deadline of a call and of everything it expands into: retries, backoffs, tool executions and
+ * follow-up requests all share the remaining budget.
+ * <p>
+ * The deadline of a call is the earliest of the {@code deadline} of its {@code ZhipuAiChatOptions}, the
+ * deadline {@link #call(Supplier) bound to the calling thread} and, for the reactive calls, the one found
+ * under {@link #CONTEXT_KEY} in the Reactor context:
+ * <pre>
+ * ChatResponse response = ZhipuAiDeadline.after(Duration.ofSeconds(10)).call(() -&gt; chatClient.call(prompt));
+ * Mono&lt;ChatResponse&gt; async = chatClient.asyncCall(prompt)
+ *         .contextWrite(Context.of(ZhipuAiDeadline.CONTEXT_KEY, ZhipuAiDeadline.after(Duration.ofSeconds(10))));
+ * </pre>
+ * Tool callbacks run with the deadline of their call bound to their thread, so that they can shrink their
+ * own timeouts to {@link #current()}{@code .remaining()}.
+ */
+public final class ZhipuAiDeadline {
+
+    /**
+     * Reactor context key of the deadline of the reactive calls.
+     */
+    public static final Class<ZhipuAiDeadline> CONTEXT_KEY = ZhipuAiDeadline.class;
+
+    private static final ThreadLocal<ZhipuAiDeadline> CURRENT = new ThreadLocal<>();
+
+    private final Duration budget;
+
+    private final long deadlineNanos;
+
+    private ZhipuAiDeadline(Duration budget, long deadlineNanos) {
+        this.budget = budget;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param budget the time left to the deadline.
+     * @return the deadline, {@code budget} from now.
+     */
+    public static ZhipuAiDeadline after(Duration budget) {
+        Assert.notNull(budget, "Budget must not be null");
+        return new ZhipuAiDeadline(budget, System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @return the deadline bound to the current thread, or null.
+     */
+    public static ZhipuAiDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @param context the Reactor context of a call.
+     * @return the deadline of the context, or null.
+     */
+    public static ZhipuAiDeadline current(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, null);
+    }
+
+    /**
+     * @param left a deadline, or null.
+     * @param right another deadline, or null.
+     * @return the earliest of the deadlines, null if both are.
+     */
+    public static ZhipuAiDeadline earliest(ZhipuAiDeadline left, ZhipuAiDeadline right) {
+        if (left == null || right == null) {
+            return (left != null) ? left : right;
+        }
+        return (left.deadlineNanos - right.deadlineNanos <= 0) ? left : right;
+    }
+
+    /**
+     * Run a call with this deadline bound to the current thread, or the deadline already bound when it
+     * comes first.
+     * @param call the call.
+     * @return the result of the call.
+     * @param <T> the type of the result.
+     */
+    public <T> T call(Supplier<T> call) {
+        ZhipuAiDeadline previous = CURRENT.get();
+        CURRENT.set(earliest(previous, this));
+        try {
+            return call.get();
+        }
+        finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            }
+            else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the initial budget of the deadline.
+     */
+    public Duration getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * @return the time left, zero once the deadline passed.
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(this.deadlineNanos - System.nanoTime(), 0));
+    }
+
+    public boolean isExpired() {
+        return this.deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @throws ZhipuAiDeadlineExceededException when the deadline passed.
+     */
+    public void check() {
+        if (this.isExpired()) {
+            throw this.exceeded(null);
+        }
+    }
+
+    /**
+     * Run a blocking call with this deadline bound to the current thread, so that its HTTP requests are
+     * bounded by the remaining budget, see {@link ZhipuAiDeadlineRequestFactory}. A call failing once the
+     * deadline passed, on the timeout of its request for instance, fails with the deadline exceeded.
+     * @param call the blocking call.
+     * @return the result of the call.
+     * @param <T> the type of the result.
+     * @throws ZhipuAiDeadlineExceededException when the deadline passes first.
+     */
+    public <T> T enforce(Supplier<T> call) {
+        ZhipuAiDeadline deadline = earliest(CURRENT.get(), this);
+        deadline.check();
+        try {
+            return deadline.call(call);
+        }
+        catch (ZhipuAiDeadlineExceededException ex) {
+            throw ex;
+        }
+        catch (RuntimeException ex) {
+            if (deadline.isExpired()) {
+                throw deadline.exceeded(ex);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Wait for the result of a call until the deadline at most, without cancelling the call.
+     * @param future the result of the call.
+     * @return the result of the call.
+     * @param <T> the type of the result.
+     * @throws ZhipuAiDeadlineExceededException when the deadline passes first.
+     */
+    public <T> T await(Future<T> future) {
+        try {
+            return future.get(this.deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException ex) {
+            throw this.exceeded(ex);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a ZhipuAI call", ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Fail the call when the deadline passes, cancelling whatever it is waiting for.
+     * @param call the call.
+     * @return the call, failing with a {@link ZhipuAiDeadlineExceededException} at the deadline.
+     * @param <T> the type of the result.
+     */
+    public <T> Mono<T> applyTo(Mono<T> call) {
+        return Mono.defer(() -> call.timeout(this.remaining()))
+                .onErrorMap(TimeoutException.class, this::exceeded)
+                .contextWrite(context -> context.put(CONTEXT_KEY, earliest(current(context), this)));
+    }
+
+    /**
+     * Fail the stream when the deadline passes, cancelling its upstream.
+     * @param stream the stream.
+     * @return the stream, failing with a {@link ZhipuAiDeadlineExceededException} at the deadline.
+     * @param <T> the type of the elements.
+     */
+    public <T> Flux<T> applyTo(Flux<T> stream) {
+        return Flux.defer(() -> stream.timeout(Mono.delay(this.remaining()), element -> Mono.delay(this.remaining())))
+                .onErrorMap(TimeoutException.class, this::exceeded)
+                .contextWrite(context -> context.put(CONTEXT_KEY, earliest(current(context), this)));
+    }
+
+    private ZhipuAiDeadlineExceededException exceeded(Throwable cause) {
+        return new ZhipuAiDeadlineExceededException(this.budget, cause);
+    }
+
+}
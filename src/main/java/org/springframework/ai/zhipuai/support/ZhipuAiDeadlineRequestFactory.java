@@ -0,0 +1,70 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Request factory of the JDK {@link HttpClient} bounding every request by the read timeout and by the
+ * remaining budget of the {@link ZhipuAiDeadline} bound to the calling thread, whichever comes first.
+ * The timeout is applied to the request itself, so that the calling thread does the exchange and is
+ * released at the deadline without any worker thread.
+ */
+public class ZhipuAiDeadlineRequestFactory implements ClientHttpRequestFactory {
+
+    private final HttpClient httpClient;
+
+    private final Executor executor;
+
+    private final Duration readTimeout;
+
+    /**
+     * @param httpClient the HTTP client, shared by the requests, whose executor also writes the request bodies.
+     * @param readTimeout the timeout of the requests without a deadline, null not to bound them.
+     */
+    public ZhipuAiDeadlineRequestFactory(HttpClient httpClient, Duration readTimeout) {
+        this(httpClient, httpClient.executor().orElseGet(() -> new SimpleAsyncTaskExecutor("zhipuai-http-")), readTimeout);
+    }
+
+    /**
+     * @param httpClient the HTTP client, shared by the requests.
+     * @param executor the executor writing the request bodies.
+     * @param readTimeout the timeout of the requests without a deadline, null not to bound them.
+     */
+    public ZhipuAiDeadlineRequestFactory(HttpClient httpClient, Executor executor, Duration readTimeout) {
+        Assert.notNull(httpClient, "HttpClient must not be null");
+        Assert.notNull(executor, "Executor must not be null");
+        this.httpClient = httpClient;
+        this.executor = executor;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        Duration timeout = this.readTimeout;
+        ZhipuAiDeadline deadline = ZhipuAiDeadline.current();
+        if (deadline != null) {
+            deadline.check();
+            Duration remaining = deadline.remaining();
+            if (timeout == null || remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
+            }
+        }
+        // the factory only holds its settings, one per request is cheap
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(this.httpClient, this.executor);
+        if (timeout != null) {
+            requestFactory.setReadTimeout(timeout);
+        }
+        return requestFactory.createRequest(uri, httpMethod);
+    }
+
+}
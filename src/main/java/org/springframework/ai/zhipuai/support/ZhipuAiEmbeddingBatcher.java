@@ -0,0 +1,185 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Micro-batching dispatcher for single text embeddings.
+ * <p>
+ * Concurrent {@link #embed(String)} calls are queued on a lock-free queue and flushed as one
+ * batched upstream request once {@code maxBatchSize} texts are queued or the oldest one has waited
+ * for {@code linger}. At most {@code maxInFlightBatches} batches are sent at the same time, the
+ * texts queued meanwhile are flushed as soon as a batch completes. Each caller's future is completed
+ * with its own vector.
+ */
+public class ZhipuAiEmbeddingBatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZhipuAiEmbeddingBatcher.class);
+
+    private final Function<List<String>, List<List<Double>>> batchCall;
+
+    private final int maxBatchSize;
+
+    private final long lingerNanos;
+
+    private final Semaphore inFlightBatches;
+
+    private final Executor executor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentLinkedQueue<PendingEmbedding> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    /**
+     * @param batchCall the upstream call embedding a batch of texts, returning the vectors in order.
+     * @param maxBatchSize the maximum number of texts per batch.
+     * @param linger the maximum time a text waits for a batch to fill up.
+     * @param maxInFlightBatches the maximum number of batches sent at the same time.
+     * @param executor the executor the batches are sent on.
+     */
+    public ZhipuAiEmbeddingBatcher(Function<List<String>, List<List<Double>>> batchCall, int maxBatchSize,
+                                   Duration linger, int maxInFlightBatches, Executor executor) {
+        Assert.notNull(batchCall, "Batch call must not be null");
+        Assert.isTrue(maxBatchSize > 0, "Max batch size must be positive");
+        Assert.notNull(linger, "Linger must not be null");
+        Assert.isTrue(maxInFlightBatches > 0, "Max in-flight batches must be positive");
+        Assert.notNull(executor, "Executor must not be null");
+        this.batchCall = batchCall;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.inFlightBatches = new Semaphore(maxInFlightBatches);
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "zhipuai-embedding-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue the text for the next batch.
+     * @param text the text to embed.
+     * @return the future completed with the embedding of the text.
+     */
+    public CompletableFuture<List<Double>> embed(String text) {
+        Assert.notNull(text, "Text must not be null");
+        Assert.state(!this.closed, "Embedding batcher closed");
+
+        PendingEmbedding pending = new PendingEmbedding(text, new CompletableFuture<>());
+        this.queue.offer(pending);
+        this.queued.incrementAndGet();
+        if (this.closed) {
+            // closed concurrently, fail the text rather than leaving it queued
+            this.close();
+        }
+        else if (this.queued.get() >= this.maxBatchSize) {
+            this.drain();
+        }
+        else if (this.flushScheduled.compareAndSet(false, true)) {
+            this.scheduler.schedule(() -> {
+                this.flushScheduled.set(false);
+                this.drain();
+            }, this.lingerNanos, TimeUnit.NANOSECONDS);
+        }
+        return pending.future();
+    }
+
+    /**
+     * @return the number of texts waiting for a batch.
+     */
+    public int getQueued() {
+        return this.queued.get();
+    }
+
+    /**
+     * @return the number of batches that can still be sent right now.
+     */
+    public int getAvailableBatches() {
+        return this.inFlightBatches.availablePermits();
+    }
+
+    /**
+     * Stop the linger timer and fail the texts still waiting for a batch, the batches in flight complete.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.scheduler.shutdownNow();
+        PendingEmbedding pending;
+        while ((pending = this.queue.poll()) != null) {
+            this.queued.decrementAndGet();
+            pending.future().completeExceptionally(new IllegalStateException("Embedding batcher closed"));
+        }
+    }
+
+    private void drain() {
+        while (this.queued.get() > 0 && this.inFlightBatches.tryAcquire()) {
+            List<PendingEmbedding> batch = new ArrayList<>(this.maxBatchSize);
+            PendingEmbedding pending;
+            while (batch.size() < this.maxBatchSize && (pending = this.queue.poll()) != null) {
+                batch.add(pending);
+            }
+            if (batch.isEmpty()) {
+                this.inFlightBatches.release();
+                return;
+            }
+            this.queued.addAndGet(-batch.size());
+            try {
+                this.executor.execute(() -> this.dispatch(batch));
+            }
+            catch (RuntimeException ex) {
+                this.inFlightBatches.release();
+                batch.forEach(p -> p.future().completeExceptionally(ex));
+            }
+        }
+    }
+
+    private void dispatch(List<PendingEmbedding> batch) {
+        try {
+            List<List<Double>> embeddings = this.batchCall.apply(batch.stream().map(PendingEmbedding::text).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                if (embeddings != null && i < embeddings.size()) {
+                    batch.get(i).future().complete(embeddings.get(i));
+                }
+                else {
+                    batch.get(i).future().completeExceptionally(
+                            new IllegalStateException("No embedding returned for text at index " + i));
+                }
+            }
+        }
+        catch (RuntimeException | Error ex) {
+            logger.debug("Embedding batch of {} texts failed", batch.size(), ex);
+            batch.forEach(p -> p.future().completeExceptionally(ex));
+        }
+        finally {
+            this.inFlightBatches.release();
+            // Flush the texts queued while every batch was in flight.
+            this.drain();
+        }
+    }
+
+    private record PendingEmbedding(String text, CompletableFuture<List<Double>> future) {
+    }
+
+}
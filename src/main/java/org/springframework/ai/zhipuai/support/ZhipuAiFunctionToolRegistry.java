@@ -0,0 +1,104 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable, copy-on-write snapshot of the registered function callbacks and their precompiled
+ * {@link ZhipuAiApi.FunctionTool} definitions.
+ * <p>
+ * The input type schema of a callback is parsed once, when the callback is registered, instead of on
+ * every request. Readers never lock: they read the current snapshot, while registrations replace it
+ * only when a callback is actually added or changed.
+ */
+public class ZhipuAiFunctionToolRegistry {
+
+    private final AtomicReference<Map<String, CompiledTool>> snapshot = new AtomicReference<>(Map.of());
+
+    /**
+     * Register the given callbacks.
+     * @param functionCallbacks the callbacks to register.
+     * @param override whether a callback replaces an already registered one with the same name.
+     */
+    public void register(Collection<FunctionCallback> functionCallbacks, boolean override) {
+        Assert.notNull(functionCallbacks, "Function callbacks must not be null");
+
+        Map<String, CompiledTool> current;
+        Map<String, CompiledTool> updated;
+        do {
+            current = this.snapshot.get();
+            updated = null;
+            for (FunctionCallback functionCallback : functionCallbacks) {
+                CompiledTool existing = (updated != null ? updated : current).get(functionCallback.getName());
+                if (existing != null && (existing.callback() == functionCallback || !override)) {
+                    continue;
+                }
+                if (updated == null) {
+                    updated = new HashMap<>(current);
+                }
+                updated.put(functionCallback.getName(), compile(functionCallback));
+            }
+            if (updated == null) {
+                return;
+            }
+        }
+        while (!this.snapshot.compareAndSet(current, Collections.unmodifiableMap(updated)));
+    }
+
+    public boolean contains(String functionName) {
+        return this.snapshot.get().containsKey(functionName);
+    }
+
+    /**
+     * @param functionName the function name.
+     * @return the callback registered with the name, or {@code null}.
+     */
+    public FunctionCallback getCallback(String functionName) {
+        CompiledTool compiledTool = this.snapshot.get().get(functionName);
+        return (compiledTool != null ? compiledTool.callback() : null);
+    }
+
+    /**
+     * @param functionNames the function names.
+     * @return the precompiled tool definitions of the functions.
+     * @throws IllegalStateException if a function is not registered.
+     */
+    public List<ZhipuAiApi.FunctionTool> getTools(Collection<String> functionNames) {
+        Map<String, CompiledTool> current = this.snapshot.get();
+        List<ZhipuAiApi.FunctionTool> tools = new ArrayList<>(functionNames.size());
+        for (String functionName : functionNames) {
+            CompiledTool compiledTool = current.get(functionName);
+            if (compiledTool == null) {
+                throw new IllegalStateException("No function callback found for name: " + functionName);
+            }
+            tools.add(compiledTool.tool());
+        }
+        return tools;
+    }
+
+    public int size() {
+        return this.snapshot.get().size();
+    }
+
+    private static CompiledTool compile(FunctionCallback functionCallback) {
+        Map<String, Object> parameters = Collections.unmodifiableMap(
+                ModelOptionsUtils.jsonToMap(functionCallback.getInputTypeSchema()));
+        var function = new ZhipuAiApi.FunctionTool.Function(functionCallback.getDescription(),
+                functionCallback.getName(), parameters);
+        return new CompiledTool(functionCallback, new ZhipuAiApi.FunctionTool(function));
+    }
+
+    private record CompiledTool(FunctionCallback callback, ZhipuAiApi.FunctionTool tool) {
+    }
+
+}
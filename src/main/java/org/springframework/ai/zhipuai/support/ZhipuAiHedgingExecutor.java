@@ -0,0 +1,258 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Issues hedged requests to cut the tail latency of the calls.
+ * <p>
+ * The primary attempt is subscribed first; if it has not completed within the hedge delay a duplicate
+ * attempt is subscribed, possibly against another key or endpoint. The first successful attempt wins and
+ * the other one is cancelled: the attempts being reactive exchanges, cancelling one aborts its HTTP
+ * request and closes its connection. The hedge delay follows the configured percentile of the latencies
+ * observed from the start of the primary attempts, and the number of hedges is limited by a budget
+ * expressed as a fraction of the requests, e.g. {@code 0.05} for at most 5% extra requests.
+ */
+public class ZhipuAiHedgingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZhipuAiHedgingExecutor.class);
+
+    /**
+     * Number of latency samples kept to compute the hedge delay.
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * Minimum number of samples before the percentile replaces the minimum delay.
+     */
+    private static final int MIN_SAMPLES = 64;
+
+    /**
+     * Budget credits are tracked in thousandths of a hedge.
+     */
+    private static final long CREDIT_UNIT = 1000;
+
+    /**
+     * Maximum number of hedges that can be saved up while the latency is good.
+     */
+    private static final long MAX_CREDITS = 10 * CREDIT_UNIT;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final long creditsPerRequest;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    private final AtomicLong hedgeDelayNanos;
+
+    private final AtomicLong credits = new AtomicLong();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * @param percentile latency percentile used as hedge delay, between 0 and 100.
+     * @param minDelay minimum hedge delay, also used until enough latencies have been observed.
+     * @param budget maximum ratio of hedged requests, between 0 and 1.
+     */
+    public ZhipuAiHedgingExecutor(double percentile, Duration minDelay, double budget) {
+        Assert.isTrue(percentile > 0 && percentile <= 100, "Percentile must be in (0, 100]");
+        Assert.notNull(minDelay, "Minimum delay must not be null");
+        Assert.isTrue(budget >= 0 && budget <= 1, "Budget must be in [0, 1]");
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.creditsPerRequest = Math.round(budget * CREDIT_UNIT);
+        this.hedgeDelayNanos = new AtomicLong(this.minDelayNanos);
+    }
+
+    /**
+     * Execute the primary call, hedged with the given call if it is slow, and wait for the response.
+     * @param primary the primary call.
+     * @param hedge the duplicate call issued when the primary one is slower than the hedge delay.
+     * @param <T> the response type.
+     * @return the response of the first successful call.
+     */
+    public <T> T execute(Mono<T> primary, Mono<T> hedge) {
+        return this.hedge(primary, hedge).block();
+    }
+
+    /**
+     * Hedge the primary call with the given call if it is slow. Cancelling the returned {@link Mono}
+     * cancels both attempts.
+     * @param primary the primary call.
+     * @param hedge the duplicate call issued when the primary one is slower than the hedge delay.
+     * @param <T> the response type.
+     * @return the response of the first successful call, or the failure of the last one once every
+     * launched attempt has failed.
+     */
+    public <T> Mono<T> hedge(Mono<T> primary, Mono<T> hedge) {
+        Assert.notNull(primary, "Primary call must not be null");
+        Assert.notNull(hedge, "Hedge call must not be null");
+        return Mono.create(sink -> {
+            this.requests.increment();
+            this.deposit();
+
+            Race<T> race = new Race<>(sink);
+            sink.onDispose(race);
+            race.launch(primary, false);
+            long hedgeDelayNanos = this.hedgeDelayNanos.get();
+            race.attempts.add(Mono.delay(Duration.ofNanos(hedgeDelayNanos)).subscribe(tick -> {
+                if (!race.isDisposed() && this.tryWithdraw()) {
+                    this.hedges.increment();
+                    logger.debug("Primary request slower than {} ms, issuing a hedged request",
+                            TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+                    race.launch(hedge, true);
+                }
+            }));
+        });
+    }
+
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    public long getHedges() {
+        return this.hedges.sum();
+    }
+
+    public long getHedgeWins() {
+        return this.hedgeWins.sum();
+    }
+
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(this.hedgeDelayNanos.get());
+    }
+
+    /**
+     * @return the number of hedges the budget currently allows.
+     */
+    public long getAvailableHedges() {
+        return this.credits.get() / CREDIT_UNIT;
+    }
+
+    private void deposit() {
+        long current;
+        do {
+            current = this.credits.get();
+            if (current >= MAX_CREDITS) {
+                return;
+            }
+        }
+        while (!this.credits.compareAndSet(current, Math.min(MAX_CREDITS, current + this.creditsPerRequest)));
+    }
+
+    private boolean tryWithdraw() {
+        long current;
+        do {
+            current = this.credits.get();
+            if (current < CREDIT_UNIT) {
+                return false;
+            }
+        }
+        while (!this.credits.compareAndSet(current, current - CREDIT_UNIT));
+        return true;
+    }
+
+    private void record(long latencyNanos) {
+        long count = this.sampleCount.getAndIncrement();
+        this.samples.set((int) (count % SAMPLE_SIZE), latencyNanos);
+        // Recompute the percentile every 64 samples, by the thread that crossed the boundary.
+        if (count + 1 >= MIN_SAMPLES && (count + 1) % MIN_SAMPLES == 0) {
+            int size = (int) Math.min(count + 1, SAMPLE_SIZE);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = this.samples.get(i);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.min(size - 1, Math.ceil(this.percentile / 100 * size) - 1);
+            this.hedgeDelayNanos.set(Math.max(this.minDelayNanos, sorted[Math.max(0, index)]));
+        }
+    }
+
+    /**
+     * The attempts of a single request, completing the sink with the first successful one, or with the
+     * failure once every launched attempt has failed.
+     */
+    private final class Race<T> implements Disposable {
+
+        private final MonoSink<T> sink;
+
+        /**
+         * Start of the primary attempt, the latency of a request does not depend on the winning attempt.
+         */
+        private final long startNanos = System.nanoTime();
+
+        private final Disposable.Composite attempts = Disposables.composite();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Race(MonoSink<T> sink) {
+            this.sink = sink;
+        }
+
+        void launch(Mono<T> call, boolean hedge) {
+            this.pending.incrementAndGet();
+            if (this.done.get()) {
+                return;
+            }
+            this.attempts.add(call
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty response")))
+                    .subscribe(response -> this.onSuccess(response, hedge), this::onError));
+        }
+
+        private void onSuccess(T response, boolean hedge) {
+            if (this.done.compareAndSet(false, true)) {
+                record(System.nanoTime() - this.startNanos);
+                if (hedge) {
+                    hedgeWins.increment();
+                }
+                this.sink.success(response);
+            }
+        }
+
+        private void onError(Throwable error) {
+            if (this.pending.decrementAndGet() == 0 && this.done.compareAndSet(false, true)) {
+                this.sink.error(error);
+            }
+        }
+
+        /**
+         * Cancel the attempts still running, and the hedge not issued yet.
+         */
+        @Override
+        public void dispose() {
+            this.done.set(true);
+            this.attempts.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return this.done.get();
+        }
+
+    }
+
+}
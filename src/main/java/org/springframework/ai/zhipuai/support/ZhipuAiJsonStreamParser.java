@@ -0,0 +1,315 @@
+package org.springframework.ai.zhipuai.support;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.util.Assert;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser of the JSON output of a streamed chat completion, reading the content deltas as they
+ * arrive and emitting the values as soon as they are complete instead of after the last chunk:
+ * <ul>
+ * <li>the elements of a root array, such as {@code [{...}, {...}]};</li>
+ * <li>otherwise the elements of the array field of a root object, such as {@code {"items": [{...}, {...}]}}:
+ * the field of the given name, or without a name the first array field whose first element is an object,
+ * so that {@code {"tags": ["a"], "items": [...]}} emits the items. The other fields of the root object are
+ * then ignored;</li>
+ * <li>otherwise the root object itself once complete.</li>
+ * </ul>
+ * Any text before the root value, such as a markdown code fence, and after it is ignored. The deltas are fed
+ * to a non-blocking Jackson parser, each value is buffered as tokens only until it is complete: the values
+ * are emitted whole, never as partial objects.
+ * <pre>
+ * Flux&lt;Book&gt; books = ZhipuAiJsonStreamParser.elements(chatClient.stream(prompt)
+ *         .mapNotNull(response -&gt; response.getResult().getOutput().getContent()), Book.class);
+ * </pre>
+ * An instance parses a single stream and is not thread-safe.
+ *
+ * @param <T> the type of the emitted values.
+ */
+public class ZhipuAiJsonStreamParser<T> {
+
+    private static final ObjectMapper DEFAULT_OBJECT_MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final ObjectMapper objectMapper;
+
+    private final Class<T> type;
+
+    /**
+     * Name of the array field of a root object whose elements are emitted, null for the first array of objects.
+     */
+    private final String arrayField;
+
+    private final JsonParser parser;
+
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+
+    private boolean finished;
+
+    /**
+     * Nesting depth of the parser, before the current token.
+     */
+    private int depth;
+
+    /**
+     * Depth of the elements of the array being emitted, zero until it is found.
+     */
+    private int elementDepth;
+
+    private boolean elementsDone;
+
+    /**
+     * An array field of the root object started, its elements are emitted if the first one is an object.
+     */
+    private boolean candidateArray;
+
+    private TokenBuffer element;
+
+    /**
+     * Root object, buffered until an array of elements is found in it.
+     */
+    private TokenBuffer root;
+
+    public ZhipuAiJsonStreamParser(Class<T> type) {
+        this(DEFAULT_OBJECT_MAPPER, type);
+    }
+
+    public ZhipuAiJsonStreamParser(ObjectMapper objectMapper, Class<T> type) {
+        this(objectMapper, type, null);
+    }
+
+    /**
+     * @param objectMapper the object mapper the values are read with.
+     * @param type the type of the values.
+     * @param arrayField the name of the array field of a root object whose elements are emitted, null for
+     * the first array field of objects.
+     */
+    public ZhipuAiJsonStreamParser(ObjectMapper objectMapper, Class<T> type, String arrayField) {
+        Assert.notNull(objectMapper, "ObjectMapper must not be null");
+        Assert.notNull(type, "Type must not be null");
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.arrayField = arrayField;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException("Failed to create a non-blocking JSON parser", ex);
+        }
+        this.feeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parse the elements of the JSON output of a stream.
+     * @param contents the content deltas of the stream.
+     * @param type the type of the elements.
+     * @return the elements, failing when the output is not complete JSON.
+     * @param <T> the type of the elements.
+     */
+    public static <T> Flux<T> elements(Flux<String> contents, Class<T> type) {
+        return elements(contents, DEFAULT_OBJECT_MAPPER, type);
+    }
+
+    /**
+     * Parse the elements of the JSON output of a stream.
+     * @param contents the content deltas of the stream.
+     * @param type the type of the elements.
+     * @param arrayField the name of the array field of a root object whose elements are emitted, null for
+     * the first array field of objects.
+     * @return the elements, failing when the output is not complete JSON.
+     * @param <T> the type of the elements.
+     */
+    public static <T> Flux<T> elements(Flux<String> contents, Class<T> type, String arrayField) {
+        return elements(contents, DEFAULT_OBJECT_MAPPER, type, arrayField);
+    }
+
+    /**
+     * Parse the elements of the JSON output of a stream.
+     * @param contents the content deltas of the stream.
+     * @param objectMapper the object mapper the elements are read with.
+     * @param type the type of the elements.
+     * @return the elements, failing when the output is not complete JSON.
+     * @param <T> the type of the elements.
+     */
+    public static <T> Flux<T> elements(Flux<String> contents, ObjectMapper objectMapper, Class<T> type) {
+        return elements(contents, objectMapper, type, null);
+    }
+
+    /**
+     * Parse the elements of the JSON output of a stream.
+     * @param contents the content deltas of the stream.
+     * @param objectMapper the object mapper the elements are read with.
+     * @param type the type of the elements.
+     * @param arrayField the name of the array field of a root object whose elements are emitted, null for
+     * the first array field of objects.
+     * @return the elements, failing when the output is not complete JSON.
+     * @param <T> the type of the elements.
+     */
+    public static <T> Flux<T> elements(Flux<String> contents, ObjectMapper objectMapper, Class<T> type,
+                                       String arrayField) {
+        Assert.notNull(contents, "Contents must not be null");
+        return Flux.defer(() -> {
+            ZhipuAiJsonStreamParser<T> parser = new ZhipuAiJsonStreamParser<>(objectMapper, type, arrayField);
+            return contents.concatMapIterable(content -> {
+                        try {
+                            return parser.feed(content);
+                        }
+                        catch (IOException ex) {
+                            throw Exceptions.propagate(ex);
+                        }
+                    })
+                    .concatWith(Flux.defer(() -> {
+                        parser.finish();
+                        return Flux.empty();
+                    }));
+        });
+    }
+
+    /**
+     * Feed the next content delta.
+     * @param content the content delta.
+     * @return the values completed by the delta, in order.
+     * @throws IOException when the output is not valid JSON.
+     */
+    public List<T> feed(String content) throws IOException {
+        if (this.finished || content == null || content.isEmpty()) {
+            return List.of();
+        }
+        if (!this.started) {
+            int start = indexOfRoot(content);
+            if (start < 0) {
+                return List.of();
+            }
+            this.started = true;
+            content = content.substring(start);
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        this.feeder.feedInput(bytes, 0, bytes.length);
+        List<T> values = new ArrayList<>(1);
+        JsonToken token;
+        while (!this.finished && (token = this.parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            this.onToken(token, values);
+        }
+        return values;
+    }
+
+    /**
+     * Signal the end of the output.
+     * @throws IllegalStateException when the output held no JSON value or an incomplete one.
+     */
+    public void finish() {
+        this.feeder.endOfInput();
+        if (!this.started) {
+            throw new IllegalStateException("No JSON value in the output");
+        }
+        if (!this.finished) {
+            throw new IllegalStateException("Incomplete JSON output");
+        }
+    }
+
+    private void onToken(JsonToken token, List<T> values) throws IOException {
+        int depthBefore = this.depth;
+        if (token.isStructStart()) {
+            this.depth++;
+        }
+        else if (token.isStructEnd()) {
+            this.depth--;
+        }
+
+        // the root value starts with a brace or a bracket
+        if (depthBefore == 0) {
+            if (token == JsonToken.START_ARRAY) {
+                this.elementDepth = 1;
+            }
+            else {
+                this.root = new TokenBuffer(this.parser);
+            }
+        }
+
+        if (this.candidateArray && depthBefore == 2) {
+            this.candidateArray = false;
+            if (token == JsonToken.START_OBJECT) {
+                // the elements of the array are emitted instead of the root object
+                this.elementDepth = 2;
+                this.root = null;
+            }
+        }
+
+        if (this.element != null) {
+            this.element.copyCurrentEvent(this.parser);
+            if (this.depth == this.elementDepth) {
+                values.add(this.read(this.element));
+                this.element = null;
+            }
+        }
+        else if (this.elementDepth > 0 && !this.elementsDone && depthBefore == this.elementDepth) {
+            if (token == JsonToken.END_ARRAY) {
+                this.elementsDone = true;
+            }
+            else if (token != JsonToken.FIELD_NAME) {
+                TokenBuffer element = new TokenBuffer(this.parser);
+                element.copyCurrentEvent(this.parser);
+                if (token.isStructStart()) {
+                    this.element = element;
+                }
+                else {
+                    values.add(this.read(element));
+                }
+            }
+        }
+
+        if (this.root != null) {
+            this.root.copyCurrentEvent(this.parser);
+            if (depthBefore == 1 && token == JsonToken.START_ARRAY && this.elementDepth == 0) {
+                if (this.arrayField == null) {
+                    this.candidateArray = true;
+                }
+                else if (this.arrayField.equals(this.parser.currentName())) {
+                    // the elements of the array are emitted instead of the root object
+                    this.elementDepth = 2;
+                    this.root = null;
+                }
+            }
+        }
+
+        if (this.depth == 0) {
+            if (this.root != null) {
+                values.add(this.read(this.root));
+                this.root = null;
+            }
+            this.finished = true;
+        }
+    }
+
+    private T read(TokenBuffer buffer) throws IOException {
+        try (JsonParser parser = buffer.asParser(this.objectMapper)) {
+            return this.objectMapper.readValue(parser, this.type);
+        }
+    }
+
+    private static int indexOfRoot(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.util.Assert;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multicasts a single subscription of a stream to any number of subscribers, for example a UI, an audit
+ * logger and a moderation checker reading the same chat completion.
+ * <p>
+ * The upstream is subscribed on the first subscriber and the latest {@code replay} elements are replayed
+ * to the late ones, even after the stream completed, so that no subscriber issues a new request. When
+ * every subscriber cancelled before the end, the upstream is cancelled and the later subscribers receive
+ * the replayed elements followed by a {@link CancellationException}.
+ *
+ * @param <T> the type of the elements.
+ */
+public class ZhipuAiSharedStream<T> {
+
+    /**
+     * The upstream and the cancellation of the last subscriber may emit concurrently, the loser of the
+     * race retries until the other emission is delivered.
+     */
+    private static final Sinks.EmitFailureHandler RETRY_NON_SERIALIZED =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(5));
+
+    private final Flux<T> upstream;
+
+    private final Sinks.Many<T> sink;
+
+    private final AtomicBoolean connected = new AtomicBoolean();
+
+    private volatile Disposable connection;
+
+    private final Flux<T> flux;
+
+    /**
+     * @param upstream the stream to share, subscribed once.
+     * @param replay the number of latest elements replayed to late subscribers.
+     */
+    public ZhipuAiSharedStream(Flux<T> upstream, int replay) {
+        Assert.notNull(upstream, "Upstream must not be null");
+        Assert.isTrue(replay > 0, "Replay must be positive");
+        this.upstream = upstream;
+        this.sink = Sinks.many().replay().limit(replay);
+        Flux<T> shared = this.sink.asFlux().doFinally(this::disconnectIfUnused);
+        this.flux = Flux.from(subscriber -> {
+            // connect once the subscriber is registered in the sink, a synchronous upstream would
+            // otherwise emit before it and the elements beyond the replay limit would be lost
+            shared.subscribe(subscriber);
+            this.connect();
+        });
+    }
+
+    /**
+     * @return the shared stream, to subscribe to as many times as needed.
+     */
+    public Flux<T> asFlux() {
+        return this.flux;
+    }
+
+    /**
+     * @return the number of current subscribers.
+     */
+    public int getSubscriberCount() {
+        return this.sink.currentSubscriberCount();
+    }
+
+    private void connect() {
+        if (this.connected.compareAndSet(false, true)) {
+            this.connection = this.upstream.subscribe(
+                    value -> this.sink.emitNext(value, RETRY_NON_SERIALIZED),
+                    error -> this.sink.emitError(error, RETRY_NON_SERIALIZED),
+                    () -> this.sink.emitComplete(RETRY_NON_SERIALIZED));
+        }
+    }
+
+    private void disconnectIfUnused(SignalType signalType) {
+        if (signalType == SignalType.CANCEL && this.sink.currentSubscriberCount() == 0) {
+            Disposable connection = this.connection;
+            if (connection != null && !connection.isDisposed()) {
+                connection.dispose();
+                this.sink.emitError(new CancellationException("Shared stream cancelled by all its subscribers"),
+                        RETRY_NON_SERIALIZED);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiDeadlineExceededException;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent requests into a single upstream call shared by all the callers.
+ * <p>
+ * The requests are identified by a key, usually the request record itself. A blocking caller
+ * arriving while an identical call is in flight waits for its response instead of issuing another
+ * one. A stream is shared the same way, late joiners get a replay of the elements emitted so far.
+ * Nothing is cached: the key is released as soon as the call completes.
+ */
+public class ZhipuAiSingleFlight {
+
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Object, Flux<?>> streams = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Execute the call, or join the identical call in flight. A caller with a {@link ZhipuAiDeadline} waits
+     * for the joined call until its own deadline at most, and runs the call again when the joined one ran
+     * out of its own, shorter, deadline.
+     * @param key the request key.
+     * @param call the upstream call.
+     * @param <T> the response type.
+     * @return the response.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> call) {
+        Assert.notNull(key, "Key must not be null");
+
+        while (true) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            CompletableFuture<Object> existing = this.calls.putIfAbsent(key, created);
+            if (existing == null) {
+                return this.lead(key, created, call);
+            }
+            this.coalesced.increment();
+            ZhipuAiDeadline deadline = ZhipuAiDeadline.current();
+            try {
+                return (T) this.join(existing, deadline);
+            }
+            catch (ZhipuAiDeadlineExceededException ex) {
+                if (deadline != null && deadline.isExpired()) {
+                    throw ex;
+                }
+                // do not wait for the failed call to release its key
+                this.calls.remove(key, existing);
+            }
+        }
+    }
+
+    private <T> T lead(Object key, CompletableFuture<Object> created, Supplier<T> call) {
+        try {
+            T response = call.get();
+            created.complete(response);
+            return response;
+        }
+        catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            this.calls.remove(key, created);
+        }
+    }
+
+    private Object join(CompletableFuture<Object> existing, ZhipuAiDeadline deadline) {
+        if (deadline != null) {
+            return deadline.await(existing);
+        }
+        try {
+            return existing.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Subscribe to the stream, or join the identical stream in flight. The upstream is cancelled
+     * once every subscriber has cancelled.
+     * @param key the request key.
+     * @param stream the upstream stream.
+     * @param <T> the element type.
+     * @return the shared stream.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> stream(Object key, Supplier<Flux<T>> stream) {
+        Assert.notNull(key, "Key must not be null");
+
+        return Flux.defer(() -> {
+            AtomicReference<Flux<T>> created = new AtomicReference<>();
+            Flux<T> shared = (Flux<T>) this.streams.computeIfAbsent(key, k -> {
+                Flux<T> flux = stream.get()
+                        .doFinally(signal -> this.streams.remove(k, created.get()))
+                        .replay()
+                        .refCount();
+                created.set(flux);
+                return flux;
+            });
+            if (shared != created.get()) {
+                this.coalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * @return the number of requests served by joining an identical request in flight.
+     */
+    public long getCoalesced() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * @return the number of distinct requests and streams in flight.
+     */
+    public int getInFlight() {
+        return this.calls.size() + this.streams.size();
+    }
+
+}
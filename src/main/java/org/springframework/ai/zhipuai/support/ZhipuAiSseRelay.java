@@ -0,0 +1,342 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Relays the raw server-sent events of {@link ZhipuAiApi#chatCompletionStreamRaw} to a browser, without
+ * decoding, parsing and serializing them again. The bytes are only scanned for the end of the stream,
+ * the length of the content deltas, the usage of the last chunk and the tool calls, reported to a
+ * {@link Listener}.
+ * <p>
+ * With WebFlux the upstream buffers are written to the {@link ServerHttpResponse} as they are; with
+ * Spring MVC they are copied once to a {@link ResponseBodyEmitter}, to be returned with the
+ * {@code text/event-stream} content type:
+ * <pre>
+ * return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+ *         .body(ZhipuAiSseRelay.Mvc.relay(chatClient.streamRaw(prompt), 0L));
+ * </pre>
+ * Tool calls are relayed, not executed: use {@code ZhipuAiChatClient.stream} for function calling.
+ */
+public abstract class ZhipuAiSseRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZhipuAiSseRelay.class);
+
+    private static final byte[] DONE = "[DONE]".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] USAGE = "\"usage\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TOOL_CALLS = "\"tool_calls\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CONTENT = "\"content\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAX_USAGE_BYTES = 512;
+
+    /**
+     * Events of a relayed stream, called on the thread relaying the buffers.
+     */
+    public interface Listener {
+
+        /**
+         * The first tool call of the stream.
+         */
+        default void onToolCall() {
+        }
+
+        /**
+         * A content delta of the stream.
+         * @param characters the approximate number of characters of the delta, escapes and code points
+         * counted as one.
+         */
+        default void onContent(int characters) {
+        }
+
+        /**
+         * The usage of the stream, sent with its last chunk.
+         * @param usage the token usage.
+         */
+        default void onUsage(ZhipuAiApi.Usage usage) {
+        }
+
+        /**
+         * The {@code [DONE]} event ending the stream.
+         */
+        default void onDone() {
+        }
+
+    }
+
+    /**
+     * Scan the buffers of the stream for the events of the listener, without modifying them.
+     * @param upstream the raw server-sent events.
+     * @param listener the listener.
+     * @return the same buffers.
+     */
+    public static Flux<DataBuffer> peek(Flux<DataBuffer> upstream, Listener listener) {
+        Assert.notNull(upstream, "Upstream must not be null");
+        Assert.notNull(listener, "Listener must not be null");
+        return Flux.defer(() -> {
+            Scanner scanner = new Scanner(listener);
+            return upstream.doOnNext(scanner::scan);
+        });
+    }
+
+    /**
+     * Write the raw server-sent events to a WebFlux response, flushing every upstream buffer.
+     * @param upstream the raw server-sent events.
+     * @param response the response.
+     * @return completion of the relay.
+     */
+    public static Mono<Void> relay(Flux<DataBuffer> upstream, ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+        response.getHeaders().setCacheControl(CacheControl.noCache());
+        return response.writeAndFlushWith(upstream.map(Mono::just));
+    }
+
+    /**
+     * Spring MVC variant, in its own class so that the relay does not require spring-webmvc.
+     */
+    public static final class Mvc {
+
+        /**
+         * Buffers read ahead of the servlet writes.
+         */
+        private static final int PREFETCH = 4;
+
+        private Mvc() {
+        }
+
+        /**
+         * Send the raw server-sent events to a Spring MVC response. The blocking servlet writes run on the
+         * bounded elastic scheduler, off the event loop, and only {@value #PREFETCH} buffers are read ahead
+         * of them so that a slow browser holds back its own connection only. The upstream subscription is
+         * cancelled, and the buffers read ahead released, when the emitter completes, times out or fails,
+         * typically when the browser disconnects.
+         * @param upstream the raw server-sent events.
+         * @param timeout the emitter timeout in milliseconds, zero for none, null for the MVC default.
+         * @return the emitter to return from the controller.
+         */
+        public static ResponseBodyEmitter relay(Flux<DataBuffer> upstream, Long timeout) {
+            ResponseBodyEmitter emitter = (timeout != null) ? new ResponseBodyEmitter(timeout) : new ResponseBodyEmitter();
+            Disposable subscription = upstream
+                    .publishOn(Schedulers.boundedElastic(), PREFETCH)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .subscribe(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        try {
+                            emitter.send(bytes, MediaType.TEXT_EVENT_STREAM);
+                        }
+                        catch (IOException ex) {
+                            throw Exceptions.propagate(ex);
+                        }
+                    }, emitter::completeWithError, emitter::complete);
+            emitter.onCompletion(subscription::dispose);
+            emitter.onTimeout(subscription::dispose);
+            emitter.onError(ex -> subscription.dispose());
+            return emitter;
+        }
+
+    }
+
+    /**
+     * Byte level scanner of a single stream, buffers may split the events anywhere.
+     */
+    private static final class Scanner {
+
+        private final Listener listener;
+
+        private final Matcher done = new Matcher(DONE);
+
+        private final Matcher usage = new Matcher(USAGE);
+
+        private final Matcher toolCalls = new Matcher(TOOL_CALLS);
+
+        private final Matcher content = new Matcher(CONTENT);
+
+        private boolean toolCallSeen;
+
+        /**
+         * Position in the content value being counted, see {@link #countContent(byte)}.
+         */
+        private ContentState contentState = ContentState.NONE;
+
+        private int contentCharacters;
+
+        private int unicodeDigits;
+
+        /**
+         * Usage object being captured, from its opening brace.
+         */
+        private byte[] usageBytes;
+
+        private int usageLength;
+
+        /**
+         * Bytes since the start of the line, {@code data: [DONE]} ends at 11 or 12.
+         */
+        private int lineLength;
+
+        Scanner(Listener listener) {
+            this.listener = listener;
+        }
+
+        void scan(DataBuffer buffer) {
+            for (int i = buffer.readPosition(); i < buffer.writePosition(); i++) {
+                byte b = buffer.getByte(i);
+                this.lineLength = (b == '\n') ? 0 : this.lineLength + 1;
+                if (this.usageBytes != null) {
+                    this.captureUsage(b);
+                    continue;
+                }
+                if (this.contentState != ContentState.NONE) {
+                    this.countContent(b);
+                    continue;
+                }
+                if (this.content.matches(b)) {
+                    this.contentState = ContentState.VALUE;
+                }
+                if (this.done.matches(b) && (this.lineLength == 11 || this.lineLength == 12)) {
+                    this.listener.onDone();
+                }
+                if (this.usage.matches(b)) {
+                    this.usageBytes = new byte[MAX_USAGE_BYTES];
+                    this.usageLength = 0;
+                }
+                if (this.toolCalls.matches(b) && !this.toolCallSeen) {
+                    this.toolCallSeen = true;
+                    this.listener.onToolCall();
+                }
+            }
+        }
+
+        /**
+         * Count the characters of the content string value, up to its closing quote. A null content ends
+         * the count at once.
+         */
+        private void countContent(byte b) {
+            switch (this.contentState) {
+                case VALUE -> {
+                    if (b == '"') {
+                        this.contentState = ContentState.STRING;
+                        this.contentCharacters = 0;
+                    }
+                    else if (b != ':' && b != ' ') {
+                        this.contentState = ContentState.NONE;
+                    }
+                }
+                case STRING -> {
+                    if (b == '\\') {
+                        this.contentState = ContentState.ESCAPE;
+                    }
+                    else if (b == '"' || b == '\n') {
+                        this.contentState = ContentState.NONE;
+                        this.listener.onContent(this.contentCharacters);
+                    }
+                    else if ((b & 0xC0) != 0x80) {
+                        // not a UTF-8 continuation byte
+                        this.contentCharacters++;
+                    }
+                }
+                case ESCAPE -> {
+                    this.contentCharacters++;
+                    if (b == 'u') {
+                        this.contentState = ContentState.UNICODE;
+                        this.unicodeDigits = 4;
+                    }
+                    else {
+                        this.contentState = ContentState.STRING;
+                    }
+                }
+                case UNICODE -> {
+                    if (--this.unicodeDigits == 0) {
+                        this.contentState = ContentState.STRING;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * The usage is a flat object of numbers, captured up to its closing brace.
+         */
+        private void captureUsage(byte b) {
+            if (this.usageLength == 0 && b != '{') {
+                if (b != ':' && b != ' ') {
+                    this.usageBytes = null;
+                }
+                return;
+            }
+            if (this.usageLength == MAX_USAGE_BYTES) {
+                this.usageBytes = null;
+                return;
+            }
+            this.usageBytes[this.usageLength++] = b;
+            if (b == '}') {
+                String json = new String(this.usageBytes, 0, this.usageLength, StandardCharsets.UTF_8);
+                this.usageBytes = null;
+                try {
+                    this.listener.onUsage(ModelOptionsUtils.jsonToObject(json, ZhipuAiApi.Usage.class));
+                }
+                catch (RuntimeException ex) {
+                    logger.debug("Ignoring unreadable usage {}", json, ex);
+                }
+            }
+        }
+
+    }
+
+    private enum ContentState {
+
+        NONE, VALUE, STRING, ESCAPE, UNICODE
+
+    }
+
+    /**
+     * Streaming matcher of a pattern whose only border is its first byte, such as a quoted JSON key:
+     * on a mismatch the match can only restart at the current byte.
+     */
+    private static final class Matcher {
+
+        private final byte[] pattern;
+
+        private int matched;
+
+        Matcher(byte[] pattern) {
+            this.pattern = pattern;
+        }
+
+        boolean matches(byte b) {
+            if (b == this.pattern[this.matched]) {
+                if (++this.matched == this.pattern.length) {
+                    this.matched = 0;
+                    return true;
+                }
+                return false;
+            }
+            this.matched = (b == this.pattern[0]) ? 1 : 0;
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,270 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.reactivestreams.Subscription;
+import org.springframework.util.Assert;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.util.context.Context;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded buffer between a stream and its subscriber, holding at most {@code capacity} chunks per stream
+ * whatever the pace of the subscriber, such as a TTS engine or a websocket on a poor link. When the buffer
+ * of a stream is full:
+ * <ul>
+ * <li>{@link Overflow#BLOCK}: no more chunk is requested from the stream, so that reactor-netty stops
+ * reading the connection until the subscriber catches up;</li>
+ * <li>{@link Overflow#COALESCE}: the stream is read on and the incoming chunks are merged into the last
+ * buffered one, the subscriber then receives fewer but larger deltas. The last slot of the buffer is kept
+ * for a chunk that cannot be merged, such as a tool call or a finish reason: once it is taken no more chunk
+ * is requested, as with {@link Overflow#BLOCK};</li>
+ * <li>{@link Overflow#FAIL}: the stream is cancelled and fails at once with an overflow exception, see
+ * {@link Exceptions#isOverflow(Throwable)}.</li>
+ * </ul>
+ * The buffered chunks of all the streams are counted, for diagnostics.
+ */
+public class ZhipuAiStreamBuffer {
+
+    public enum Overflow {
+
+        BLOCK, COALESCE, FAIL
+
+    }
+
+    private final int capacity;
+
+    private final Overflow overflow;
+
+    private final AtomicInteger streams = new AtomicInteger();
+
+    private final LongAdder depth = new LongAdder();
+
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * @param capacity the maximum number of chunks buffered per stream.
+     * @param overflow what to do when the buffer of a stream is full.
+     */
+    public ZhipuAiStreamBuffer(int capacity, Overflow overflow) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        Assert.notNull(overflow, "Overflow must not be null");
+        this.capacity = capacity;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Buffer a stream.
+     * @param stream the stream.
+     * @param coalescer merges two consecutive chunks, returns null when they cannot be merged. Only used
+     * by {@link Overflow#COALESCE}.
+     * @return the buffered stream.
+     * @param <T> the type of the chunks.
+     */
+    public <T> Flux<T> apply(Flux<T> stream, BiFunction<T, T, T> coalescer) {
+        Assert.notNull(stream, "Stream must not be null");
+        Assert.notNull(coalescer, "Coalescer must not be null");
+        return Flux.create(sink -> stream.subscribe(new Buffer<>(sink, coalescer)));
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public Overflow getOverflow() {
+        return this.overflow;
+    }
+
+    /**
+     * @return the number of buffered streams.
+     */
+    public int getStreams() {
+        return this.streams.get();
+    }
+
+    /**
+     * @return the number of chunks buffered by all the streams.
+     */
+    public long getDepth() {
+        return this.depth.sum();
+    }
+
+    /**
+     * @return the highest number of chunks buffered by a stream.
+     */
+    public int getMaxDepth() {
+        return this.maxDepth.get();
+    }
+
+    /**
+     * @return the number of chunks merged into a buffered one.
+     */
+    public long getCoalesced() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * @return the number of streams failed by an overflow.
+     */
+    public long getOverflows() {
+        return this.overflows.sum();
+    }
+
+    private final class Buffer<T> extends BaseSubscriber<T> {
+
+        private final FluxSink<T> sink;
+
+        private final BiFunction<T, T, T> coalescer;
+
+        private final ArrayDeque<T> queue = new ArrayDeque<>();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private boolean released;
+
+        private Throwable error;
+
+        private volatile boolean done;
+
+        private Buffer(FluxSink<T> sink, BiFunction<T, T, T> coalescer) {
+            this.sink = sink;
+            this.coalescer = coalescer;
+            ZhipuAiStreamBuffer.this.streams.incrementAndGet();
+            sink.onRequest(n -> this.drain());
+            sink.onDispose(this::release);
+        }
+
+        @Override
+        public Context currentContext() {
+            return Context.of(this.sink.contextView());
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (ZhipuAiStreamBuffer.this.overflow == Overflow.FAIL) {
+                this.requestUnbounded();
+            }
+            else {
+                // the buffered chunks and the requested ones never exceed the capacity
+                this.request(ZhipuAiStreamBuffer.this.capacity);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(T value) {
+            boolean overflowed = false;
+            boolean coalesced = false;
+            synchronized (this.queue) {
+                if (this.released) {
+                    return;
+                }
+                T merged = null;
+                if (ZhipuAiStreamBuffer.this.overflow == Overflow.FAIL
+                        && this.queue.size() >= ZhipuAiStreamBuffer.this.capacity) {
+                    ZhipuAiStreamBuffer.this.depth.add(-this.queue.size());
+                    this.queue.clear();
+                    overflowed = true;
+                }
+                else if (ZhipuAiStreamBuffer.this.overflow == Overflow.COALESCE && !this.queue.isEmpty()
+                        && this.queue.size() >= ZhipuAiStreamBuffer.this.capacity - 1) {
+                    merged = this.coalescer.apply(this.queue.peekLast(), value);
+                }
+                if (merged != null) {
+                    this.queue.pollLast();
+                    this.queue.offerLast(merged);
+                    ZhipuAiStreamBuffer.this.coalesced.increment();
+                    coalesced = true;
+                }
+                else if (!overflowed) {
+                    this.queue.offerLast(value);
+                    ZhipuAiStreamBuffer.this.depth.increment();
+                    ZhipuAiStreamBuffer.this.maxDepth.accumulateAndGet(this.queue.size(), Math::max);
+                }
+            }
+            if (coalesced) {
+                // the chunk took no slot, read on
+                this.request(1);
+            }
+            if (overflowed) {
+                ZhipuAiStreamBuffer.this.overflows.increment();
+                this.cancel();
+                this.error = Exceptions.failWithOverflow("ZhipuAI stream buffer of "
+                        + ZhipuAiStreamBuffer.this.capacity + " chunks overflowed by a slow subscriber");
+                this.done = true;
+            }
+            this.drain();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            this.done = true;
+            this.drain();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            this.error = throwable;
+            this.done = true;
+            this.drain();
+        }
+
+        private void drain() {
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!this.sink.isCancelled() && this.sink.requestedFromDownstream() > 0) {
+                    T value;
+                    synchronized (this.queue) {
+                        value = this.queue.pollFirst();
+                    }
+                    if (value == null) {
+                        break;
+                    }
+                    ZhipuAiStreamBuffer.this.depth.decrement();
+                    this.sink.next(value);
+                    if (ZhipuAiStreamBuffer.this.overflow != Overflow.FAIL) {
+                        this.request(1);
+                    }
+                }
+                boolean empty;
+                synchronized (this.queue) {
+                    empty = this.queue.isEmpty();
+                }
+                if (this.done && empty) {
+                    if (this.error != null) {
+                        this.sink.error(this.error);
+                    }
+                    else {
+                        this.sink.complete();
+                    }
+                    return;
+                }
+                missed = this.wip.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private void release() {
+            this.dispose();
+            synchronized (this.queue) {
+                ZhipuAiStreamBuffer.this.depth.add(-this.queue.size());
+                this.queue.clear();
+                this.released = true;
+            }
+            ZhipuAiStreamBuffer.this.streams.decrementAndGet();
+        }
+
+    }
+
+}
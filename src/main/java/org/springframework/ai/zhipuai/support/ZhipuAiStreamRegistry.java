@@ -0,0 +1,134 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.ai.zhipuai.util.ApiUtils;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the chat completion streams in flight, for diagnostics. Opening and closing a stream is a
+ * single concurrent map operation and every delta a plain atomic add of its estimated tokens.
+ * <p>
+ * The streams cancelled by their subscriber are counted along with the tokens already received, estimated
+ * from the content of the deltas: the generation was paid for but never used. Cancelling a stream aborts its HTTP
+ * connection, which is closed rather than drained back into the pool.
+ */
+public class ZhipuAiStreamRegistry {
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Map<Long, StreamHandle> streams = new ConcurrentHashMap<>();
+
+    private final LongAdder cancelled = new LongAdder();
+
+    private final LongAdder cancelledTokens = new LongAdder();
+
+    /**
+     * Register a new stream, to be {@link StreamHandle#close() closed} when it terminates.
+     * @param model the model of the stream.
+     * @return the handle of the stream.
+     */
+    public StreamHandle open(String model) {
+        StreamHandle handle = new StreamHandle(this.ids.incrementAndGet(), model);
+        this.streams.put(handle.getId(), handle);
+        return handle;
+    }
+
+    /**
+     * @return a live view of the streams in flight.
+     */
+    public Collection<StreamHandle> getStreams() {
+        return Collections.unmodifiableCollection(this.streams.values());
+    }
+
+    public int size() {
+        return this.streams.size();
+    }
+
+    /**
+     * @return the number of streams cancelled by their subscriber.
+     */
+    public long getCancelled() {
+        return this.cancelled.sum();
+    }
+
+    /**
+     * @return the number of tokens received by the cancelled streams.
+     */
+    public long getCancelledTokens() {
+        return this.cancelledTokens.sum();
+    }
+
+    public final class StreamHandle {
+
+        private final long id;
+
+        private final String model;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicLong tokens = new AtomicLong();
+
+        private StreamHandle(long id, String model) {
+            this.id = id;
+            this.model = model;
+        }
+
+        /**
+         * Count the estimated tokens of a received delta.
+         * @param content the content of the delta, can be null.
+         */
+        public void contentReceived(String content) {
+            this.contentReceived((content != null) ? content.length() : 0);
+        }
+
+        /**
+         * Count the estimated tokens of a received delta.
+         * @param characters the number of characters of the content of the delta.
+         */
+        public void contentReceived(int characters) {
+            if (characters > 0) {
+                this.tokens.addAndGet(ApiUtils.estimateTokens(characters));
+            }
+        }
+
+        public void close() {
+            ZhipuAiStreamRegistry.this.streams.remove(this.id);
+        }
+
+        /**
+         * Unregister the stream, counting it as cancelled when it terminated with a cancellation.
+         * @param signalType the terminal signal of the stream.
+         */
+        public void close(SignalType signalType) {
+            if (ZhipuAiStreamRegistry.this.streams.remove(this.id) != null && signalType == SignalType.CANCEL) {
+                ZhipuAiStreamRegistry.this.cancelled.increment();
+                ZhipuAiStreamRegistry.this.cancelledTokens.add(this.tokens.get());
+            }
+        }
+
+        public long getId() {
+            return this.id;
+        }
+
+        public String getModel() {
+            return this.model;
+        }
+
+        public Duration getAge() {
+            return Duration.ofNanos(System.nanoTime() - this.startNanos);
+        }
+
+        public long getTokens() {
+            return this.tokens.get();
+        }
+
+    }
+
+}
@@ -0,0 +1,319 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.Assert;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of resumable chat completion streams, for clients that may drop their connection mid-generation.
+ * <p>
+ * The upstream of a session is consumed whether a client is connected or not, and its latest
+ * {@code maxEvents} chunks are kept with increasing event ids. A reconnecting client resumes from the id of
+ * the last event it received, typically the {@code Last-Event-ID} header of a server-sent events request,
+ * instead of paying for the same generation again. Once no client has been connected for
+ * {@code gracePeriod} the upstream is cancelled, and terminated sessions are evicted after {@code ttl}.
+ */
+public class ZhipuAiStreamSessions implements AutoCloseable {
+
+    /**
+     * The upstream and the abandonment of a session may emit concurrently, the loser of the race retries
+     * instead of dropping its signal.
+     */
+    private static final Sinks.EmitFailureHandler RETRY_NON_SERIALIZED =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(5));
+
+    private final int maxSessions;
+
+    private final int maxEvents;
+
+    private final Duration gracePeriod;
+
+    private final Duration ttl;
+
+    private final Map<String, StreamSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Number of sessions held or being opened, reserved before the session is added.
+     */
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder resumes = new LongAdder();
+
+    private final LongAdder abandoned = new LongAdder();
+
+    /**
+     * @param maxSessions the maximum number of sessions held, running or terminated.
+     * @param maxEvents the maximum number of events kept per session for resumption.
+     * @param gracePeriod the time the upstream keeps generating without any connected client.
+     * @param ttl the time a terminated session can still be resumed.
+     */
+    public ZhipuAiStreamSessions(int maxSessions, int maxEvents, Duration gracePeriod, Duration ttl) {
+        Assert.isTrue(maxSessions > 0, "Max sessions must be positive");
+        Assert.isTrue(maxEvents > 0, "Max events must be positive");
+        Assert.notNull(gracePeriod, "Grace period must not be null");
+        Assert.notNull(ttl, "TTL must not be null");
+        this.maxSessions = maxSessions;
+        this.maxEvents = maxEvents;
+        this.gracePeriod = gracePeriod;
+        this.ttl = ttl;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "zhipuai-stream-sessions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start streaming the request in a new session.
+     * @param zhipuAiApi the API to stream from.
+     * @param request the streaming chat completion request.
+     * @return the session.
+     */
+    public StreamSession open(ZhipuAiApi zhipuAiApi, ZhipuAiApi.ChatCompletionRequest request) {
+        return this.open(zhipuAiApi.chatCompletionStream(request));
+    }
+
+    /**
+     * Start consuming the chunks in a new session.
+     * @param upstream the chunks, subscribed at once.
+     * @return the session.
+     * @throws IllegalStateException when {@code maxSessions} sessions are running.
+     */
+    public StreamSession open(Flux<ZhipuAiApi.ChatCompletionChunk> upstream) {
+        if (!this.reserve()) {
+            this.evictOldestTerminated();
+            if (!this.reserve()) {
+                throw new IllegalStateException("Too many resumable stream sessions: " + this.maxSessions);
+            }
+        }
+        StreamSession session = new StreamSession(UUID.randomUUID().toString());
+        this.sessions.put(session.getId(), session);
+        session.start(upstream);
+        return session;
+    }
+
+    /**
+     * @param id the session id.
+     * @return the session, or null when it is unknown or evicted.
+     */
+    public StreamSession get(String id) {
+        return (id != null) ? this.sessions.get(id) : null;
+    }
+
+    public Collection<StreamSession> getSessions() {
+        return this.sessions.values();
+    }
+
+    /**
+     * @return the number of reconnections.
+     */
+    public long getResumes() {
+        return this.resumes.sum();
+    }
+
+    /**
+     * @return the number of upstreams cancelled after the grace period.
+     */
+    public long getAbandoned() {
+        return this.abandoned.sum();
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        this.sessions.values().forEach(StreamSession::cancel);
+        this.sessions.values().forEach(this::remove);
+    }
+
+    /**
+     * Reserve a slot for a new session, the count and the check are a single atomic step.
+     * @return false when {@code maxSessions} sessions are held.
+     */
+    private boolean reserve() {
+        int count;
+        do {
+            count = this.sessionCount.get();
+            if (count >= this.maxSessions) {
+                return false;
+            }
+        }
+        while (!this.sessionCount.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    private void remove(StreamSession session) {
+        if (this.sessions.remove(session.getId(), session)) {
+            this.sessionCount.decrementAndGet();
+        }
+    }
+
+    private void evictOldestTerminated() {
+        this.sessions.values()
+                .stream()
+                .filter(StreamSession::isTerminated)
+                .min((left, right) -> Long.compare(left.terminatedAt, right.terminatedAt))
+                .ifPresent(this::remove);
+    }
+
+    /**
+     * An event of a session: a chunk and its id.
+     * @param id the event id, increasing from 1.
+     * @param chunk the chat completion chunk.
+     */
+    public record Event(long id, ZhipuAiApi.ChatCompletionChunk chunk) {
+
+        public ServerSentEvent<ZhipuAiApi.ChatCompletionChunk> toServerSentEvent() {
+            return ServerSentEvent.builder(this.chunk).id(Long.toString(this.id)).build();
+        }
+
+    }
+
+    public final class StreamSession {
+
+        private final String id;
+
+        private final Sinks.Many<Event> sink = Sinks.many().replay().limit(ZhipuAiStreamSessions.this.maxEvents);
+
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        private long sequence;
+
+        private volatile long terminatedAt;
+
+        private volatile Disposable upstream;
+
+        private volatile ScheduledFuture<?> pendingCancellation;
+
+        private StreamSession(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return this.id;
+        }
+
+        public boolean isTerminated() {
+            return this.terminated.get();
+        }
+
+        /**
+         * @return the number of connected clients.
+         */
+        public int getSubscriberCount() {
+            return this.sink.currentSubscriberCount();
+        }
+
+        /**
+         * Read the events of the session, the kept ones first then the live ones.
+         * @param lastEventId the id of the last event received, zero to read from the start.
+         * @return the events following {@code lastEventId}, failing with an {@link IllegalStateException}
+         * when some of them were already dropped from the buffer.
+         */
+        public Flux<Event> events(long lastEventId) {
+            if (lastEventId > 0) {
+                ZhipuAiStreamSessions.this.resumes.increment();
+            }
+            return Flux.defer(() -> {
+                boolean[] first = {true};
+                return this.sink.asFlux()
+                        .filter(event -> event.id() > lastEventId)
+                        .handle((event, sink) -> {
+                            if (first[0] && event.id() > lastEventId + 1) {
+                                sink.error(new IllegalStateException("Events " + (lastEventId + 1) + " to "
+                                        + (event.id() - 1) + " of stream session " + this.id + " were dropped"));
+                                return;
+                            }
+                            first[0] = false;
+                            sink.next(event);
+                        });
+            })
+            .doOnSubscribe(subscription -> this.cancelPendingCancellation())
+            .doFinally(this::scheduleCancellationIfUnused);
+        }
+
+        private void start(Flux<ZhipuAiApi.ChatCompletionChunk> upstream) {
+            // the upstream signals are serialized, so is the sequence
+            this.upstream = upstream.subscribe(
+                    chunk -> this.sink.emitNext(new Event(++this.sequence, chunk), RETRY_NON_SERIALIZED),
+                    error -> {
+                        this.sink.emitError(error, RETRY_NON_SERIALIZED);
+                        this.terminate();
+                    },
+                    () -> {
+                        this.sink.emitComplete(RETRY_NON_SERIALIZED);
+                        this.terminate();
+                    });
+            // nobody may ever connect
+            this.scheduleCancellationIfUnused(SignalType.CANCEL);
+        }
+
+        private void cancelPendingCancellation() {
+            ScheduledFuture<?> pendingCancellation = this.pendingCancellation;
+            if (pendingCancellation != null) {
+                pendingCancellation.cancel(false);
+                this.pendingCancellation = null;
+            }
+        }
+
+        private void scheduleCancellationIfUnused(SignalType signalType) {
+            if (signalType == SignalType.CANCEL && !this.isTerminated() && this.sink.currentSubscriberCount() == 0) {
+                this.cancelPendingCancellation();
+                this.pendingCancellation = ZhipuAiStreamSessions.this.scheduler.schedule(() -> {
+                    if (this.sink.currentSubscriberCount() == 0 && !this.isTerminated()) {
+                        ZhipuAiStreamSessions.this.abandoned.increment();
+                        this.cancel();
+                    }
+                }, ZhipuAiStreamSessions.this.gracePeriod.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void cancel() {
+            Disposable upstream = this.upstream;
+            if (upstream != null) {
+                upstream.dispose();
+            }
+            if (this.terminate()) {
+                this.sink.emitError(new IllegalStateException("Stream session " + this.id + " was abandoned"),
+                        RETRY_NON_SERIALIZED);
+            }
+        }
+
+        /**
+         * @return false when the session was already terminated.
+         */
+        private boolean terminate() {
+            if (this.terminated.compareAndSet(false, true)) {
+                this.terminatedAt = System.nanoTime();
+                this.cancelPendingCancellation();
+                if (!ZhipuAiStreamSessions.this.scheduler.isShutdown()) {
+                    ZhipuAiStreamSessions.this.scheduler.schedule(
+                            () -> ZhipuAiStreamSessions.this.remove(this),
+                            ZhipuAiStreamSessions.this.ttl.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
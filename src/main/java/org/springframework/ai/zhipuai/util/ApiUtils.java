@@ -1,9 +1,30 @@
 package org.springframework.ai.zhipuai.util;
 
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.zhipuai.api.ZhipuAiDeadlineExceededException;
+import org.springframework.ai.zhipuai.api.ZhipuAiTimeoutException;
+import org.springframework.ai.zhipuai.api.ZhipuAiTimeouts;
+import org.springframework.ai.zhipuai.support.ZhipuAiDeadline;
+import org.springframework.ai.zhipuai.support.ZhipuAiDeadlineRequestFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class ApiUtils {
     public final static String DEFAULT_BASE_URL = "https://open.bigmodel.cn/api/paas";
@@ -14,6 +35,35 @@ public class ApiUtils {
 
     public static final Float DEFAULT_TOP_P = 0.7f;
 
+    /**
+     * Reactive counterpart of {@code RetryUtils.DEFAULT_RETRY_TEMPLATE}: up to 10 attempts with an
+     * exponential backoff starting at 2 seconds and capped at 3 minutes, only for
+     * {@link TransientAiException}s. The last failure is rethrown once the attempts are exhausted.
+     */
+    public static final Retry DEFAULT_REACTIVE_RETRY = Retry.backoff(9, Duration.ofSeconds(2))
+            .maxBackoff(Duration.ofMinutes(3))
+            .filter(TransientAiException.class::isInstance)
+            .onRetryExhaustedThrow((retrySpec, retrySignal) -> retrySignal.failure());
+
+    /**
+     * Approximate number of tokens of the given text: GLM models average about 1.6 characters per token,
+     * the exact count is only known from the usage of the response.
+     * @param text the text, can be null.
+     * @return the estimated number of tokens.
+     */
+    public static int estimateTokens(String text) {
+        return (text != null) ? estimateTokens(text.length()) : 0;
+    }
+
+    /**
+     * Approximate number of tokens of a text of the given length, see {@link #estimateTokens(String)}.
+     * @param characters the number of characters of the text.
+     * @return the estimated number of tokens.
+     */
+    public static int estimateTokens(int characters) {
+        return (int) Math.ceil(characters / 1.6);
+    }
+
     public static Consumer<HttpHeaders> getJsonContentHeaders(String apiKey) {
         return (headers) -> {
             headers.setBearerAuth(apiKey);
@@ -22,4 +72,136 @@ public class ApiUtils {
         };
     };
 
+    /**
+     * Reactive counterpart of {@code RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER}: 4xx responses are
+     * mapped to a {@link NonTransientAiException}, all other errors to a {@link TransientAiException}.
+     * @param response the error response.
+     * @return the exception to signal.
+     */
+    public static Mono<? extends Throwable> toAiException(ClientResponse response) {
+        return response.bodyToMono(String.class).defaultIfEmpty("").map(body -> {
+            String message = String.format("%s - %s", response.statusCode().value(), body);
+            if (response.statusCode().is4xxClientError()) {
+                return new NonTransientAiException(message);
+            }
+            return new TransientAiException(message);
+        });
+    }
+
+    /**
+     * Apply the first token, idle and deadline {@link ZhipuAiTimeouts timeouts} to a stream, and translate
+     * the connect and response timeouts of the HTTP stack. The idle timeout never extends past the deadline.
+     * @param stream the stream.
+     * @param timeouts the timeouts.
+     * @return the stream failing with a {@link ZhipuAiTimeoutException} when a timeout is exceeded, with a
+     * {@link ZhipuAiDeadlineExceededException} at the deadline.
+     * @param <T> the type of the chunks.
+     */
+    public static <T> Flux<T> withTimeouts(Flux<T> stream, ZhipuAiTimeouts timeouts) {
+        Flux<T> timed = stream;
+        if (timeouts.firstToken() != null || timeouts.idle() != null || timeouts.deadline() != null) {
+            timed = Flux.defer(() -> {
+                long start = System.nanoTime();
+                return stream.timeout(timeout(ZhipuAiTimeoutException.Kind.FIRST_TOKEN, timeouts.firstToken(), timeouts.deadline(), start),
+                        chunk -> timeout(ZhipuAiTimeoutException.Kind.IDLE, timeouts.idle(), timeouts.deadline(), start));
+            });
+        }
+        return timed.onErrorMap(ex -> toTimeoutException(ex, timeouts));
+    }
+
+    /**
+     * Apply the deadline {@link ZhipuAiTimeouts timeout} to a reactive call, and translate the connect and
+     * response timeouts of the HTTP stack.
+     * @param call the call.
+     * @param timeouts the timeouts.
+     * @return the call failing with a {@link ZhipuAiTimeoutException} when a timeout is exceeded, with a
+     * {@link ZhipuAiDeadlineExceededException} at the deadline.
+     * @param <T> the type of the response.
+     */
+    public static <T> Mono<T> withTimeouts(Mono<T> call, ZhipuAiTimeouts timeouts) {
+        Mono<T> timed = call;
+        if (timeouts.deadline() != null) {
+            timed = call.timeout(timeouts.deadline())
+                    .onErrorMap(TimeoutException.class,
+                            ex -> new ZhipuAiDeadlineExceededException(timeouts.deadline(), ex));
+        }
+        return timed.onErrorMap(ex -> toTimeoutException(ex, timeouts));
+    }
+
+    /**
+     * Apply the deadline {@link ZhipuAiTimeouts timeout} to a blocking call, or the {@link ZhipuAiDeadline}
+     * bound to the calling thread when it comes first. The deadline is bound to the calling thread for the
+     * {@link ZhipuAiDeadlineRequestFactory} to bound the requests of the call by the remaining budget, other
+     * request factories only check it before the call.
+     * @param call the blocking call.
+     * @param timeouts the timeouts of the call.
+     * @return the result of the call.
+     * @param <T> the type of the result.
+     * @throws ZhipuAiDeadlineExceededException at the deadline.
+     */
+    public static <T> T withTimeouts(Supplier<T> call, ZhipuAiTimeouts timeouts) {
+        ZhipuAiDeadline deadline = ZhipuAiDeadline.earliest(ZhipuAiDeadline.current(),
+                (timeouts.deadline() != null) ? ZhipuAiDeadline.after(timeouts.deadline()) : null);
+        return (deadline != null) ? deadline.enforce(call) : call.get();
+    }
+
+    /**
+     * Interceptor translating the connect and read timeouts of the blocking calls.
+     * @param timeouts the timeouts of the request factory.
+     * @return the interceptor.
+     */
+    public static ClientHttpRequestInterceptor timeoutInterceptor(ZhipuAiTimeouts timeouts) {
+        return (request, body, execution) -> {
+            try {
+                return execution.execute(request, body);
+            }
+            catch (IOException | RuntimeException ex) {
+                if (toTimeoutException(ex, timeouts) instanceof ZhipuAiTimeoutException timeoutException) {
+                    throw timeoutException;
+                }
+                throw ex;
+            }
+        };
+    }
+
+    /**
+     * Translate the connect and read timeouts of the Reactor Netty and JDK HTTP clients.
+     * @param ex the failure of a call.
+     * @param timeouts the timeouts of the call.
+     * @return a {@link ZhipuAiTimeoutException} for a timeout, the failure otherwise.
+     */
+    public static Throwable toTimeoutException(Throwable ex, ZhipuAiTimeouts timeouts) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ZhipuAiTimeoutException || cause instanceof ZhipuAiDeadlineExceededException) {
+                return cause;
+            }
+            if (cause instanceof ConnectTimeoutException || cause instanceof HttpConnectTimeoutException
+                    || (cause instanceof SocketTimeoutException && String.valueOf(cause.getMessage()).contains("onnect timed out"))) {
+                return new ZhipuAiTimeoutException(ZhipuAiTimeoutException.Kind.CONNECT, timeouts.connect(), ex);
+            }
+            if (cause instanceof ReadTimeoutException || cause instanceof SocketTimeoutException
+                    || cause instanceof HttpTimeoutException) {
+                return new ZhipuAiTimeoutException(ZhipuAiTimeoutException.Kind.RESPONSE, timeouts.getReadTimeout(), ex);
+            }
+        }
+        return ex;
+    }
+
+    /**
+     * Timeout of the next chunk of a stream, the deadline when it comes first.
+     */
+    private static Mono<Object> timeout(ZhipuAiTimeoutException.Kind kind, Duration timeout, Duration deadline, long start) {
+        if (deadline != null) {
+            long remaining = deadline.toNanos() - (System.nanoTime() - start);
+            if (timeout == null || remaining <= timeout.toNanos()) {
+                return Mono.delay(Duration.ofNanos(Math.max(remaining, 0)))
+                        .then(Mono.error(() -> new ZhipuAiDeadlineExceededException(deadline)));
+            }
+        }
+        if (timeout == null) {
+            return Mono.never();
+        }
+        return Mono.delay(timeout).then(Mono.error(() -> new ZhipuAiTimeoutException(kind, timeout)));
+    }
+
 }
@@ -0,0 +1,98 @@
+package org.springframework.ai.zhipuai.util;
+
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiEmbeddingOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiImageApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiImageOptions;
+
+/**
+ * Hand-written equivalents of {@link ModelOptionsUtils#merge(Object, Object, Class)} for the ZhipuAI
+ * options and requests. The non-null fields of the source override the fields of the target that
+ * share the same JSON property name, without the object to map to object JSON round trip. As with
+ * {@link ModelOptionsUtils#merge(Object, Object, Class)}, a null source leaves the target as is.
+ */
+public abstract class OptionsUtils {
+
+    /**
+     * Convert the chat options to a request template holding their request fields.
+     * @param options the chat options.
+     * @return the request template, without messages, empty when the options are null.
+     */
+    public static ZhipuAiApi.ChatCompletionRequest toRequest(ZhipuAiChatOptions options) {
+        if (options == null) {
+            return new ZhipuAiApi.ChatCompletionRequest(null, null, null, null, null, null, null, null, null,
+                    null, null, null);
+        }
+        String toolChoice = (options.getToolChoice() != null) ? toJsonValue(options.getToolChoice()) : null;
+        return new ZhipuAiApi.ChatCompletionRequest(null, options.getModel(), null, options.getDoSample(), null,
+                options.getTemperature(), options.getTopP(), options.getMaxTokens(), options.getStop(),
+                options.getTools(), toolChoice, options.getUser());
+    }
+
+    /**
+     * Merge two chat completion requests.
+     * @param source the request whose non-null fields win.
+     * @param target the request providing the other fields.
+     * @return the merged request.
+     */
+    public static ZhipuAiApi.ChatCompletionRequest merge(ZhipuAiApi.ChatCompletionRequest source,
+                                                         ZhipuAiApi.ChatCompletionRequest target) {
+        if (source == null || target == null) {
+            return (source != null) ? source : target;
+        }
+        return new ZhipuAiApi.ChatCompletionRequest(
+                source.requestId() != null ? source.requestId() : target.requestId(),
+                source.model() != null ? source.model() : target.model(),
+                source.messages() != null ? source.messages() : target.messages(),
+                source.doSample() != null ? source.doSample() : target.doSample(),
+                source.stream() != null ? source.stream() : target.stream(),
+                source.temperature() != null ? source.temperature() : target.temperature(),
+                source.topP() != null ? source.topP() : target.topP(),
+                source.maxTokens() != null ? source.maxTokens() : target.maxTokens(),
+                source.stop() != null ? source.stop() : target.stop(),
+                source.tools() != null ? source.tools() : target.tools(),
+                source.toolChoice() != null ? source.toolChoice() : target.toolChoice(),
+                source.user() != null ? source.user() : target.user());
+    }
+
+    /**
+     * Merge the image options into the image request. Only the model is shared by both, the
+     * {@code user} option is serialized as {@code user} while the request expects {@code user_id}.
+     * @param source the image options whose non-null fields win.
+     * @param target the image request.
+     * @return the merged request.
+     */
+    public static ZhipuAiImageApi.ZhipuAiImageRequest merge(ZhipuAiImageOptions source,
+                                                            ZhipuAiImageApi.ZhipuAiImageRequest target) {
+        if (source == null) {
+            return target;
+        }
+        return new ZhipuAiImageApi.ZhipuAiImageRequest(target.prompt(),
+                source.getModel() != null ? source.getModel() : target.model(), target.user());
+    }
+
+    /**
+     * Merge the embedding options into the embedding request. Options other than
+     * {@link ZhipuAiEmbeddingOptions} fall back to {@link ModelOptionsUtils#merge}.
+     * @param source the embedding options whose non-null fields win.
+     * @param target the embedding request.
+     * @return the merged request.
+     */
+    public static ZhipuAiApi.EmbeddingRequest merge(EmbeddingOptions source, ZhipuAiApi.EmbeddingRequest target) {
+        if (source instanceof ZhipuAiEmbeddingOptions options) {
+            return new ZhipuAiApi.EmbeddingRequest(target.input(),
+                    options.getModel() != null ? options.getModel() : target.model());
+        }
+        return ModelOptionsUtils.merge(source, target, ZhipuAiApi.EmbeddingRequest.class);
+    }
+
+    private static String toJsonValue(ZhipuAiApi.ChatCompletionRequest.ToolChoice toolChoice) {
+        return switch (toolChoice) {
+            case AUTO -> "auto";
+        };
+    }
+
+}
@@ -0,0 +1,158 @@
+package org.springframework.ai.zhipuai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletion;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionRequest;
+import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiDeadlineExceededException;
+import org.springframework.ai.zhipuai.support.ZhipuAiDeadline;
+import org.springframework.http.ResponseEntity;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the retries and the tool round trips of a blocking call share the budget of its deadline.
+ */
+class ZhipuAiChatClientDeadlineTest {
+
+    private static final RetryTemplate RETRY_TEMPLATE = RetryTemplate.builder()
+            .maxAttempts(100)
+            .retryOn(TransientAiException.class)
+            .fixedBackoff(100)
+            .build();
+
+    @Test
+    void deadlineStopsTheRetries() {
+        StubApi api = new StubApi(request -> {
+            sleep(50);
+            throw new TransientAiException("busy");
+        });
+        ZhipuAiChatClient chatClient = new ZhipuAiChatClient(api, options().build(), null, RETRY_TEMPLATE);
+
+        long start = System.nanoTime();
+        assertThrows(ZhipuAiDeadlineExceededException.class, () -> ZhipuAiDeadline.after(Duration.ofMillis(400))
+                .call(() -> chatClient.call(new Prompt("你好"))));
+
+        assertTrue(elapsed(start).compareTo(Duration.ofSeconds(2)) < 0, elapsed(start).toString());
+        assertTrue(api.calls.get() >= 2 && api.calls.get() <= 4, String.valueOf(api.calls.get()));
+    }
+
+    @Test
+    void deadlineOfTheOptionsStopsTheToolRoundTrips() {
+        // the model calls the tool again and again
+        StubApi api = new StubApi(request -> completion(new ChatCompletionMessage(null, ChatCompletionMessage.Role.ASSISTANT, null,
+                List.of(new ChatCompletionMessage.ToolCall("call", "function",
+                        new ChatCompletionMessage.ChatCompletionFunction("slowTool", "{}")))), null));
+        SlowTool tool = new SlowTool();
+        ZhipuAiChatClient chatClient = new ZhipuAiChatClient(api, options()
+                .withFunctionCallbacks(List.of(tool))
+                .withFunction("slowTool")
+                .withDeadline(Duration.ofMillis(500))
+                .build(), null, RETRY_TEMPLATE);
+
+        long start = System.nanoTime();
+        assertThrows(ZhipuAiDeadlineExceededException.class, () -> chatClient.call(new Prompt("你好")));
+
+        assertTrue(elapsed(start).compareTo(Duration.ofSeconds(2)) < 0, elapsed(start).toString());
+        // the second round trip starts within the budget, the third one does not
+        assertEquals(2, api.calls.get());
+        assertEquals(2, tool.calls.get());
+    }
+
+    @Test
+    void callWithinTheDeadline() {
+        StubApi api = new StubApi(request -> completion(new ChatCompletionMessage("你好！", ChatCompletionMessage.Role.ASSISTANT),
+                ZhipuAiApi.ChatCompletionFinishReason.STOP));
+        ZhipuAiChatClient chatClient = new ZhipuAiChatClient(api, options().withDeadline(Duration.ofSeconds(5)).build(),
+                null, RETRY_TEMPLATE);
+
+        assertEquals("你好！", chatClient.call(new Prompt("你好")).getResult().getOutput().getContent());
+        // nothing is left bound to the calling thread
+        assertNull(ZhipuAiDeadline.current());
+    }
+
+    private static ZhipuAiChatOptions.Builder options() {
+        return ZhipuAiChatOptions.builder().withModel("glm-4");
+    }
+
+    private static ResponseEntity<ChatCompletion> completion(ChatCompletionMessage message,
+                                                             ZhipuAiApi.ChatCompletionFinishReason finishReason) {
+        return ResponseEntity.ok(new ChatCompletion("id", "chat.completion", 0L, "glm-4",
+                List.of(new ChatCompletion.Choice(0, message, finishReason)), null, null));
+    }
+
+    private static Duration elapsed(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class StubApi extends ZhipuAiApi {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final Function<ChatCompletionRequest, ResponseEntity<ChatCompletion>> response;
+
+        StubApi(Function<ChatCompletionRequest, ResponseEntity<ChatCompletion>> response) {
+            super("test-api-key");
+            this.response = response;
+        }
+
+        @Override
+        public ResponseEntity<ChatCompletion> chatCompletionEntity(ChatCompletionRequest chatRequest) {
+            this.calls.incrementAndGet();
+            return this.response.apply(chatRequest);
+        }
+
+    }
+
+    private static class SlowTool implements FunctionCallback {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String getName() {
+            return "slowTool";
+        }
+
+        @Override
+        public String getDescription() {
+            return "A tool taking 300 ms";
+        }
+
+        @Override
+        public String getInputTypeSchema() {
+            return "{\"type\": \"object\", \"properties\": {}}";
+        }
+
+        @Override
+        public String call(String functionInput) {
+            this.calls.incrementAndGet();
+            sleep(300);
+            return "{}";
+        }
+
+    }
+
+}
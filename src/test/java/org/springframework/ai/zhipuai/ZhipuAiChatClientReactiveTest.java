@@ -0,0 +1,196 @@
+package org.springframework.ai.zhipuai;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletion;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionChunk;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionRequest;
+import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiDeadlineExceededException;
+import org.springframework.ai.zhipuai.support.ZhipuAiDeadline;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the reactive chat calls: the tool round trips of {@link ZhipuAiChatClient#stream(Prompt)} and
+ * {@link ZhipuAiChatClient#asyncCall(Prompt)} run on the tool scheduler, never on the thread of the
+ * responses.
+ */
+class ZhipuAiChatClientReactiveTest {
+
+    private final Scheduler eventLoop = Schedulers.newSingle("event-loop");
+
+    private final Scheduler toolScheduler = Schedulers.newSingle("tools");
+
+    private final WeatherTool tool = new WeatherTool();
+
+    private final StubApi api = new StubApi();
+
+    @AfterEach
+    void dispose() {
+        this.eventLoop.dispose();
+        this.toolScheduler.dispose();
+    }
+
+    @Test
+    void streamRunsTheToolsOnTheToolScheduler() {
+        ZhipuAiChatClient chatClient = this.chatClient();
+
+        StepVerifier.create(chatClient.stream(new Prompt("北京天气如何？"))
+                        .map(response -> response.getResult().getOutput().getContent()))
+                .expectNext("北京", "晴")
+                .verifyComplete();
+
+        assertEquals(2, this.api.requests.get());
+        assertTrue(this.tool.thread.get().startsWith("tools"), this.tool.thread.get());
+    }
+
+    @Test
+    void asyncCallRetriesAndRunsTheToolsOnTheToolScheduler() {
+        ZhipuAiChatClient chatClient = this.chatClient();
+        chatClient.setReactiveRetry(Retry.fixedDelay(3, Duration.ofMillis(10)).filter(TransientAiException.class::isInstance));
+        this.api.failures.set(2);
+
+        StepVerifier.create(chatClient.asyncCall(new Prompt("北京天气如何？")).map(ChatResponse::getResult))
+                .assertNext(generation -> assertEquals("北京晴", generation.getOutput().getContent()))
+                .verifyComplete();
+
+        // two failed attempts, the tool call and the answer
+        assertEquals(4, this.api.requests.get());
+        assertTrue(this.tool.thread.get().startsWith("tools"), this.tool.thread.get());
+    }
+
+    @Test
+    void asyncCallFailsAtTheDeadlineOfItsContext() {
+        ZhipuAiChatClient chatClient = this.chatClient();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        this.api.pending = Mono.<ResponseEntity<ChatCompletion>>never().doOnCancel(() -> cancelled.set(true));
+
+        StepVerifier.create(chatClient.asyncCall(new Prompt("北京天气如何？"))
+                        .contextWrite(Context.of(ZhipuAiDeadline.CONTEXT_KEY, ZhipuAiDeadline.after(Duration.ofMillis(100)))))
+                .expectError(ZhipuAiDeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+        assertTrue(cancelled.get());
+    }
+
+    private ZhipuAiChatClient chatClient() {
+        ZhipuAiChatClient chatClient = new ZhipuAiChatClient(this.api, ZhipuAiChatOptions.builder()
+                .withModel("glm-4")
+                .withFunctionCallbacks(List.of(this.tool))
+                .withFunction("weather")
+                .build());
+        chatClient.setToolScheduler(this.toolScheduler);
+        return chatClient;
+    }
+
+    private static boolean hasToolResponse(ChatCompletionRequest request) {
+        return request.messages().stream().anyMatch(message -> message.role() == ChatCompletionMessage.Role.TOOL);
+    }
+
+    private static ChatCompletionMessage toolCall() {
+        return new ChatCompletionMessage(null, ChatCompletionMessage.Role.ASSISTANT, null,
+                List.of(new ChatCompletionMessage.ToolCall("call", "function",
+                        new ChatCompletionMessage.ChatCompletionFunction("weather", "{\"city\": \"北京\"}"))));
+    }
+
+    private static ChatCompletionChunk chunk(ChatCompletionMessage delta, ZhipuAiApi.ChatCompletionFinishReason finishReason) {
+        return new ChatCompletionChunk("chunk", "chat.completion.chunk", 0L, "glm-4", null,
+                List.of(new ChatCompletionChunk.ChunkChoice(0, delta, finishReason)));
+    }
+
+    /**
+     * Answers with a tool call, then with the weather once the tool responded, on the "event-loop" thread.
+     */
+    private class StubApi extends ZhipuAiApi {
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Mono<ResponseEntity<ChatCompletion>> pending;
+
+        StubApi() {
+            super("test-api-key");
+        }
+
+        @Override
+        public Mono<ResponseEntity<ChatCompletion>> asyncChatCompletionEntity(ChatCompletionRequest chatRequest) {
+            this.requests.incrementAndGet();
+            if (this.pending != null) {
+                return this.pending;
+            }
+            if (this.failures.getAndDecrement() > 0) {
+                return Mono.error(new TransientAiException("busy"));
+            }
+            ChatCompletionMessage message = hasToolResponse(chatRequest)
+                    ? new ChatCompletionMessage("北京晴", ChatCompletionMessage.Role.ASSISTANT) : toolCall();
+            ZhipuAiApi.ChatCompletionFinishReason finishReason = hasToolResponse(chatRequest)
+                    ? ZhipuAiApi.ChatCompletionFinishReason.STOP : ZhipuAiApi.ChatCompletionFinishReason.TOOL_CALLS;
+            return Mono.just(ResponseEntity.ok(new ChatCompletion("id", "chat.completion", 0L, "glm-4",
+                    List.of(new ChatCompletion.Choice(0, message, finishReason)), null, null)))
+                    .publishOn(eventLoop);
+        }
+
+        @Override
+        public Flux<ChatCompletionChunk> chatCompletionStream(ChatCompletionRequest chatRequest) {
+            this.requests.incrementAndGet();
+            if (!hasToolResponse(chatRequest)) {
+                return Flux.just(chunk(toolCall(), ZhipuAiApi.ChatCompletionFinishReason.TOOL_CALLS)).publishOn(eventLoop);
+            }
+            return Flux.just(chunk(new ChatCompletionMessage("北京", ChatCompletionMessage.Role.ASSISTANT), null),
+                            chunk(new ChatCompletionMessage("晴", ChatCompletionMessage.Role.ASSISTANT),
+                                    ZhipuAiApi.ChatCompletionFinishReason.STOP))
+                    .publishOn(eventLoop);
+        }
+
+    }
+
+    private static class WeatherTool implements FunctionCallback {
+
+        private final AtomicReference<String> thread = new AtomicReference<>();
+
+        @Override
+        public String getName() {
+            return "weather";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Get the weather of a city";
+        }
+
+        @Override
+        public String getInputTypeSchema() {
+            return "{\"type\": \"object\", \"properties\": {\"city\": {\"type\": \"string\"}}}";
+        }
+
+        @Override
+        public String call(String functionInput) {
+            this.thread.set(Thread.currentThread().getName());
+            return "{\"weather\": \"晴\"}";
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.springframework.ai.zhipuai.api;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionChunk;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionRequest;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cancelling a stream must close its connection, rather than reading the rest of the response to return
+ * the connection to the pool.
+ */
+class ZhipuAiStreamCancellationTest {
+
+    private static final int CHUNKS = 5;
+
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    private final AtomicInteger cancelledStreams = new AtomicInteger();
+
+    private DisposableServer server;
+
+    @BeforeEach
+    void start() {
+        // 200 chunks at 20 per second: draining the response would keep the stream open for 10 seconds
+        this.server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post("/v4/chat/completions", (request, response) -> {
+                    Flux<ByteBuf> body = Flux.range(0, 200)
+                            .delayElements(Duration.ofMillis(50))
+                            .map(i -> Unpooled.copiedBuffer("data: " + chunk(i) + "\n\n", StandardCharsets.UTF_8))
+                            .doOnSubscribe(subscription -> this.openStreams.incrementAndGet())
+                            .doOnCancel(this.cancelledStreams::incrementAndGet)
+                            .doFinally(signal -> this.openStreams.decrementAndGet());
+                    return response.header("Content-Type", "text/event-stream;charset=UTF-8")
+                            .send(body, buffer -> true);
+                }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stop() {
+        this.server.disposeNow();
+    }
+
+    @Test
+    void cancelledStreamClosesTheConnection() throws InterruptedException {
+        ZhipuAiApi api = new ZhipuAiApi("http://localhost:" + this.server.port(), "mock-api-key");
+        try {
+            ChatCompletionRequest request = new ChatCompletionRequest(null, "glm-4",
+                    List.of(new ChatCompletionMessage("Hello", ChatCompletionMessage.Role.USER)), 0.7f, true);
+
+            List<ChatCompletionChunk> chunks = api.chatCompletionStream(request)
+                    .take(CHUNKS)
+                    .collectList()
+                    .block(Duration.ofSeconds(10));
+
+            assertEquals(CHUNKS, chunks.size());
+            assertTrue(await(() -> this.openStreams.get() == 0, Duration.ofSeconds(3)),
+                    "The server stream is still open");
+            assertEquals(1, this.cancelledStreams.get());
+
+            Map<String, Map<String, Integer>> pools = api.getConnectionPoolMetrics().getPools();
+            assertFalse(pools.isEmpty());
+            pools.values().forEach(pool -> assertEquals(0, pool.get("acquired")));
+        }
+        finally {
+            api.close();
+        }
+    }
+
+    private static String chunk(int index) {
+        return "{\"id\":\"chunk\",\"created\":0,\"model\":\"glm-4\",\"choices\":[{\"index\":0,"
+                + "\"delta\":{\"role\":\"assistant\",\"content\":\"" + index + "\"}}]}";
+    }
+
+    private static boolean await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
+}
@@ -6,10 +6,14 @@ import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.zhipuai.ZhipuAiChatClient;
+import org.springframework.ai.zhipuai.support.ZhipuAiSseRelay;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import reactor.core.publisher.Flux;
 
 import java.util.List;
@@ -43,4 +47,12 @@ public class ChatController {
         return chatClient.stream(prompt);
     }
 
+    @GetMapping("/ai/relayStream")
+    public ResponseEntity<ResponseBodyEmitter> relayStream(@RequestParam(value = "message", defaultValue = "Tell me a joke") String message) {
+        Prompt prompt = new Prompt(new UserMessage(message));
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(ZhipuAiSseRelay.Mvc.relay(chatClient.streamRaw(prompt), 0L));
+    }
+
 }
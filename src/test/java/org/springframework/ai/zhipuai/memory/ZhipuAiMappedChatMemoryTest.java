@@ -0,0 +1,144 @@
+package org.springframework.ai.zhipuai.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage.Role;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiMappedChatMemoryTest {
+
+    @TempDir
+    Path directory;
+
+    private ZhipuAiMappedChatMemory memory;
+
+    @AfterEach
+    void close() throws IOException {
+        if (this.memory != null) {
+            this.memory.close();
+        }
+    }
+
+    @Test
+    void addAndGet() {
+        this.memory = new ZhipuAiMappedChatMemory(this.directory.resolve("memory"), 4, 4096, 16, 1000);
+
+        this.memory.add("session", turn("你好", "你好，有什么可以帮你？"));
+
+        assertEquals(turn("你好", "你好，有什么可以帮你？"), this.memory.get("session"));
+        assertTrue(this.memory.getTokens("session") > 0);
+        assertEquals(List.of(), this.memory.get("unknown"));
+        assertEquals(1, this.memory.getSessionCount());
+    }
+
+    @Test
+    void reuseTheSlotOfTheLeastRecentlyUsedSession() {
+        this.memory = new ZhipuAiMappedChatMemory(this.directory.resolve("memory"), 2, 4096, 16, 1000);
+        this.memory.add("a", turn("a?", "a!"));
+        this.memory.add("b", turn("b?", "b!"));
+        this.memory.get("a");
+
+        this.memory.add("c", turn("c?", "c!"));
+
+        assertEquals(List.of(), this.memory.get("b"));
+        assertEquals(0, this.memory.getTokens("b"));
+        assertEquals(turn("a?", "a!"), this.memory.get("a"));
+        // the reused slot holds nothing of the evicted session
+        assertEquals(turn("c?", "c!"), this.memory.get("c"));
+        assertEquals(2, this.memory.getSessionCount());
+    }
+
+    @Test
+    void reuseTheSlotOfAClearedSession() {
+        this.memory = new ZhipuAiMappedChatMemory(this.directory.resolve("memory"), 1, 4096, 16, 1000);
+        this.memory.add("a", turn("a?", "a!"));
+
+        this.memory.clear("a");
+        this.memory.add("b", turn("b?", "b!"));
+
+        assertEquals(List.of(), this.memory.get("a"));
+        assertEquals(turn("b?", "b!"), this.memory.get("b"));
+    }
+
+    @Test
+    void turnThatDoesNotFitEvictsTheOldestMessages() {
+        this.memory = new ZhipuAiMappedChatMemory(this.directory.resolve("memory"), 1, 1024, 16, 100_000);
+        String question = "q".repeat(200);
+        String answer = "a".repeat(200);
+
+        for (int i = 0; i < 4; i++) {
+            this.memory.add("session", turn(question + i, answer + i));
+        }
+
+        List<ChatCompletionMessage> messages = this.memory.get("session");
+        assertEquals(turn(question + 2, answer + 2, question + 3, answer + 3), messages);
+        assertEquals(Role.USER, messages.get(0).role());
+    }
+
+    @Test
+    void replaceTheHeadUnlessItChanged() {
+        this.memory = new ZhipuAiMappedChatMemory(this.directory.resolve("memory"), 1, 4096, 16, 1000);
+        this.memory.add("session", turn("1?", "1!", "2?", "2!"));
+        List<ChatCompletionMessage> head = turn("1?", "1!");
+        List<ChatCompletionMessage> summary = List.of(new ChatCompletionMessage("summary", Role.SYSTEM));
+
+        assertTrue(this.memory.replaceHead("session", head, summary));
+        assertFalse(this.memory.replaceHead("session", head, summary));
+
+        List<ChatCompletionMessage> expected = new ArrayList<>(summary);
+        expected.addAll(turn("2?", "2!"));
+        assertEquals(expected, this.memory.get("session"));
+    }
+
+    @Test
+    void sessionsSharingSlotsConcurrently() throws Exception {
+        // more sessions than slots, the slots are reused while other threads read and write them
+        this.memory = new ZhipuAiMappedChatMemory(this.directory.resolve("memory"), 4, 4096, 4, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String sessionId = "session-" + (i % 16);
+                        this.memory.add(sessionId, turn(sessionId + "?", sessionId + "!"));
+                        for (ChatCompletionMessage message : this.memory.get(sessionId)) {
+                            assertTrue(message.content().startsWith(sessionId + "?")
+                                    || message.content().startsWith(sessionId + "!"), message.content());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertEquals(4, this.memory.getSessionCount());
+    }
+
+    private static List<ChatCompletionMessage> turn(String... contents) {
+        List<ChatCompletionMessage> messages = new ArrayList<>(contents.length);
+        for (int i = 0; i < contents.length; i++) {
+            messages.add(new ChatCompletionMessage(contents[i], (i % 2 == 0) ? Role.USER : Role.ASSISTANT));
+        }
+        return messages;
+    }
+
+}
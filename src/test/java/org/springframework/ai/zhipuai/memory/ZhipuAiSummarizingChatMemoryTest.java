@@ -0,0 +1,118 @@
+package org.springframework.ai.zhipuai.memory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletion;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage.Role;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionRequest;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiSummarizingChatMemoryTest {
+
+    private static final String QUESTION = "问".repeat(32);
+
+    private static final String ANSWER = "答".repeat(32);
+
+    @Test
+    void summaryReplacesTheOlderTurns() {
+        SummaryApi api = new SummaryApi();
+        ZhipuAiSummarizingChatMemory memory = new ZhipuAiSummarizingChatMemory(
+                new ZhipuAiInMemoryChatMemory(16, 16, 10_000, Duration.ZERO), api, "glm-4-flash",
+                60, 2, 128, 1, Runnable::run);
+
+        memory.add("session", turn(QUESTION + 1, ANSWER + 1));
+        assertEquals(0, api.calls.get());
+        memory.add("session", turn(QUESTION + 2, ANSWER + 2));
+
+        List<ChatCompletionMessage> messages = memory.get("session");
+        assertEquals(1, api.calls.get());
+        assertEquals(1, memory.getSummaries());
+        assertEquals(3, messages.size());
+        assertEquals(Role.SYSTEM, messages.get(0).role());
+        assertTrue(messages.get(0).content().endsWith("summary"));
+        assertEquals(turn(QUESTION + 2, ANSWER + 2), messages.subList(1, 3));
+        assertTrue(memory.getTokens("session") < 60);
+    }
+
+    @Test
+    void summaryIsDroppedWhenTheTurnsWereEvictedMeanwhile() {
+        SummaryApi api = new SummaryApi();
+        ZhipuAiSummarizingChatMemory memory = new ZhipuAiSummarizingChatMemory(
+                new ZhipuAiInMemoryChatMemory(16, 4, 10_000, Duration.ZERO), api, "glm-4-flash",
+                60, 2, 128, 1, Runnable::run);
+        // a turn completes while the summary is being written, evicting the summarized turn
+        api.during = () -> memory.add("session", turn(QUESTION + 3, ANSWER + 3));
+
+        memory.add("session", turn(QUESTION + 1, ANSWER + 1));
+        memory.add("session", turn(QUESTION + 2, ANSWER + 2));
+
+        List<ChatCompletionMessage> expected = new ArrayList<>(turn(QUESTION + 2, ANSWER + 2));
+        expected.addAll(turn(QUESTION + 3, ANSWER + 3));
+        assertEquals(expected, memory.get("session"));
+        // the concurrent turn does not start another summary of the same session
+        assertEquals(1, api.calls.get());
+        assertEquals(0, memory.getSummaries());
+        assertEquals(0, memory.getFailures());
+    }
+
+    @Test
+    void failedSummaryKeepsTheHistory() {
+        SummaryApi api = new SummaryApi();
+        api.during = () -> {
+            throw new IllegalStateException("failed");
+        };
+        ZhipuAiSummarizingChatMemory memory = new ZhipuAiSummarizingChatMemory(
+                new ZhipuAiInMemoryChatMemory(16, 16, 10_000, Duration.ZERO), api, "glm-4-flash",
+                60, 2, 128, 1, Runnable::run);
+
+        memory.add("session", turn(QUESTION + 1, ANSWER + 1));
+        memory.add("session", turn(QUESTION + 2, ANSWER + 2));
+
+        assertEquals(turn(QUESTION + 1, ANSWER + 1, QUESTION + 2, ANSWER + 2), memory.get("session"));
+        assertEquals(1, memory.getFailures());
+        assertEquals(0, memory.getSummaries());
+    }
+
+    private static List<ChatCompletionMessage> turn(String... contents) {
+        List<ChatCompletionMessage> messages = new ArrayList<>(contents.length);
+        for (int i = 0; i < contents.length; i++) {
+            messages.add(new ChatCompletionMessage(contents[i], (i % 2 == 0) ? Role.USER : Role.ASSISTANT));
+        }
+        return messages;
+    }
+
+    /**
+     * Answers every request with a fixed summary, running {@link #during} first.
+     */
+    private static class SummaryApi extends ZhipuAiApi {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private Runnable during = () -> {
+        };
+
+        SummaryApi() {
+            super("test-api-key");
+        }
+
+        @Override
+        public ResponseEntity<ChatCompletion> chatCompletionEntity(ChatCompletionRequest chatRequest) {
+            this.calls.incrementAndGet();
+            this.during.run();
+            return ResponseEntity.ok(new ChatCompletion("id", "chat.completion", 0L, chatRequest.model(),
+                    List.of(new ChatCompletion.Choice(0, new ChatCompletionMessage("summary", Role.ASSISTANT), null)),
+                    null, null));
+        }
+
+    }
+
+}
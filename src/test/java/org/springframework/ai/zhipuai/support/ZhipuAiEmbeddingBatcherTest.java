@@ -0,0 +1,136 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiEmbeddingBatcherTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Embeds each text as its length.
+     */
+    private final Function<List<String>, List<List<Double>>> batchCall = texts -> {
+        this.batches.add(texts);
+        return texts.stream().map(text -> List.of((double) text.length())).toList();
+    };
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private ZhipuAiEmbeddingBatcher batcher;
+
+    @AfterEach
+    void close() {
+        if (this.batcher != null) {
+            this.batcher.close();
+        }
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void fullBatchIsSentWithoutLinger() throws Exception {
+        this.batcher = new ZhipuAiEmbeddingBatcher(this.batchCall, 3, Duration.ofSeconds(30), 1, this.executor);
+
+        CompletableFuture<List<Double>> a = this.batcher.embed("a");
+        CompletableFuture<List<Double>> bb = this.batcher.embed("bb");
+        CompletableFuture<List<Double>> ccc = this.batcher.embed("ccc");
+
+        assertEquals(List.of(1.0), a.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2.0), bb.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(3.0), ccc.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a", "bb", "ccc")), this.batches);
+    }
+
+    @Test
+    void partialBatchIsSentAfterLinger() throws Exception {
+        this.batcher = new ZhipuAiEmbeddingBatcher(this.batchCall, 10, Duration.ofMillis(100), 1, this.executor);
+
+        CompletableFuture<List<Double>> a = this.batcher.embed("a");
+        CompletableFuture<List<Double>> bb = this.batcher.embed("bb");
+        assertFalse(a.isDone());
+        assertEquals(2, this.batcher.getQueued());
+
+        assertEquals(List.of(1.0), a.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2.0), bb.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a", "bb")), this.batches);
+        assertEquals(0, this.batcher.getQueued());
+    }
+
+    @Test
+    void textsQueuedWhileBatchesAreInFlightAreSentNext() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        this.batcher = new ZhipuAiEmbeddingBatcher(texts -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return this.batchCall.apply(texts);
+        }, 1, Duration.ofSeconds(30), 1, this.executor);
+
+        CompletableFuture<List<Double>> a = this.batcher.embed("a");
+        CompletableFuture<List<Double>> bb = this.batcher.embed("bb");
+        assertEquals(0, this.batcher.getAvailableBatches());
+        assertEquals(1, this.batcher.getQueued());
+        release.countDown();
+
+        assertEquals(List.of(1.0), a.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2.0), bb.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a"), List.of("bb")), this.batches);
+    }
+
+    @Test
+    void failedBatchFailsEveryText() {
+        this.batcher = new ZhipuAiEmbeddingBatcher(texts -> texts.size() == 2 ? List.of(List.of(1.0)) : null,
+                2, Duration.ofSeconds(30), 1, this.executor);
+
+        CompletableFuture<List<Double>> a = this.batcher.embed("a");
+        CompletableFuture<List<Double>> b = this.batcher.embed("b");
+
+        assertEquals(List.of(1.0), a.join());
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> b.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IllegalStateException);
+
+        this.batcher.close();
+        this.batcher = new ZhipuAiEmbeddingBatcher(texts -> {
+            throw new IllegalArgumentException("failed");
+        }, 2, Duration.ofSeconds(30), 1, this.executor);
+        CompletableFuture<List<Double>> c = this.batcher.embed("c");
+        CompletableFuture<List<Double>> d = this.batcher.embed("d");
+        assertTrue(assertThrows(ExecutionException.class, () -> c.get(5, TimeUnit.SECONDS)).getCause() instanceof IllegalArgumentException);
+        assertTrue(assertThrows(ExecutionException.class, () -> d.get(5, TimeUnit.SECONDS)).getCause() instanceof IllegalArgumentException);
+        assertEquals(1, this.batcher.getAvailableBatches());
+    }
+
+    @Test
+    void closeFailsTheQueuedTexts() {
+        this.batcher = new ZhipuAiEmbeddingBatcher(this.batchCall, 10, Duration.ofSeconds(30), 1, this.executor);
+
+        CompletableFuture<List<Double>> a = this.batcher.embed("a");
+        this.batcher.close();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> a.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IllegalStateException);
+        assertEquals(0, this.batcher.getQueued());
+        assertThrows(IllegalStateException.class, () -> this.batcher.embed("b"));
+        assertTrue(this.batches.isEmpty());
+    }
+
+}
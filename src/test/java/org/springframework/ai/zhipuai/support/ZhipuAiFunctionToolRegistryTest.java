@@ -0,0 +1,108 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZhipuAiFunctionToolRegistryTest {
+
+    @Test
+    void schemaIsParsedOnRegistration() {
+        ZhipuAiFunctionToolRegistry registry = new ZhipuAiFunctionToolRegistry();
+        Callback weather = new Callback("weather", "Get the weather");
+
+        registry.register(List.of(weather), false);
+        List<ZhipuAiApi.FunctionTool> tools = registry.getTools(List.of("weather"));
+        List<ZhipuAiApi.FunctionTool> again = registry.getTools(List.of("weather"));
+
+        assertEquals(1, weather.schemaReads.get());
+        assertSame(tools.get(0), again.get(0));
+        ZhipuAiApi.FunctionTool.Function function = tools.get(0).function();
+        assertEquals("weather", function.name());
+        assertEquals("Get the weather", function.description());
+        assertEquals(Map.of("type", "string"), ((Map<?, ?>) function.parameters().get("properties")).get("city"));
+        assertSame(weather, registry.getCallback("weather"));
+    }
+
+    @Test
+    void registeringTheSameCallbacksKeepsTheSnapshot() {
+        ZhipuAiFunctionToolRegistry registry = new ZhipuAiFunctionToolRegistry();
+        Callback weather = new Callback("weather", "Get the weather");
+        registry.register(List.of(weather), true);
+        ZhipuAiApi.FunctionTool tool = registry.getTools(List.of("weather")).get(0);
+
+        registry.register(List.of(weather), true);
+        registry.register(List.of(new Callback("weather", "Another weather")), false);
+
+        assertSame(tool, registry.getTools(List.of("weather")).get(0));
+        assertEquals(1, weather.schemaReads.get());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void overrideReplacesTheCallback() {
+        ZhipuAiFunctionToolRegistry registry = new ZhipuAiFunctionToolRegistry();
+        registry.register(List.of(new Callback("weather", "Get the weather")), false);
+        Callback runtime = new Callback("weather", "Get the weather of today");
+
+        registry.register(List.of(runtime, new Callback("time", "Get the time")), true);
+
+        assertSame(runtime, registry.getCallback("weather"));
+        assertEquals("Get the weather of today", registry.getTools(List.of("weather")).get(0).function().description());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void unknownFunction() {
+        ZhipuAiFunctionToolRegistry registry = new ZhipuAiFunctionToolRegistry();
+
+        assertNull(registry.getCallback("weather"));
+        assertThrows(IllegalStateException.class, () -> registry.getTools(List.of("weather")));
+    }
+
+    private static class Callback implements FunctionCallback {
+
+        private final AtomicInteger schemaReads = new AtomicInteger();
+
+        private final String name;
+
+        private final String description;
+
+        Callback(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String getDescription() {
+            return this.description;
+        }
+
+        @Override
+        public String getInputTypeSchema() {
+            this.schemaReads.incrementAndGet();
+            return "{\"type\": \"object\", \"properties\": {\"city\": {\"type\": \"string\"}}}";
+        }
+
+        @Override
+        public String call(String functionInput) {
+            return "{}";
+        }
+
+    }
+
+}
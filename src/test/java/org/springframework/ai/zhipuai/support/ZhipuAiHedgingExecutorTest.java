@@ -0,0 +1,109 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiHedgingExecutorTest {
+
+    @Test
+    void hedgeWinsAndCancelsThePrimary() {
+        ZhipuAiHedgingExecutor executor = new ZhipuAiHedgingExecutor(95, Duration.ofMillis(10), 1);
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+        assertEquals("hedge", executor.execute(Mono.<String>never().doOnCancel(() -> primaryCancelled.set(true)),
+                Mono.just("hedge")));
+        assertTrue(primaryCancelled.get());
+        assertEquals(1, executor.getRequests());
+        assertEquals(1, executor.getHedges());
+        assertEquals(1, executor.getHedgeWins());
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() {
+        ZhipuAiHedgingExecutor executor = new ZhipuAiHedgingExecutor(95, Duration.ofSeconds(10), 1);
+        AtomicInteger hedgeSubscriptions = new AtomicInteger();
+
+        assertEquals("primary", executor.execute(Mono.just("primary"),
+                Mono.fromSupplier(() -> "hedge").doOnSubscribe(subscription -> hedgeSubscriptions.incrementAndGet())));
+        assertEquals(0, hedgeSubscriptions.get());
+        assertEquals(0, executor.getHedges());
+    }
+
+    @Test
+    void budgetLimitsTheHedges() {
+        // half a hedge earned per request
+        ZhipuAiHedgingExecutor executor = new ZhipuAiHedgingExecutor(95, Duration.ofMillis(1), 0.5);
+        Mono<String> slowPrimary = Mono.delay(Duration.ofMillis(200)).thenReturn("primary");
+
+        assertEquals("primary", executor.execute(slowPrimary, Mono.just("hedge")));
+        assertEquals(0, executor.getAvailableHedges());
+        assertEquals("hedge", executor.execute(slowPrimary, Mono.just("hedge")));
+        assertEquals("primary", executor.execute(slowPrimary, Mono.just("hedge")));
+        assertEquals(3, executor.getRequests());
+        assertEquals(1, executor.getHedges());
+    }
+
+    @Test
+    void noBudgetNoHedge() {
+        ZhipuAiHedgingExecutor executor = new ZhipuAiHedgingExecutor(95, Duration.ofMillis(1), 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("primary", executor.execute(Mono.delay(Duration.ofMillis(20)).thenReturn("primary"),
+                    Mono.just("hedge")));
+        }
+        assertEquals(0, executor.getHedges());
+    }
+
+    @Test
+    void failedAttemptLeavesTheOtherRunning() {
+        ZhipuAiHedgingExecutor executor = new ZhipuAiHedgingExecutor(95, Duration.ofMillis(10), 1);
+        Mono<String> failingPrimary = Mono.delay(Duration.ofMillis(50))
+                .then(Mono.error(new IllegalStateException("primary")));
+
+        StepVerifier.create(executor.hedge(failingPrimary, Mono.delay(Duration.ofMillis(100)).thenReturn("hedge")))
+                .expectNext("hedge")
+                .verifyComplete();
+        StepVerifier.create(executor.hedge(failingPrimary, Mono.error(new IllegalStateException("hedge"))))
+                .expectErrorMessage("primary")
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void cancelBothAttempts() {
+        ZhipuAiHedgingExecutor executor = new ZhipuAiHedgingExecutor(95, Duration.ofMillis(1), 1);
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        AtomicBoolean hedgeCancelled = new AtomicBoolean();
+
+        StepVerifier.create(executor.hedge(Mono.<String>never().doOnCancel(() -> primaryCancelled.set(true)),
+                        Mono.<String>never().doOnCancel(() -> hedgeCancelled.set(true))))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertTrue(primaryCancelled.get());
+        assertTrue(hedgeCancelled.get());
+        assertEquals(1, executor.getHedges());
+        assertEquals(0, executor.getHedgeWins());
+    }
+
+    @Test
+    void hedgeDelayFollowsThePercentile() {
+        ZhipuAiHedgingExecutor executor = new ZhipuAiHedgingExecutor(50, Duration.ofMillis(1), 0);
+
+        for (int i = 0; i < 64; i++) {
+            executor.execute(Mono.delay(Duration.ofMillis(i < 32 ? 5 : 50)).thenReturn("primary"), Mono.just("hedge"));
+        }
+        Duration hedgeDelay = executor.getHedgeDelay();
+        assertTrue(hedgeDelay.compareTo(Duration.ofMillis(5)) >= 0, hedgeDelay.toString());
+        assertTrue(hedgeDelay.compareTo(Duration.ofMillis(50)) < 0, hedgeDelay.toString());
+    }
+
+}
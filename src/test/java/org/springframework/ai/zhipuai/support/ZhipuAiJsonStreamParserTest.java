@@ -0,0 +1,98 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiJsonStreamParserTest {
+
+    record Book(String title, String author) {
+    }
+
+    @Test
+    void rootArraySplitAcrossDeltas() throws IOException {
+        String json = "```json\n[{\"title\": \"三体\", \"author\": \"刘慈欣\"}, {\"title\": \"a}b[\\\"c\", \"author\": \"\\u00e9\"}]\n```";
+        ZhipuAiJsonStreamParser<Book> parser = new ZhipuAiJsonStreamParser<>(Book.class);
+        List<Book> books = new ArrayList<>();
+        int firstEmittedAt = -1;
+        // one character per delta, the worst split
+        for (int i = 0; i < json.length(); i++) {
+            List<Book> values = parser.feed(json.substring(i, i + 1));
+            if (!values.isEmpty() && firstEmittedAt < 0) {
+                firstEmittedAt = i;
+            }
+            books.addAll(values);
+        }
+        parser.finish();
+
+        assertEquals(List.of(new Book("三体", "刘慈欣"), new Book("a}b[\"c", "é")), books);
+        // emitted at its closing brace, not at the end of the output
+        assertEquals(json.indexOf('}'), firstEmittedAt);
+    }
+
+    @Test
+    void firstArrayOfObjectsOfTheRootObject() {
+        Flux<String> contents = Flux.just("{\"tags\": [\"a\", \"b\"], \"empty\": [], ",
+                "\"books\": [{\"title\": \"A\"}, {\"ti", "tle\": \"B\"}], \"total\": 2}");
+
+        StepVerifier.create(ZhipuAiJsonStreamParser.elements(contents, Book.class))
+                .expectNext(new Book("A", null), new Book("B", null))
+                .verifyComplete();
+    }
+
+    @Test
+    void namedArrayField() {
+        Flux<String> contents = Flux.just("{\"meta\": [{\"title\": \"M\"}], \"tags\": [\"x\"], ",
+                "\"tags2\": [\"y\"]}");
+
+        StepVerifier.create(ZhipuAiJsonStreamParser.elements(contents, String.class, "tags2"))
+                .expectNext("y")
+                .verifyComplete();
+        StepVerifier.create(ZhipuAiJsonStreamParser.elements(Flux.just("{\"meta\": [{\"title\": \"M\"}], \"books\": [{\"title\": \"B\"}]}"),
+                        Book.class, "books"))
+                .expectNext(new Book("B", null))
+                .verifyComplete();
+    }
+
+    @Test
+    void rootObjectWithoutArrayOfObjects() {
+        Flux<String> contents = Flux.just("{\"title\": \"A\", \"tags\": [\"a\"]", ", \"author\": \"B\"}");
+
+        StepVerifier.create(ZhipuAiJsonStreamParser.elements(contents, Map.class))
+                .assertNext(value -> {
+                    assertEquals("A", value.get("title"));
+                    assertEquals(List.of("a"), value.get("tags"));
+                    assertEquals("B", value.get("author"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void rootArrayOfScalars() {
+        StepVerifier.create(ZhipuAiJsonStreamParser.elements(Flux.just("[1, 2", ", 3]"), Integer.class))
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+    }
+
+    @Test
+    void incompleteOutput() throws IOException {
+        ZhipuAiJsonStreamParser<Book> parser = new ZhipuAiJsonStreamParser<>(Book.class);
+        assertEquals(List.of(new Book("A", null)), parser.feed("[{\"title\": \"A\"}, {\"title\""));
+        IllegalStateException ex = assertThrows(IllegalStateException.class, parser::finish);
+        assertTrue(ex.getMessage().contains("Incomplete"));
+
+        StepVerifier.create(ZhipuAiJsonStreamParser.elements(Flux.just("no json here"), Book.class))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+}
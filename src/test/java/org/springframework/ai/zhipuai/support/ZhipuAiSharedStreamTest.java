@@ -0,0 +1,85 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiSharedStreamTest {
+
+    @Test
+    void firstSubscriberGetsEveryElementOfASynchronousUpstream() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        ZhipuAiSharedStream<Integer> stream = new ZhipuAiSharedStream<>(
+                Flux.range(1, 10).doOnSubscribe(subscription -> subscriptions.incrementAndGet()), 2);
+
+        StepVerifier.create(stream.asFlux())
+                .expectNext(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)
+                .verifyComplete();
+        // the completed stream is replayed, not requested again
+        StepVerifier.create(stream.asFlux())
+                .expectNext(9, 10)
+                .verifyComplete();
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    void lateSubscriberGetsTheLatestElements() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        ZhipuAiSharedStream<String> stream = new ZhipuAiSharedStream<>(upstream.asFlux(), 2);
+
+        StepVerifier.create(stream.asFlux())
+                .then(() -> {
+                    upstream.tryEmitNext("a");
+                    upstream.tryEmitNext("b");
+                    upstream.tryEmitNext("c");
+                })
+                .expectNext("a", "b", "c")
+                .then(() -> StepVerifier.create(stream.asFlux())
+                        .expectNext("b", "c")
+                        .then(() -> assertEquals(2, stream.getSubscriberCount()))
+                        .then(() -> upstream.tryEmitNext("d"))
+                        .expectNext("d")
+                        .then(upstream::tryEmitComplete)
+                        .expectComplete()
+                        .verify(Duration.ofSeconds(5)))
+                .expectNext("d")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void upstreamIsCancelledWithTheLastSubscriber() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ZhipuAiSharedStream<String> stream = new ZhipuAiSharedStream<>(
+                upstream.asFlux().doOnCancel(() -> cancelled.set(true)), 4);
+
+        Flux<String> first = stream.asFlux().take(1);
+        StepVerifier.create(stream.asFlux())
+                .then(() -> upstream.tryEmitNext("a"))
+                .expectNext("a")
+                .then(() -> StepVerifier.create(first).expectNext("a").verifyComplete())
+                // one subscriber left, the upstream keeps running
+                .then(() -> assertFalse(cancelled.get()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(cancelled.get());
+        assertEquals(0, stream.getSubscriberCount());
+        StepVerifier.create(stream.asFlux())
+                .expectNext("a")
+                .expectError(CancellationException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.zhipuai.api.ZhipuAiDeadlineExceededException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiSingleFlightTest {
+
+    private final ZhipuAiSingleFlight singleFlight = new ZhipuAiSingleFlight();
+
+    @Test
+    void joinTheCallInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> this.singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "response";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> joiner = CompletableFuture.supplyAsync(() -> this.singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        waitUntil(() -> this.singleFlight.getCoalesced() == 1);
+        release.countDown();
+
+        assertEquals("response", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("response", joiner.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, this.singleFlight.getInFlight());
+        // nothing is cached
+        assertEquals("next", this.singleFlight.execute("key", () -> "next"));
+    }
+
+    @Test
+    void joinerGetsTheFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> this.singleFlight.<String>execute("key", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("failed");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> joiner = CompletableFuture.supplyAsync(() -> this.singleFlight.execute("key", () -> "other"));
+        waitUntil(() -> this.singleFlight.getCoalesced() == 1);
+        release.countDown();
+
+        Exception ex = assertThrows(Exception.class, () -> joiner.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IllegalStateException);
+        assertEquals("failed", ex.getCause().getMessage());
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void joinerWithLongerDeadlineRunsTheCallAgain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> ZhipuAiDeadline.after(Duration.ofMillis(200))
+                .call(() -> this.singleFlight.<String>execute("key", () -> {
+                    started.countDown();
+                    await(new CountDownLatch(1), Duration.ofMillis(300));
+                    throw new ZhipuAiDeadlineExceededException(Duration.ofMillis(200));
+                })));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        String response = ZhipuAiDeadline.after(Duration.ofSeconds(5))
+                .call(() -> this.singleFlight.execute("key", () -> "response"));
+
+        assertEquals("response", response);
+        assertEquals(1, this.singleFlight.getCoalesced());
+        Exception ex = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof ZhipuAiDeadlineExceededException);
+    }
+
+    @Test
+    void joinerWaitsUntilItsOwnDeadline() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> this.singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return "response";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertThrows(ZhipuAiDeadlineExceededException.class, () -> ZhipuAiDeadline.after(Duration.ofMillis(50))
+                    .call(() -> this.singleFlight.execute("key", () -> "other")));
+        }
+        finally {
+            release.countDown();
+        }
+        // the call is not cancelled by the joiner
+        assertEquals("response", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shareTheStreamInFlight() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicInteger subscriptions = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<String> stream = Flux.defer(() -> {
+            subscriptions.incrementAndGet();
+            return upstream.asFlux().doOnCancel(() -> cancelled.set(true));
+        });
+
+        Flux<String> first = this.singleFlight.stream("key", () -> stream);
+        StepVerifier.create(first)
+                .then(() -> upstream.tryEmitNext("a"))
+                .expectNext("a")
+                .then(() -> StepVerifier.create(this.singleFlight.stream("key", () -> stream).take(2))
+                        // the late joiner gets a replay of the elements emitted so far
+                        .expectNext("a")
+                        .then(() -> upstream.tryEmitNext("b"))
+                        .expectNext("b")
+                        .expectComplete()
+                        .verify(Duration.ofSeconds(5)))
+                .expectNext("b")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, subscriptions.get());
+        assertEquals(1, this.singleFlight.getCoalesced());
+        assertTrue(cancelled.get());
+        assertEquals(0, this.singleFlight.getInFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        await(latch, Duration.ofSeconds(5));
+    }
+
+    private static void await(CountDownLatch latch, Duration timeout) {
+        try {
+            latch.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+}
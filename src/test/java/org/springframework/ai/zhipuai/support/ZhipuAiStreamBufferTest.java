@@ -0,0 +1,102 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZhipuAiStreamBufferTest {
+
+    /**
+     * Concatenates the chunks, except the {@code !} ones standing for tool calls and finish reasons.
+     */
+    private static final BiFunction<String, String, String> COALESCER =
+            (previous, next) -> (previous.contains("!") || next.contains("!")) ? null : previous + next;
+
+    @Test
+    void blockStopsRequestingWhenFull() {
+        ZhipuAiStreamBuffer buffer = new ZhipuAiStreamBuffer(4, ZhipuAiStreamBuffer.Overflow.BLOCK);
+        AtomicLong requested = new AtomicLong();
+        Flux<Integer> upstream = Flux.range(1, 100).doOnRequest(requested::addAndGet);
+
+        StepVerifier.create(buffer.apply(upstream, (previous, next) -> null), 0)
+                .then(() -> {
+                    assertEquals(4, requested.get());
+                    assertEquals(4, buffer.getDepth());
+                })
+                .thenRequest(1)
+                .expectNext(1)
+                .then(() -> assertEquals(5, requested.get()))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(99)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, buffer.getDepth());
+        assertEquals(0, buffer.getStreams());
+        assertEquals(4, buffer.getMaxDepth());
+    }
+
+    @Test
+    void coalesceMergesIntoTheLastChunk() {
+        ZhipuAiStreamBuffer buffer = new ZhipuAiStreamBuffer(3, ZhipuAiStreamBuffer.Overflow.COALESCE);
+
+        StepVerifier.create(buffer.apply(Flux.just("a", "b", "c", "d", "e"), COALESCER), 0)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext("a", "bcde")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(3, buffer.getCoalesced());
+    }
+
+    @Test
+    void coalesceBlocksOnAChunkThatCannotBeMerged() {
+        ZhipuAiStreamBuffer buffer = new ZhipuAiStreamBuffer(3, ZhipuAiStreamBuffer.Overflow.COALESCE);
+        AtomicLong requested = new AtomicLong();
+        Flux<String> upstream = Flux.just("a", "b", "c", "!", "d", "e").doOnRequest(requested::addAndGet);
+
+        StepVerifier.create(buffer.apply(upstream, COALESCER), 0)
+                .then(() -> {
+                    // "c" merged into "b", "!" took the last slot: nothing more is read
+                    assertEquals(4, requested.get());
+                    assertEquals(3, buffer.getDepth());
+                    assertEquals(3, buffer.getMaxDepth());
+                })
+                .thenRequest(Long.MAX_VALUE)
+                // "e" arrives while "d" is still buffered behind "!"
+                .expectNext("a", "bc", "!", "de")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(3, buffer.getMaxDepth());
+    }
+
+    @Test
+    void failOnOverflow() {
+        ZhipuAiStreamBuffer buffer = new ZhipuAiStreamBuffer(2, ZhipuAiStreamBuffer.Overflow.FAIL);
+
+        StepVerifier.create(buffer.apply(Flux.range(1, 5), (previous, next) -> null), 0)
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, buffer.getOverflows());
+        assertEquals(0, buffer.getDepth());
+    }
+
+    @Test
+    void releaseOnCancel() {
+        ZhipuAiStreamBuffer buffer = new ZhipuAiStreamBuffer(8, ZhipuAiStreamBuffer.Overflow.BLOCK);
+
+        StepVerifier.create(buffer.apply(Flux.range(1, 100), (previous, next) -> null), 1)
+                .expectNext(1)
+                .then(() -> assertEquals(8, buffer.getDepth()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, buffer.getDepth());
+        assertEquals(0, buffer.getStreams());
+    }
+
+}
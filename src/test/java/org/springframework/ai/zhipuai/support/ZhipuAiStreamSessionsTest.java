@@ -0,0 +1,135 @@
+package org.springframework.ai.zhipuai.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionChunk;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZhipuAiStreamSessionsTest {
+
+    private ZhipuAiStreamSessions streamSessions;
+
+    @AfterEach
+    void close() {
+        if (this.streamSessions != null) {
+            this.streamSessions.close();
+        }
+    }
+
+    @Test
+    void resumeFromLastEventId() {
+        this.streamSessions = new ZhipuAiStreamSessions(4, 16, Duration.ofSeconds(30), Duration.ofSeconds(30));
+        Sinks.Many<ChatCompletionChunk> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        ZhipuAiStreamSessions.StreamSession session = this.streamSessions.open(upstream.asFlux());
+        upstream.tryEmitNext(chunk("a"));
+        upstream.tryEmitNext(chunk("b"));
+        upstream.tryEmitNext(chunk("c"));
+
+        // the client drops its connection after two events
+        List<ServerSentEvent<ChatCompletionChunk>> received = session.events(0)
+                .map(ZhipuAiStreamSessions.Event::toServerSentEvent)
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        String lastEventId = received.get(received.size() - 1).id();
+        assertEquals("2", lastEventId);
+
+        StepVerifier.create(this.streamSessions.get(session.getId()).events(Long.parseLong(lastEventId)))
+                .assertNext(event -> assertEvent(event, 3, "c"))
+                .then(() -> upstream.tryEmitNext(chunk("d")))
+                .assertNext(event -> assertEvent(event, 4, "d"))
+                .then(upstream::tryEmitComplete)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, this.streamSessions.getResumes());
+        assertTrue(session.isTerminated());
+    }
+
+    @Test
+    void resumeFailsWhenEventsWereDropped() {
+        this.streamSessions = new ZhipuAiStreamSessions(4, 2, Duration.ofSeconds(30), Duration.ofSeconds(30));
+        ZhipuAiStreamSessions.StreamSession session = this.streamSessions.open(
+                Flux.just(chunk("a"), chunk("b"), chunk("c"), chunk("d")));
+
+        StepVerifier.create(session.events(1))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(session.events(2))
+                .assertNext(event -> assertEvent(event, 3, "c"))
+                .assertNext(event -> assertEvent(event, 4, "d"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void abandonAfterGracePeriod() {
+        this.streamSessions = new ZhipuAiStreamSessions(4, 16, Duration.ofMillis(50), Duration.ofSeconds(30));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.Many<ChatCompletionChunk> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        ZhipuAiStreamSessions.StreamSession session = this.streamSessions.open(
+                upstream.asFlux().doOnCancel(() -> cancelled.set(true)));
+        upstream.tryEmitNext(chunk("a"));
+
+        // a client reads the first event then leaves, nobody comes back within the grace period
+        StepVerifier.create(session.events(0))
+                .assertNext(event -> assertEvent(event, 1, "a"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        StepVerifier.create(session.events(1).delaySubscription(Duration.ofMillis(500)))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof IllegalStateException);
+                    assertTrue(error.getMessage().contains("abandoned"));
+                })
+                .verify(Duration.ofSeconds(5));
+        assertTrue(cancelled.get());
+        assertTrue(session.isTerminated());
+        assertEquals(1, this.streamSessions.getAbandoned());
+    }
+
+    @Test
+    void completeWhileAbandoning() {
+        // the upstream terminates on its own thread while the scheduler abandons the session
+        for (int i = 0; i < 200; i++) {
+            ZhipuAiStreamSessions streamSessions = new ZhipuAiStreamSessions(1, 16, Duration.ZERO, Duration.ofSeconds(30));
+            try {
+                Sinks.Many<ChatCompletionChunk> upstream = Sinks.many().unicast().onBackpressureBuffer();
+                ZhipuAiStreamSessions.StreamSession session = streamSessions.open(upstream.asFlux());
+                upstream.tryEmitNext(chunk("a"));
+                upstream.tryEmitComplete();
+
+                // whichever wins, the session terminates instead of losing its terminal signal
+                session.events(0).onErrorResume(IllegalStateException.class, error -> Flux.empty())
+                        .then()
+                        .block(Duration.ofSeconds(5));
+                assertTrue(session.isTerminated());
+            }
+            finally {
+                streamSessions.close();
+            }
+        }
+    }
+
+    private static void assertEvent(ZhipuAiStreamSessions.Event event, long id, String content) {
+        assertEquals(id, event.id());
+        assertEquals(content, event.chunk().choices().get(0).delta().content());
+    }
+
+    private static ChatCompletionChunk chunk(String content) {
+        return new ChatCompletionChunk("chunk", "chat.completion.chunk", 0L, "glm-4", null,
+                List.of(new ChatCompletionChunk.ChunkChoice(0,
+                        new ChatCompletionMessage(content, ChatCompletionMessage.Role.ASSISTANT), null)));
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.springframework.ai.zhipuai.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionMessage;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.ChatCompletionRequest;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.EmbeddingRequest;
+import org.springframework.ai.zhipuai.api.ZhipuAiApi.FunctionTool;
+import org.springframework.ai.zhipuai.api.ZhipuAiChatOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiEmbeddingOptions;
+import org.springframework.ai.zhipuai.api.ZhipuAiImageApi.ZhipuAiImageRequest;
+import org.springframework.ai.zhipuai.api.ZhipuAiImageOptions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link OptionsUtils} merges exactly as {@link ModelOptionsUtils#merge(Object, Object, Class)}.
+ */
+class OptionsUtilsTest {
+
+    private static final ZhipuAiChatOptions FULL_CHAT_OPTIONS = ZhipuAiChatOptions.builder()
+            .withModel("glm-4")
+            .withMaxTokens(512)
+            .withDoSample(true)
+            .withTemperature(0.7f)
+            .withTopP(0.9f)
+            .withUser("user-1")
+            .withStop(List.of("\n\n"))
+            .withTools(List.of(new FunctionTool(new FunctionTool.Function("Get the weather", "weather",
+                    Map.of("type", "object", "properties", Map.of("city", Map.of("type", "string")))))))
+            .withToolChoice(ChatCompletionRequest.ToolChoice.AUTO)
+            .withSessionId("session-1")
+            .withDeadline(Duration.ofSeconds(30))
+            .build();
+
+    private static final ZhipuAiChatOptions PARTIAL_CHAT_OPTIONS = ZhipuAiChatOptions.builder()
+            .withModel("glm-3-turbo")
+            .withTemperature(0.2f)
+            .build();
+
+    private static final ZhipuAiChatOptions EMPTY_CHAT_OPTIONS = ZhipuAiChatOptions.builder().build();
+
+    private static final ChatCompletionRequest REQUEST = new ChatCompletionRequest("request-1", "glm-4-air",
+            List.of(new ChatCompletionMessage("Hello", ChatCompletionMessage.Role.USER)), false, true, 0.5f,
+            0.8f, 128, List.of("END"), null, null, "user-2");
+
+    @Test
+    void chatDefaultOptions() {
+        for (ZhipuAiChatOptions options : Arrays.asList(FULL_CHAT_OPTIONS, PARTIAL_CHAT_OPTIONS,
+                EMPTY_CHAT_OPTIONS, null)) {
+            assertEquals(ModelOptionsUtils.merge(REQUEST, options, ChatCompletionRequest.class),
+                    OptionsUtils.merge(REQUEST, OptionsUtils.toRequest(options)));
+        }
+    }
+
+    @Test
+    void chatRuntimeOptions() {
+        for (ZhipuAiChatOptions options : Arrays.asList(FULL_CHAT_OPTIONS, PARTIAL_CHAT_OPTIONS,
+                EMPTY_CHAT_OPTIONS, null)) {
+            assertEquals(ModelOptionsUtils.merge(options, REQUEST, ChatCompletionRequest.class),
+                    OptionsUtils.merge(OptionsUtils.toRequest(options), REQUEST));
+        }
+    }
+
+    @Test
+    void chatRequests() {
+        ChatCompletionRequest partial = new ChatCompletionRequest(null, "glm-4", null, null, null, 0.1f, null,
+                null, null, null, null, null);
+        ChatCompletionRequest empty = OptionsUtils.toRequest(null);
+        for (ChatCompletionRequest source : Arrays.asList(REQUEST, partial, empty, null)) {
+            assertEquals(ModelOptionsUtils.merge(source, REQUEST, ChatCompletionRequest.class),
+                    OptionsUtils.merge(source, REQUEST));
+            assertEquals(ModelOptionsUtils.merge(REQUEST, source, ChatCompletionRequest.class),
+                    OptionsUtils.merge(REQUEST, source));
+        }
+    }
+
+    @Test
+    void imageOptions() {
+        ZhipuAiImageOptions full = ZhipuAiImageOptions.builder()
+                .withN(2)
+                .withModel("cogview-3")
+                .withQuality("hd")
+                .withResponseFormat("url")
+                .withWidth(1024)
+                .withHeight(1024)
+                .withStyle("vivid")
+                .withUser("user-1")
+                .build();
+        ZhipuAiImageOptions partial = ZhipuAiImageOptions.builder().withModel("cogview-3").build();
+        ZhipuAiImageOptions empty = ZhipuAiImageOptions.builder().build();
+        ZhipuAiImageRequest request = new ZhipuAiImageRequest("A cat", "cogview", "user-2");
+        for (ZhipuAiImageOptions options : Arrays.asList(full, partial, empty, null)) {
+            assertEquals(ModelOptionsUtils.merge(options, request, ZhipuAiImageRequest.class),
+                    OptionsUtils.merge(options, request));
+        }
+    }
+
+    @Test
+    void embeddingOptions() {
+        ZhipuAiEmbeddingOptions full = ZhipuAiEmbeddingOptions.builder().withModel("embedding-3").build();
+        ZhipuAiEmbeddingOptions empty = ZhipuAiEmbeddingOptions.builder().build();
+        EmbeddingRequest request = new EmbeddingRequest("Hello", ZhipuAiApi.EmbeddingModel.EMBED.getValue());
+        for (ZhipuAiEmbeddingOptions options : Arrays.asList(full, empty, null)) {
+            assertEquals(ModelOptionsUtils.merge(options, request, EmbeddingRequest.class),
+                    OptionsUtils.merge(options, request));
+        }
+    }
+
+}